@@ -19,13 +19,28 @@ public class CacheConfig {
 
     @Bean
     public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("policyConfigCache");
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
+                "policyConfigCache", "equipmentContextCache", "commandListCache", "commandMatcherCache",
+                "ipAllowlistCache", "typedPolicyConfigCache");
         cacheManager.setCaffeine(
             Caffeine.newBuilder()
-                .maximumSize(1000)  // Cache up to 1000 policy configs
+                .maximumSize(1000)  // Cache up to 1000 entries per cache (policy configs, equipment contexts, command lists, matchers, IP allowlists, typed configs)
                 .expireAfterWrite(30, TimeUnit.MINUTES)  // Expire after 30 minutes
                 .recordStats()  // Enable cache statistics
         );
+        // One snapshot per user; writes evict explicitly, expiry only bounds out-of-band DB edits
+        cacheManager.registerCustomCache("principalSnapshotCache", Caffeine.newBuilder()
+                .maximumSize(50000)
+                .expireAfterWrite(30, TimeUnit.MINUTES)
+                .recordStats()
+                .build());
+        // One aggregated policy view per subject class (distinct assigned policy id set); keys carry
+        // the rules version, so superseded entries are never read again and only age out
+        cacheManager.registerCustomCache("subjectClassPolicyCache", Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterAccess(30, TimeUnit.MINUTES)
+                .recordStats()
+                .build());
         return cacheManager;
     }
 
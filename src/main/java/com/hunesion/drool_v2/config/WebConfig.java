@@ -2,21 +2,49 @@ package com.hunesion.drool_v2.config;
 
 import com.hunesion.drool_v2.interceptor.AccessControlInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.concurrent.TimeUnit;
+
 /**
- * WebConfig - Registers the AccessControlInterceptor
+ * WebConfig - Registers the AccessControlInterceptor and the async support used by
+ * the inspection command streams
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
     private final AccessControlInterceptor accessControlInterceptor;
+    private final long streamTimeoutMillis;
+    private final int maxStreams;
 
     @Autowired
-    public WebConfig(AccessControlInterceptor accessControlInterceptor) {
+    public WebConfig(AccessControlInterceptor accessControlInterceptor,
+                     @Value("${policy.inspection.stream-timeout-minutes:480}") long streamTimeoutMinutes,
+                     @Value("${policy.inspection.max-streams:200}") int maxStreams) {
         this.accessControlInterceptor = accessControlInterceptor;
+        this.streamTimeoutMillis = TimeUnit.MINUTES.toMillis(Math.max(0, streamTimeoutMinutes));
+        this.maxStreams = Math.max(1, maxStreams);
+    }
+
+    /**
+     * A command stream lives as long as its terminal session, far beyond the container's 30 s
+     * async default. Streams get their own threads so they never occupy the shared task executor;
+     * past max-streams new streams are rejected instead of queued.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("inspection-stream-");
+        executor.setDaemon(true);
+        executor.setConcurrencyLimit(maxStreams);
+        executor.setRejectTasksWhenLimitReached(true);
+        configurer.setTaskExecutor(executor);
+        // 0 means no timeout
+        configurer.setDefaultTimeout(streamTimeoutMillis);
     }
 
     @Override
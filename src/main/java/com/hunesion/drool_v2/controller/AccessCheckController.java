@@ -1,5 +1,6 @@
 package com.hunesion.drool_v2.controller;
 
+import com.hunesion.drool_v2.dto.AccessCheckBatchRequestDTO;
 import com.hunesion.drool_v2.model.AccessRequest;
 import com.hunesion.drool_v2.model.AccessResult;
 import com.hunesion.drool_v2.service.AccessControlService;
@@ -9,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -62,4 +64,26 @@ public class AccessCheckController {
         AccessResult result = accessControlService.evaluateAccess(request);
         return ResponseEntity.ok(result);
     }
+
+    @Operation(
+        summary = "Check access for many endpoints at once",
+        description = "Evaluates a list of (endpoint, method) pairs for one user, e.g. to decide which menu items to render. The user is loaded once and all pairs are evaluated in one rule session. Returns a permission map keyed by \"METHOD endpoint\". A missing or empty endpoints list is rejected with 400."
+    )
+    @PostMapping("/check/batch")
+    public ResponseEntity<Map<String, Object>> checkAccessBatch(@RequestBody AccessCheckBatchRequestDTO request) {
+        if (request.getEndpoints() == null || request.getEndpoints().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Map<String, AccessResult> results = accessControlService.checkAccessBatch(
+                request.getUsername(), request.getEndpoints());
+
+        Map<String, Boolean> permissions = new LinkedHashMap<>();
+        results.forEach((key, result) -> permissions.put(key, result.isAllowed()));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("username", request.getUsername());
+        response.put("permissions", permissions);
+
+        return ResponseEntity.ok(response);
+    }
 }
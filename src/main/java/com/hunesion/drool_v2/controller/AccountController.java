@@ -6,6 +6,8 @@ import com.hunesion.drool_v2.model.entity.Equipment;
 import com.hunesion.drool_v2.repository.AccountRepository;
 import com.hunesion.drool_v2.repository.AccountTypeRepository;
 import com.hunesion.drool_v2.repository.EquipmentRepository;
+import com.hunesion.drool_v2.service.AuthorizationGraph;
+import com.hunesion.drool_v2.service.EquipmentContextCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,15 +27,21 @@ public class AccountController {
     private final AccountRepository accountRepository;
     private final AccountTypeRepository accountTypeRepository;
     private final EquipmentRepository equipmentRepository;
+    private final EquipmentContextCache equipmentContextCache;
+    private final AuthorizationGraph authorizationGraph;
 
     @Autowired
     public AccountController(
             AccountRepository accountRepository,
             AccountTypeRepository accountTypeRepository,
-            EquipmentRepository equipmentRepository) {
+            EquipmentRepository equipmentRepository,
+            EquipmentContextCache equipmentContextCache,
+            AuthorizationGraph authorizationGraph) {
         this.accountRepository = accountRepository;
         this.accountTypeRepository = accountTypeRepository;
         this.equipmentRepository = equipmentRepository;
+        this.equipmentContextCache = equipmentContextCache;
+        this.authorizationGraph = authorizationGraph;
     }
 
     @Operation(summary = "Get all accounts", description = "Retrieve all accounts")
@@ -97,6 +105,8 @@ public class AccountController {
             account.setActive(true);
 
             Account savedAccount = accountRepository.save(account);
+            equipmentContextCache.evictEquipment(equipmentId);
+            authorizationGraph.markDirty();
             return ResponseEntity.status(HttpStatus.CREATED).body(savedAccount);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -134,6 +144,8 @@ public class AccountController {
             }
 
             Account updatedAccount = accountRepository.save(account);
+            equipmentContextCache.evictEquipment(updatedAccount.getEquipment().getId());
+            authorizationGraph.markDirty();
             return ResponseEntity.ok(updatedAccount);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -149,6 +161,8 @@ public class AccountController {
                     .orElseThrow(() -> new RuntimeException("Account not found: " + id));
             account.setActive(false);
             accountRepository.save(account);
+            equipmentContextCache.evictEquipment(account.getEquipment().getId());
+            authorizationGraph.markDirty();
             return ResponseEntity.ok(Map.of("message", "Account deleted successfully"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
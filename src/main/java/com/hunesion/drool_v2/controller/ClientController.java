@@ -4,8 +4,11 @@ import com.hunesion.drool_v2.dto.EquipmentAccessRequestDTO;
 import com.hunesion.drool_v2.dto.EquipmentAccessResponseDTO;
 import com.hunesion.drool_v2.model.entity.*;
 import com.hunesion.drool_v2.repository.*;
+import com.hunesion.drool_v2.dto.AccessibleEquipmentPageDTO;
+import com.hunesion.drool_v2.service.AccessibleEquipmentService;
 import com.hunesion.drool_v2.service.EquipmentAccessControlService;
 import com.hunesion.drool_v2.service.PolicyConfigCache;
+import com.hunesion.drool_v2.service.WorkGroupIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -33,6 +36,8 @@ public class ClientController {
     private final WorkGroupRepository workGroupRepository;
     private final AccountRepository accountRepository;
     private final PolicyConfigCache policyConfigCache;
+    private final AccessibleEquipmentService accessibleEquipmentService;
+    private final WorkGroupIndex workGroupIndex;
 
     @Operation(
             summary = "User ssh on their equipment (Linux Server) that has been assigned by admin",
@@ -103,6 +108,43 @@ public class ClientController {
         return ResponseEntity.ok(debug);
     }
 
+    /**
+     * Enabled policies of each enabled work group containing the user, keyed by work group name
+     * Uses the work group index when it is current: one policy load instead of one catalog per group.
+     */
+    private Map<String, List<EquipmentPolicy>> enabledWorkGroupPolicies(Long userId) {
+        Map<String, List<EquipmentPolicy>> result = new LinkedHashMap<>();
+        List<WorkGroupIndex.Membership> memberships = workGroupIndex.findByUser(userId);
+        if (memberships == null) {
+            for (WorkGroup wg : workGroupRepository.findByUserId(userId)) {
+                result.put(wg.getWorkGroupName(), wg.getPolicies().stream()
+                        .filter(EquipmentPolicy::isEnabled)
+                        .collect(Collectors.toList()));
+            }
+            return result;
+        }
+
+        Set<Long> policyIds = new HashSet<>();
+        for (WorkGroupIndex.Membership membership : memberships) {
+            for (long policyId : membership.getEnabledPolicyIds()) {
+                policyIds.add(policyId);
+            }
+        }
+        Map<Long, EquipmentPolicy> policiesById = policyRepository.findAllById(policyIds).stream()
+                .collect(Collectors.toMap(EquipmentPolicy::getId, p -> p));
+        for (WorkGroupIndex.Membership membership : memberships) {
+            List<EquipmentPolicy> policies = new ArrayList<>();
+            for (long policyId : membership.getEnabledPolicyIds()) {
+                EquipmentPolicy policy = policiesById.get(policyId);
+                if (policy != null) {
+                    policies.add(policy);
+                }
+            }
+            result.put(membership.getWorkGroupName(), policies);
+        }
+        return result;
+    }
+
     /**
      * Extract client IP from request (handles proxies)
      */
@@ -144,11 +186,10 @@ public class ClientController {
         List<PolicyMatch> matches = new ArrayList<>();
 
         // 1. Check WORK_GROUP policies via work groups (priority 300 - HIGHEST)
-        List<WorkGroup> userWorkGroups = workGroupRepository.findByUserId(user.getId());
-        for (WorkGroup wg : userWorkGroups) {
-            for (EquipmentPolicy p : wg.getPolicies()) {
-                if ("loginMethods".equals(p.getPolicyType().getTypeCode()) && p.isEnabled()) {
-                    matches.add(new PolicyMatch("WORK_GROUP:" + wg.getWorkGroupName(), p.getPriority(), p));
+        for (Map.Entry<String, List<EquipmentPolicy>> wg : enabledWorkGroupPolicies(user.getId()).entrySet()) {
+            for (EquipmentPolicy p : wg.getValue()) {
+                if ("loginMethods".equals(p.getPolicyType().getTypeCode())) {
+                    matches.add(new PolicyMatch("WORK_GROUP:" + wg.getKey(), p.getPriority(), p));
                 }
             }
         }
@@ -196,7 +237,7 @@ public class ClientController {
                     "source", winner.source,
                     "priority", winner.priority,
                     "policyName", winner.policy.getPolicyName(),
-                    "config", policyConfigCache.getParsedConfig(winner.policy.getId(), winner.policy.getPolicyConfig())
+                    "config", policyConfigCache.getParsedConfig(winner.policy)
             ));
             result.put("resolution", "Policy '" + winner.policy.getPolicyName() + "' from " + winner.source + " (priority " + winner.priority + ") wins");
         } else {
@@ -256,6 +297,31 @@ public class ClientController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Simulate: User views every equipment they can actually connect to
+     * Unlike /equipment-list this evaluates all policy sources (direct, group, role, user type,
+     * policy group, equipment, account type and work group), one page at a time
+     */
+    @Operation(summary = "Get equipment the user is allowed to access",
+               description = "Evaluates the effective access decision for every candidate equipment and returns the allowed ones, " +
+                       "paged by equipment id. Pass nextCursor as afterId to fetch the next page")
+    @GetMapping("/accessible-equipment")
+    public ResponseEntity<AccessibleEquipmentPageDTO> getAccessibleEquipment(
+            @Parameter(description = "Username to compute accessible equipment for")
+            @RequestParam String username,
+            @Parameter(description = "Protocol to evaluate with (defaults to each equipment's protocol)")
+            @RequestParam(required = false) String protocol,
+            @Parameter(description = "Cursor returned by the previous page")
+            @RequestParam(required = false) Long afterId,
+            @Parameter(description = "Page size (max 500)")
+            @RequestParam(defaultValue = "100") int limit,
+            HttpServletRequest httpRequest) {
+
+        AccessibleEquipmentPageDTO page = accessibleEquipmentService.findAccessibleEquipment(
+                username, protocol, getClientIp(httpRequest), afterId, limit);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Simulate: User clicks on equipment to get session timeout policy
      */
@@ -329,7 +395,7 @@ public class ClientController {
 
         if (!matches.isEmpty()) {
             PolicyMatch winner = matches.get(0);
-            Map<String, Object> config = policyConfigCache.getParsedConfig(winner.policy.getId(), winner.policy.getPolicyConfig());
+            Map<String, Object> config = policyConfigCache.getParsedConfig(winner.policy);
             result.put("effectivePolicy", Map.of(
                     "source", winner.source,
                     "priority", winner.priority,
@@ -373,17 +439,33 @@ public class ClientController {
         result.put("username", username);
         result.put("equipment", equipment.getDeviceName());
 
-        // Get accounts from work groups that contain both user and equipment
-        List<WorkGroup> workGroups = workGroupRepository.findByUserIdAndEquipmentId(user.getId(), equipmentId);
+        // Get accounts from work groups that contain both user and equipment,
+        // from the work group index when it is current
+        List<String> workGroupNames;
         Set<Account> availableAccounts = new HashSet<>();
-
-        for (WorkGroup wg : workGroups) {
-            availableAccounts.addAll(wg.getAccounts());
+        List<WorkGroupIndex.Membership> memberships = workGroupIndex.findByUserAndEquipment(user.getId(), equipmentId);
+        if (memberships != null) {
+            workGroupNames = memberships.stream()
+                    .map(WorkGroupIndex.Membership::getWorkGroupName)
+                    .collect(Collectors.toList());
+            Set<Long> accountIds = new HashSet<>();
+            for (WorkGroupIndex.Membership membership : memberships) {
+                for (long accountId : membership.getAccountIds()) {
+                    accountIds.add(accountId);
+                }
+            }
+            availableAccounts.addAll(accountRepository.findAllById(accountIds));
+        } else {
+            List<WorkGroup> workGroups = workGroupRepository.findByUserIdAndEquipmentId(user.getId(), equipmentId);
+            for (WorkGroup wg : workGroups) {
+                availableAccounts.addAll(wg.getAccounts());
+            }
+            workGroupNames = workGroups.stream()
+                    .map(wg -> wg.getWorkGroupName())
+                    .collect(Collectors.toList());
         }
 
-        result.put("workGroups", workGroups.stream()
-                .map(wg -> wg.getWorkGroupName())
-                .collect(Collectors.toList()));
+        result.put("workGroups", workGroupNames);
 
         result.put("availableAccounts", availableAccounts.stream()
                 .map(a -> Map.of(
@@ -419,19 +501,16 @@ public class ClientController {
         Map<String, List<Map<String, Object>>> policiesBySource = new LinkedHashMap<>();
 
         // 1. WORK_GROUP policies (priority 300 - HIGHEST)
-        List<WorkGroup> workGroups = workGroupRepository.findByUserId(user.getId());
         List<Map<String, Object>> workGroupPolicies = new ArrayList<>();
-        for (WorkGroup wg : workGroups) {
-            for (EquipmentPolicy p : wg.getPolicies()) {
-                if (p.isEnabled()) {
-                    workGroupPolicies.add(Map.of(
-                            "id", p.getId(),
-                            "name", p.getPolicyName(),
-                            "type", p.getPolicyType().getTypeCode(),
-                            "priority", p.getPriority(),
-                            "workGroup", wg.getWorkGroupName()
-                    ));
-                }
+        for (Map.Entry<String, List<EquipmentPolicy>> wg : enabledWorkGroupPolicies(user.getId()).entrySet()) {
+            for (EquipmentPolicy p : wg.getValue()) {
+                workGroupPolicies.add(Map.of(
+                        "id", p.getId(),
+                        "name", p.getPolicyName(),
+                        "type", p.getPolicyType().getTypeCode(),
+                        "priority", p.getPriority(),
+                        "workGroup", wg.getKey()
+                ));
             }
         }
         policiesBySource.put("WORK_GROUP (priority 300)", workGroupPolicies);
@@ -1,13 +1,36 @@
 package com.hunesion.drool_v2.controller;
 
+import com.hunesion.drool_v2.dto.AuthorizedUsersDTO;
 import com.hunesion.drool_v2.dto.EquipmentAccessRequestDTO;
 import com.hunesion.drool_v2.dto.EquipmentAccessResponseDTO;
+import com.hunesion.drool_v2.dto.InspectionSessionDTO;
+import com.hunesion.drool_v2.dto.LiveSessionDTO;
+import com.hunesion.drool_v2.dto.LoginAttemptDTO;
+import com.hunesion.drool_v2.service.AuthorizedUsersService;
 import com.hunesion.drool_v2.service.EquipmentAccessControlService;
+import com.hunesion.drool_v2.service.InspectionSessionService;
+import com.hunesion.drool_v2.service.LoginAttemptTracker;
+import com.hunesion.drool_v2.service.PolicyFactLoader;
+import com.hunesion.drool_v2.service.SessionRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/equipment-access")
@@ -15,10 +38,31 @@ import org.springframework.web.bind.annotation.*;
 public class EquipmentAccessController {
 
     private final EquipmentAccessControlService accessControlService;
+    private final AuthorizedUsersService authorizedUsersService;
+    private final SessionRegistry sessionRegistry;
+    private final LoginAttemptTracker loginAttemptTracker;
+    private final PolicyFactLoader factLoader;
+    private final InspectionSessionService inspectionSessionService;
+    private final ObjectMapper objectMapper;
+    private final int maxBatchSize;
 
     @Autowired
-    public EquipmentAccessController(EquipmentAccessControlService accessControlService) {
+    public EquipmentAccessController(EquipmentAccessControlService accessControlService,
+                                     AuthorizedUsersService authorizedUsersService,
+                                     SessionRegistry sessionRegistry,
+                                     LoginAttemptTracker loginAttemptTracker,
+                                     PolicyFactLoader factLoader,
+                                     InspectionSessionService inspectionSessionService,
+                                     ObjectMapper objectMapper,
+                                     @Value("${policy.equipment-access.max-batch-size:1000}") int maxBatchSize) {
         this.accessControlService = accessControlService;
+        this.authorizedUsersService = authorizedUsersService;
+        this.sessionRegistry = sessionRegistry;
+        this.loginAttemptTracker = loginAttemptTracker;
+        this.factLoader = factLoader;
+        this.inspectionSessionService = inspectionSessionService;
+        this.objectMapper = objectMapper;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
     }
 
     @Operation(
@@ -52,4 +96,180 @@ public class EquipmentAccessController {
         EquipmentAccessResponseDTO response = accessControlService.checkAccess(request);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    @Operation(
+            summary = "Check equipment access in batch",
+            description = "Evaluates a list of access requests (e.g. one user against many equipment items) in one call. " +
+                    "Lookups are shared across the batch and results are returned in request order. " +
+                    "Batches larger than policy.equipment-access.max-batch-size (default 1000) are rejected with 400"
+    )
+    @PostMapping("/check/batch")
+    public ResponseEntity<List<EquipmentAccessResponseDTO>> checkAccessBatch(
+            @RequestBody List<EquipmentAccessRequestDTO> requests) {
+        // The whole batch shares one KieSession and one bulk context load
+        if (requests == null || requests.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<EquipmentAccessResponseDTO> responses = accessControlService.checkAccessBatch(requests);
+        return ResponseEntity.ok(responses);
+    }
+
+    @Operation(
+            summary = "List users who can access an equipment",
+            description = "Reverse authorization query: returns every user currently allowed to access the equipment " +
+                    "(e.g. who can SSH into host X right now). Users are grouped by their effective policy profile " +
+                    "and each profile is evaluated once"
+    )
+    @GetMapping("/authorized-users")
+    public ResponseEntity<AuthorizedUsersDTO> getAuthorizedUsers(
+            @RequestParam("equipmentId") Long equipmentId,
+            @RequestParam(value = "protocol", required = false) String protocol) {
+        AuthorizedUsersDTO response = authorizedUsersService.findAuthorizedUsers(equipmentId, protocol);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(
+            summary = "Open a live session",
+            description = "Registers a session after a successful access check. The per-user protocol counts " +
+                    "feed the maxSshSessions/maxRdpSessions/maxTelnetSessions limits of commonSettings policies"
+    )
+    @PostMapping("/sessions")
+    public ResponseEntity<LiveSessionDTO> openSession(@RequestBody LiveSessionDTO request) {
+        SessionRegistry.LiveSession session = sessionRegistry.open(
+                request.getUsername(), request.getEquipmentId(), request.getProtocol());
+        return ResponseEntity.ok(toSessionDTO(session));
+    }
+
+    @Operation(
+            summary = "Send a session heartbeat",
+            description = "Keeps a live session from being reaped. Returns 404 if the session was closed or has expired"
+    )
+    @PostMapping("/sessions/{sessionId}/heartbeat")
+    public ResponseEntity<Void> heartbeat(@PathVariable String sessionId) {
+        return sessionRegistry.heartbeat(sessionId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @Operation(
+            summary = "Close a live session",
+            description = "Removes the session from the registry and releases its slot in the session limits"
+    )
+    @DeleteMapping("/sessions/{sessionId}")
+    public ResponseEntity<Void> closeSession(@PathVariable String sessionId) {
+        return sessionRegistry.close(sessionId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @Operation(
+            summary = "Open a command inspection session",
+            description = "Checks access once and, if allowed, opens a live session bound to a precomputed evaluation " +
+                    "context. Commands of the session are then checked against that context without reloading " +
+                    "policies. Returns the denial without a session ID if access is not allowed"
+    )
+    @PostMapping("/inspection-sessions")
+    public ResponseEntity<InspectionSessionDTO> openInspectionSession(
+            @RequestBody EquipmentAccessRequestDTO request) {
+        return ResponseEntity.ok(inspectionSessionService.open(request));
+    }
+
+    @Operation(
+            summary = "Check a command of an inspection session",
+            description = "Runs only the session's command matcher. Also counts as a heartbeat. " +
+                    "Returns 404 if the session was closed or has expired"
+    )
+    @PostMapping("/inspection-sessions/{sessionId}/check")
+    public ResponseEntity<InspectionSessionDTO.CommandResultDTO> inspectCommand(
+            @PathVariable String sessionId,
+            @RequestBody InspectionSessionDTO.CommandRequestDTO request) {
+        InspectionSessionDTO.CommandResultDTO result = inspectionSessionService.inspect(sessionId, request.getCommand());
+        return result != null ? ResponseEntity.ok(result) : ResponseEntity.notFound().build();
+    }
+
+    @Operation(
+            summary = "Stream commands of an inspection session",
+            description = "Chunked channel for a whole session: the request body is read one command per line and " +
+                    "one JSON decision per line (NDJSON) is written and flushed as each command arrives. " +
+                    "The stream ends when the request body ends, the session is closed or " +
+                    "policy.inspection.stream-timeout-minutes (default 480) elapses; reconnect to continue. " +
+                    "At most policy.inspection.max-streams streams run at once"
+    )
+    @PostMapping(value = "/inspection-sessions/{sessionId}/commands", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCommands(
+            @PathVariable String sessionId,
+            InputStream commands) {
+        if (!sessionRegistry.isOpen(sessionId)) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = (OutputStream output) -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(commands, StandardCharsets.UTF_8));
+            String command;
+            while ((command = reader.readLine()) != null) {
+                InspectionSessionDTO.CommandResultDTO result = inspectionSessionService.inspect(sessionId, command);
+                if (result == null) {
+                    break;
+                }
+                output.write(objectMapper.writeValueAsBytes(result));
+                output.write('\n');
+                output.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @Operation(
+            summary = "Close a command inspection session",
+            description = "Closes the live session and drops its evaluation context"
+    )
+    @DeleteMapping("/inspection-sessions/{sessionId}")
+    public ResponseEntity<Void> closeInspectionSession(@PathVariable String sessionId) {
+        return sessionRegistry.close(sessionId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @Operation(
+            summary = "Report a login attempt",
+            description = "Gateways report each login to the target equipment. Failures count towards the " +
+                    "maxFailureAttempts of the user's loginControl policies; reaching it locks the user and the " +
+                    "client IP for lockoutDurationMinutes, and access checks are denied until it expires"
+    )
+    @PostMapping("/login-attempts")
+    public ResponseEntity<LoginAttemptDTO> reportLoginAttempt(@RequestBody LoginAttemptDTO attempt) {
+        if (attempt.isSuccess()) {
+            loginAttemptTracker.recordSuccess(attempt.getUsername());
+            attempt.setRecentFailures(0);
+        } else {
+            attempt.setRecentFailures(loginAttemptTracker.recordFailure(attempt.getUsername(), attempt.getClientIp(),
+                    factLoader.resolveLockSettings(attempt.getUsername())));
+        }
+        attempt.setLocked(loginAttemptTracker.isLocked(attempt.getUsername(), attempt.getClientIp()));
+        Long lockedUntil = loginAttemptTracker.getLockedUntil(attempt.getUsername());
+        attempt.setLockedUntil(lockedUntil != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(lockedUntil), ZoneId.systemDefault())
+                : null);
+        return ResponseEntity.ok(attempt);
+    }
+
+    @Operation(
+            summary = "Unlock a user",
+            description = "Clears the lockout and recent login failures of a user"
+    )
+    @DeleteMapping("/login-attempts/{username}/lock")
+    public ResponseEntity<Void> unlockUser(@PathVariable String username) {
+        loginAttemptTracker.unlock(username);
+        return ResponseEntity.noContent().build();
+    }
+
+    private LiveSessionDTO toSessionDTO(SessionRegistry.LiveSession session) {
+        LiveSessionDTO dto = new LiveSessionDTO();
+        dto.setSessionId(session.getSessionId());
+        dto.setUsername(session.getUsername());
+        dto.setEquipmentId(session.getEquipmentId());
+        dto.setProtocol(session.getProtocol());
+        dto.setOpenedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(session.getOpenedAt()), ZoneId.systemDefault()));
+        dto.setUserProtocolSessions(sessionRegistry.getSessionCount(session.getUsername(), session.getProtocol()));
+        return dto;
+    }
+}
@@ -3,6 +3,8 @@ package com.hunesion.drool_v2.controller;
 import com.hunesion.drool_v2.model.entity.Equipment;
 import com.hunesion.drool_v2.model.entity.User;
 import com.hunesion.drool_v2.repository.EquipmentRepository;
+import com.hunesion.drool_v2.service.EquipmentContextCache;
+import com.hunesion.drool_v2.service.NegativeLookupCache;
 import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -22,10 +24,16 @@ import java.util.Map;
 public class EquipmentController {
 
     private final EquipmentRepository equipmentRepository;
+    private final EquipmentContextCache equipmentContextCache;
+    private final NegativeLookupCache negativeLookupCache;
 
     @Autowired
-    public EquipmentController(EquipmentRepository equipmentRepository) {
+    public EquipmentController(EquipmentRepository equipmentRepository,
+                               EquipmentContextCache equipmentContextCache,
+                               NegativeLookupCache negativeLookupCache) {
         this.equipmentRepository = equipmentRepository;
+        this.equipmentContextCache = equipmentContextCache;
+        this.negativeLookupCache = negativeLookupCache;
     }
 
     @Operation(
@@ -74,6 +82,7 @@ public class EquipmentController {
         }
 
         Equipment saved = equipmentRepository.save(equipment);
+        negativeLookupCache.equipmentCreated(saved.getId());
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
@@ -96,7 +105,9 @@ public class EquipmentController {
                     existing.setPassword(equipment.getPassword()); // Password can be updated
                     existing.setDeviceType(equipment.getDeviceType());
                     // Note: isDeleted, createdAt are not updated here
-                    return ResponseEntity.ok(equipmentRepository.save(existing));
+                    Equipment saved = equipmentRepository.save(existing);
+                    equipmentContextCache.evictEquipment(id);
+                    return ResponseEntity.ok(saved);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -111,6 +122,8 @@ public class EquipmentController {
                 .filter(equipment -> !equipment.isDeleted())
                 .map(equipment -> {
                     equipmentRepository.softDelete(id);
+                    equipmentContextCache.evictEquipment(id);
+                    negativeLookupCache.equipmentDeleted(id);
                     Map<String, String> response = new HashMap<>();
                     response.put("message", "Equipment soft deleted successfully");
                     response.put("id", id.toString());
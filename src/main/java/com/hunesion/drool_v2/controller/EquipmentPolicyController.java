@@ -44,6 +44,17 @@ public class EquipmentPolicyController {
         return ResponseEntity.ok(policyService.getPolicyById(id));
     }
 
+    @Operation(summary = "Get covered users", description = "Retrieves the ids of all users a policy is assigned to, directly or through groups, roles, user type, policy groups or work groups")
+    @GetMapping("/{id}/covered-users")
+    public ResponseEntity<Map<String, Object>> getCoveredUsers(@PathVariable Long id) {
+        long[] userIds = policyService.getCoveredUserIds(id);
+        Map<String, Object> response = new HashMap<>();
+        response.put("policyId", id);
+        response.put("userCount", userIds.length);
+        response.put("userIds", userIds);
+        return ResponseEntity.ok(response);
+    }
+
     @Operation(summary = "Create new policy", description = "Creates a new equipment policy")
     @PostMapping
     public ResponseEntity<EquipmentPolicy> createPolicy(@RequestBody EquipmentPolicyDTO dto) {
@@ -2,6 +2,8 @@ package com.hunesion.drool_v2.controller;
 
 import com.hunesion.drool_v2.model.entity.Role;
 import com.hunesion.drool_v2.repository.RoleRepository;
+import com.hunesion.drool_v2.service.AuthorizationGraph;
+import com.hunesion.drool_v2.service.PrincipalSnapshotCache;
 import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -20,10 +22,15 @@ import java.util.Map;
 public class RoleController {
 
     private final RoleRepository roleRepository;
+    private final PrincipalSnapshotCache principalSnapshotCache;
+    private final AuthorizationGraph authorizationGraph;
 
     @Autowired
-    public RoleController(RoleRepository roleRepository) {
+    public RoleController(RoleRepository roleRepository, PrincipalSnapshotCache principalSnapshotCache,
+                          AuthorizationGraph authorizationGraph) {
         this.roleRepository = roleRepository;
+        this.principalSnapshotCache = principalSnapshotCache;
+        this.authorizationGraph = authorizationGraph;
     }
 
     @Operation(
@@ -91,6 +98,9 @@ public class RoleController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> deleteRole(@PathVariable Long id) {
         roleRepository.deleteById(id);
+        // Snapshots hold role names
+        principalSnapshotCache.evictAll();
+        authorizationGraph.markDirty();
         Map<String, String> response = new HashMap<>();
         response.put("message", "Role deleted successfully");
         return ResponseEntity.ok(response);
@@ -6,6 +6,9 @@ import com.hunesion.drool_v2.model.entity.User;
 import com.hunesion.drool_v2.repository.EquipmentRepository;
 import com.hunesion.drool_v2.repository.RoleRepository;
 import com.hunesion.drool_v2.repository.UserRepository;
+import com.hunesion.drool_v2.service.AuthorizationGraph;
+import com.hunesion.drool_v2.service.NegativeLookupCache;
+import com.hunesion.drool_v2.service.PrincipalSnapshotCache;
 import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -26,12 +29,20 @@ public class UserController {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final EquipmentRepository equipmentRepository;
+    private final PrincipalSnapshotCache principalSnapshotCache;
+    private final NegativeLookupCache negativeLookupCache;
+    private final AuthorizationGraph authorizationGraph;
 
     @Autowired
-    public UserController(UserRepository userRepository, RoleRepository roleRepository, EquipmentRepository equipmentRepository) {
+    public UserController(UserRepository userRepository, RoleRepository roleRepository, EquipmentRepository equipmentRepository,
+                          PrincipalSnapshotCache principalSnapshotCache, NegativeLookupCache negativeLookupCache,
+                          AuthorizationGraph authorizationGraph) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.equipmentRepository = equipmentRepository;
+        this.principalSnapshotCache = principalSnapshotCache;
+        this.negativeLookupCache = negativeLookupCache;
+        this.authorizationGraph = authorizationGraph;
     }
 
     @Operation(
@@ -75,6 +86,10 @@ public class UserController {
             return ResponseEntity.badRequest().build();
         }
         User saved = userRepository.save(user);
+        // The username may be cached as unknown
+        negativeLookupCache.userCreated(saved.getUsername());
+        principalSnapshotCache.evictUser(saved.getUsername());
+        authorizationGraph.markDirty();
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
@@ -91,7 +106,9 @@ public class UserController {
                     existing.setLevel(user.getLevel());
                     existing.setActive(user.isActive());
                     existing.setAttributes(user.getAttributes());
-                    return ResponseEntity.ok(userRepository.save(existing));
+                    User saved = userRepository.save(existing);
+                    principalSnapshotCache.evictUser(saved.getUsername());
+                    return ResponseEntity.ok(saved);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -109,7 +126,10 @@ public class UserController {
                 .orElseThrow(() -> new RuntimeException("Role not found: " + roleName));
         
         user.addRole(role);
-        return ResponseEntity.ok(userRepository.save(user));
+        User saved = userRepository.save(user);
+        principalSnapshotCache.evictUser(saved.getUsername());
+        authorizationGraph.markDirty();
+        return ResponseEntity.ok(saved);
     }
 
     @Operation(
@@ -125,7 +145,10 @@ public class UserController {
                 .orElseThrow(() -> new RuntimeException("Role not found: " + roleName));
         
         user.removeRole(role);
-        return ResponseEntity.ok(userRepository.save(user));
+        User saved = userRepository.save(user);
+        principalSnapshotCache.evictUser(saved.getUsername());
+        authorizationGraph.markDirty();
+        return ResponseEntity.ok(saved);
     }
 
     @Operation(
@@ -134,7 +157,11 @@ public class UserController {
     )
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> deleteUser(@PathVariable Long id) {
+        String username = userRepository.findById(id).map(User::getUsername).orElse(null);
         userRepository.deleteById(id);
+        principalSnapshotCache.evictUser(username);
+        negativeLookupCache.userDeleted(username);
+        authorizationGraph.markDirty();
         Map<String, String> response = new HashMap<>();
         response.put("message", "User deleted successfully");
         return ResponseEntity.ok(response);
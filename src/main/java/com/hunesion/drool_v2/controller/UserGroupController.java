@@ -5,6 +5,8 @@ import com.hunesion.drool_v2.model.entity.User;
 import com.hunesion.drool_v2.model.entity.UserGroup;
 import com.hunesion.drool_v2.repository.UserGroupRepository;
 import com.hunesion.drool_v2.repository.UserRepository;
+import com.hunesion.drool_v2.service.AuthorizationGraph;
+import com.hunesion.drool_v2.service.PrincipalSnapshotCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,11 +25,16 @@ public class UserGroupController {
 
     private final UserGroupRepository groupRepository;
     private final UserRepository userRepository;
+    private final PrincipalSnapshotCache principalSnapshotCache;
+    private final AuthorizationGraph authorizationGraph;
 
     @Autowired
-    public UserGroupController(UserGroupRepository groupRepository, UserRepository userRepository) {
+    public UserGroupController(UserGroupRepository groupRepository, UserRepository userRepository,
+                               PrincipalSnapshotCache principalSnapshotCache, AuthorizationGraph authorizationGraph) {
         this.groupRepository = groupRepository;
+        this.principalSnapshotCache = principalSnapshotCache;
         this.userRepository = userRepository;
+        this.authorizationGraph = authorizationGraph;
     }
 
     @Operation(summary = "Get all groups", description = "Retrieves all user groups")
@@ -72,6 +79,8 @@ public class UserGroupController {
         group.setGroupName(dto.getGroupName());
         group.setGroupDescription(dto.getGroupDescription());
         UserGroup updated = groupRepository.save(group);
+        // Snapshots hold group names
+        principalSnapshotCache.evictAll();
 
         return ResponseEntity.ok(updated);
     }
@@ -98,6 +107,8 @@ public class UserGroupController {
         
         // Now delete the group (foreign key constraints should be satisfied)
         groupRepository.delete(group);
+        users.forEach(user -> principalSnapshotCache.evictUser(user.getUsername()));
+        authorizationGraph.markDirty();
         
         Map<String, String> response = new HashMap<>();
         response.put("message", "Group deleted successfully");
@@ -127,9 +138,11 @@ public class UserGroupController {
                     .orElseThrow(() -> new RuntimeException("User not found: " + userId));
             group.getUsers().add(user);
             user.getGroups().add(group);
+            principalSnapshotCache.evictUser(user.getUsername());
         });
 
         groupRepository.save(group);
+        authorizationGraph.markDirty();
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "Members added successfully");
@@ -150,9 +163,11 @@ public class UserGroupController {
                     .orElseThrow(() -> new RuntimeException("User not found: " + userId));
             group.getUsers().remove(user);
             user.getGroups().remove(group);
+            principalSnapshotCache.evictUser(user.getUsername());
         });
 
         groupRepository.save(group);
+        authorizationGraph.markDirty();
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "Members removed successfully");
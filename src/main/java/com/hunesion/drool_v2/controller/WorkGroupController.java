@@ -3,6 +3,8 @@ package com.hunesion.drool_v2.controller;
 import com.hunesion.drool_v2.dto.WorkGroupDTO;
 import com.hunesion.drool_v2.model.entity.*;
 import com.hunesion.drool_v2.repository.*;
+import com.hunesion.drool_v2.service.AuthorizationGraph;
+import com.hunesion.drool_v2.service.WorkGroupIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +26,8 @@ public class WorkGroupController {
     private final EquipmentRepository equipmentRepository;
     private final AccountRepository accountRepository;
     private final EquipmentPolicyRepository policyRepository;
+    private final AuthorizationGraph authorizationGraph;
+    private final WorkGroupIndex workGroupIndex;
 
     @Autowired
     public WorkGroupController(
@@ -31,12 +35,16 @@ public class WorkGroupController {
             UserRepository userRepository,
             EquipmentRepository equipmentRepository,
             AccountRepository accountRepository,
-            EquipmentPolicyRepository policyRepository) {
+            EquipmentPolicyRepository policyRepository,
+            AuthorizationGraph authorizationGraph,
+            WorkGroupIndex workGroupIndex) {
         this.workGroupRepository = workGroupRepository;
         this.userRepository = userRepository;
         this.equipmentRepository = equipmentRepository;
         this.accountRepository = accountRepository;
         this.policyRepository = policyRepository;
+        this.authorizationGraph = authorizationGraph;
+        this.workGroupIndex = workGroupIndex;
     }
 
     // ========== CRUD ==========
@@ -80,6 +88,8 @@ public class WorkGroupController {
         WorkGroup workGroup = new WorkGroup(dto.getWorkGroupName(), dto.getDescription());
         workGroup.setEnabled(dto.isEnabled());
         WorkGroup saved = workGroupRepository.save(workGroup);
+        authorizationGraph.markDirty();
+        workGroupIndex.workGroupChanged(saved.getId());
 
         return ResponseEntity.status(HttpStatus.CREATED).body(toDto(saved));
     }
@@ -95,6 +105,8 @@ public class WorkGroupController {
         workGroup.setDescription(dto.getDescription());
         workGroup.setEnabled(dto.isEnabled());
         WorkGroup saved = workGroupRepository.save(workGroup);
+        authorizationGraph.markDirty();
+        workGroupIndex.workGroupChanged(id);
 
         return ResponseEntity.ok(toDto(saved));
     }
@@ -107,6 +119,8 @@ public class WorkGroupController {
                 .orElseThrow(() -> new RuntimeException("Work group not found: " + id));
 
         workGroupRepository.delete(workGroup);
+        authorizationGraph.markDirty();
+        workGroupIndex.workGroupChanged(id);
 
         Map<String, String> resp = new HashMap<>();
         resp.put("message", "Work group deleted successfully");
@@ -141,6 +155,8 @@ public class WorkGroupController {
         });
 
         workGroupRepository.save(workGroup);
+        authorizationGraph.markDirty();
+        workGroupIndex.workGroupChanged(id);
 
         Map<String, String> resp = new HashMap<>();
         resp.put("message", "Users added to work group successfully");
@@ -160,6 +176,8 @@ public class WorkGroupController {
 
         workGroup.getUsers().removeIf(user -> userIds.contains(user.getId()));
         workGroupRepository.save(workGroup);
+        authorizationGraph.markDirty();
+        workGroupIndex.workGroupChanged(id);
 
         Map<String, String> resp = new HashMap<>();
         resp.put("message", "Users removed from work group successfully");
@@ -194,6 +212,8 @@ public class WorkGroupController {
         });
 
         workGroupRepository.save(workGroup);
+        authorizationGraph.markDirty();
+        workGroupIndex.workGroupChanged(id);
 
         Map<String, String> resp = new HashMap<>();
         resp.put("message", "Equipment added to work group successfully");
@@ -213,6 +233,8 @@ public class WorkGroupController {
 
         workGroup.getEquipment().removeIf(equipment -> equipmentIds.contains(equipment.getId()));
         workGroupRepository.save(workGroup);
+        authorizationGraph.markDirty();
+        workGroupIndex.workGroupChanged(id);
 
         Map<String, String> resp = new HashMap<>();
         resp.put("message", "Equipment removed from work group successfully");
@@ -247,6 +269,7 @@ public class WorkGroupController {
         });
 
         workGroupRepository.save(workGroup);
+        workGroupIndex.workGroupChanged(id);
 
         Map<String, String> resp = new HashMap<>();
         resp.put("message", "Accounts added to work group successfully");
@@ -266,6 +289,7 @@ public class WorkGroupController {
 
         workGroup.getAccounts().removeIf(account -> accountIds.contains(account.getId()));
         workGroupRepository.save(workGroup);
+        workGroupIndex.workGroupChanged(id);
 
         Map<String, String> resp = new HashMap<>();
         resp.put("message", "Accounts removed from work group successfully");
@@ -300,6 +324,8 @@ public class WorkGroupController {
         });
 
         workGroupRepository.save(workGroup);
+        authorizationGraph.markDirty();
+        workGroupIndex.workGroupChanged(id);
 
         Map<String, String> resp = new HashMap<>();
         resp.put("message", "Policies added to work group successfully");
@@ -319,6 +345,8 @@ public class WorkGroupController {
 
         workGroup.getPolicies().removeIf(policy -> policyIds.contains(policy.getId()));
         workGroupRepository.save(workGroup);
+        authorizationGraph.markDirty();
+        workGroupIndex.workGroupChanged(id);
 
         Map<String, String> resp = new HashMap<>();
         resp.put("message", "Policies removed from work group successfully");
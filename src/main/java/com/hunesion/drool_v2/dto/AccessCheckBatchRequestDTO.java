@@ -0,0 +1,55 @@
+package com.hunesion.drool_v2.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AccessCheckBatchRequestDTO {
+    private String username;
+    private List<EndpointDTO> endpoints = new ArrayList<>();
+
+    public static class EndpointDTO {
+        private String endpoint; // e.g. /api/reports
+        private String method = "GET";
+
+        public EndpointDTO() {
+        }
+
+        public EndpointDTO(String endpoint, String method) {
+            this.endpoint = endpoint;
+            this.method = method;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public void setEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public void setMethod(String method) {
+            this.method = method;
+        }
+    }
+
+    // Getters and Setters
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public List<EndpointDTO> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(List<EndpointDTO> endpoints) {
+        this.endpoints = endpoints;
+    }
+}
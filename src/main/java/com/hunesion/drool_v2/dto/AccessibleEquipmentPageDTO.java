@@ -0,0 +1,113 @@
+package com.hunesion.drool_v2.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AccessibleEquipmentPageDTO {
+    private String username;
+    private List<EquipmentItemDTO> equipment = new ArrayList<>();
+    private Long nextCursor; // Pass as afterId to fetch the next page
+    private boolean hasMore;
+    private int scanned; // Candidate equipment evaluated for this page
+
+    public static class EquipmentItemDTO {
+        private Long id;
+        private String deviceName;
+        private String deviceType;
+        private String ipAddress;
+        private String protocol;
+        private String matchedPolicyName;
+
+        public EquipmentItemDTO() {
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getDeviceName() {
+            return deviceName;
+        }
+
+        public void setDeviceName(String deviceName) {
+            this.deviceName = deviceName;
+        }
+
+        public String getDeviceType() {
+            return deviceType;
+        }
+
+        public void setDeviceType(String deviceType) {
+            this.deviceType = deviceType;
+        }
+
+        public String getIpAddress() {
+            return ipAddress;
+        }
+
+        public void setIpAddress(String ipAddress) {
+            this.ipAddress = ipAddress;
+        }
+
+        public String getProtocol() {
+            return protocol;
+        }
+
+        public void setProtocol(String protocol) {
+            this.protocol = protocol;
+        }
+
+        public String getMatchedPolicyName() {
+            return matchedPolicyName;
+        }
+
+        public void setMatchedPolicyName(String matchedPolicyName) {
+            this.matchedPolicyName = matchedPolicyName;
+        }
+    }
+
+    // Getters and Setters
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public List<EquipmentItemDTO> getEquipment() {
+        return equipment;
+    }
+
+    public void setEquipment(List<EquipmentItemDTO> equipment) {
+        this.equipment = equipment;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public int getScanned() {
+        return scanned;
+    }
+
+    public void setScanned(int scanned) {
+        this.scanned = scanned;
+    }
+}
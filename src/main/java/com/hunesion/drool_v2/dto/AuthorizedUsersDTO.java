@@ -0,0 +1,101 @@
+package com.hunesion.drool_v2.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AuthorizedUsersDTO {
+    private Long equipmentId;
+    private String deviceName;
+    private String protocol;
+    private List<AuthorizedUserDTO> users = new ArrayList<>();
+    private int candidateUsers; // Users with at least one assigned policy on the equipment
+    private int evaluatedProfiles; // Distinct subject profiles evaluated by the rule engine
+
+    public static class AuthorizedUserDTO {
+        private Long userId;
+        private String username;
+        private String matchedPolicyName;
+
+        public AuthorizedUserDTO() {
+        }
+
+        public AuthorizedUserDTO(Long userId, String username, String matchedPolicyName) {
+            this.userId = userId;
+            this.username = username;
+            this.matchedPolicyName = matchedPolicyName;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public void setUserId(Long userId) {
+            this.userId = userId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getMatchedPolicyName() {
+            return matchedPolicyName;
+        }
+
+        public void setMatchedPolicyName(String matchedPolicyName) {
+            this.matchedPolicyName = matchedPolicyName;
+        }
+    }
+
+    // Getters and Setters
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public void setEquipmentId(Long equipmentId) {
+        this.equipmentId = equipmentId;
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    public void setDeviceName(String deviceName) {
+        this.deviceName = deviceName;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
+    public List<AuthorizedUserDTO> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<AuthorizedUserDTO> users) {
+        this.users = users;
+    }
+
+    public int getCandidateUsers() {
+        return candidateUsers;
+    }
+
+    public void setCandidateUsers(int candidateUsers) {
+        this.candidateUsers = candidateUsers;
+    }
+
+    public int getEvaluatedProfiles() {
+        return evaluatedProfiles;
+    }
+
+    public void setEvaluatedProfiles(int evaluatedProfiles) {
+        this.evaluatedProfiles = evaluatedProfiles;
+    }
+}
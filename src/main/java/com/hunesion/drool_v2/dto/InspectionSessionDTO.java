@@ -0,0 +1,140 @@
+package com.hunesion.drool_v2.dto;
+
+public class InspectionSessionDTO {
+    private String sessionId; // Null when access was denied
+    private String username;
+    private Long equipmentId;
+    private String protocol;
+    private boolean allowed;
+    private String matchedPolicyName;
+    private String denialReason;
+    private String denialCode;
+
+    public InspectionSessionDTO() {
+    }
+
+    // Getters and Setters
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public void setEquipmentId(Long equipmentId) {
+        this.equipmentId = equipmentId;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
+    public boolean isAllowed() {
+        return allowed;
+    }
+
+    public void setAllowed(boolean allowed) {
+        this.allowed = allowed;
+    }
+
+    public String getMatchedPolicyName() {
+        return matchedPolicyName;
+    }
+
+    public void setMatchedPolicyName(String matchedPolicyName) {
+        this.matchedPolicyName = matchedPolicyName;
+    }
+
+    public String getDenialReason() {
+        return denialReason;
+    }
+
+    public void setDenialReason(String denialReason) {
+        this.denialReason = denialReason;
+    }
+
+    public String getDenialCode() {
+        return denialCode;
+    }
+
+    public void setDenialCode(String denialCode) {
+        this.denialCode = denialCode;
+    }
+
+    public static class CommandRequestDTO {
+        private String command;
+
+        public String getCommand() {
+            return command;
+        }
+
+        public void setCommand(String command) {
+            this.command = command;
+        }
+    }
+
+    public static class CommandResultDTO {
+        private String command;
+        private boolean allowed;
+        private String matchedPolicyName;
+        private String denialReason;
+        private String denialCode;
+
+        public String getCommand() {
+            return command;
+        }
+
+        public void setCommand(String command) {
+            this.command = command;
+        }
+
+        public boolean isAllowed() {
+            return allowed;
+        }
+
+        public void setAllowed(boolean allowed) {
+            this.allowed = allowed;
+        }
+
+        public String getMatchedPolicyName() {
+            return matchedPolicyName;
+        }
+
+        public void setMatchedPolicyName(String matchedPolicyName) {
+            this.matchedPolicyName = matchedPolicyName;
+        }
+
+        public String getDenialReason() {
+            return denialReason;
+        }
+
+        public void setDenialReason(String denialReason) {
+            this.denialReason = denialReason;
+        }
+
+        public String getDenialCode() {
+            return denialCode;
+        }
+
+        public void setDenialCode(String denialCode) {
+            this.denialCode = denialCode;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.hunesion.drool_v2.dto;
+
+import java.time.LocalDateTime;
+
+public class LiveSessionDTO {
+    private String sessionId;
+    private String username;
+    private Long equipmentId;
+    private String protocol; // 'SSH', 'RDP', 'TELNET', etc.
+    private LocalDateTime openedAt;
+    private int userProtocolSessions; // Live sessions of the user for this protocol, including this one
+
+    public LiveSessionDTO() {
+    }
+
+    // Getters and Setters
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public void setEquipmentId(Long equipmentId) {
+        this.equipmentId = equipmentId;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
+    public LocalDateTime getOpenedAt() {
+        return openedAt;
+    }
+
+    public void setOpenedAt(LocalDateTime openedAt) {
+        this.openedAt = openedAt;
+    }
+
+    public int getUserProtocolSessions() {
+        return userProtocolSessions;
+    }
+
+    public void setUserProtocolSessions(int userProtocolSessions) {
+        this.userProtocolSessions = userProtocolSessions;
+    }
+}
@@ -0,0 +1,64 @@
+package com.hunesion.drool_v2.dto;
+
+import java.time.LocalDateTime;
+
+public class LoginAttemptDTO {
+    private String username;
+    private String clientIp;
+    private boolean success;
+    private int recentFailures; // Failures of the user within the tracking window
+    private boolean locked;
+    private LocalDateTime lockedUntil;
+
+    public LoginAttemptDTO() {
+    }
+
+    // Getters and Setters
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getClientIp() {
+        return clientIp;
+    }
+
+    public void setClientIp(String clientIp) {
+        this.clientIp = clientIp;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public int getRecentFailures() {
+        return recentFailures;
+    }
+
+    public void setRecentFailures(int recentFailures) {
+        this.recentFailures = recentFailures;
+    }
+
+    public boolean isLocked() {
+        return locked;
+    }
+
+    public void setLocked(boolean locked) {
+        this.locked = locked;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(LocalDateTime lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+}
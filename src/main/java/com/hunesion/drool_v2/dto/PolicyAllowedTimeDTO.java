@@ -14,6 +14,8 @@ public class PolicyAllowedTimeDTO {
         private Integer dayOfWeek; // 1=Monday, 7=Sunday
         private Integer hourStart; // 0-23
         private Integer hourEnd; // 0-23
+        private String startTime; // "HH:mm", overrides hourStart/hourEnd for minute-level windows
+        private String endTime; // "HH:mm", exclusive; before startTime runs into the next day
 
         public TimeSlotDTO() {
         }
@@ -47,6 +49,22 @@ public class PolicyAllowedTimeDTO {
         public void setHourEnd(Integer hourEnd) {
             this.hourEnd = hourEnd;
         }
+
+        public String getStartTime() {
+            return startTime;
+        }
+
+        public void setStartTime(String startTime) {
+            this.startTime = startTime;
+        }
+
+        public String getEndTime() {
+            return endTime;
+        }
+
+        public void setEndTime(String endTime) {
+            this.endTime = endTime;
+        }
     }
 
     // Getters and Setters
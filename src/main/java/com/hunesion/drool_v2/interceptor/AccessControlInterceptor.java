@@ -2,6 +2,7 @@ package com.hunesion.drool_v2.interceptor;
 
 import com.hunesion.drool_v2.model.AccessResult;
 import com.hunesion.drool_v2.service.AccessControlService;
+import com.hunesion.drool_v2.service.NegativeLookupCache;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +24,7 @@ import java.util.Set;
 public class AccessControlInterceptor implements HandlerInterceptor {
 
     private final AccessControlService accessControlService;
+    private final NegativeLookupCache negativeLookupCache;
 
     // Endpoints that bypass access control (public endpoints)
     private static final Set<String> PUBLIC_ENDPOINTS = Set.of(
@@ -38,8 +40,10 @@ public class AccessControlInterceptor implements HandlerInterceptor {
     );
 
     @Autowired
-    public AccessControlInterceptor(AccessControlService accessControlService) {
+    public AccessControlInterceptor(AccessControlService accessControlService,
+                                    NegativeLookupCache negativeLookupCache) {
         this.accessControlService = accessControlService;
+        this.negativeLookupCache = negativeLookupCache;
     }
 
     @Override
@@ -68,6 +72,14 @@ public class AccessControlInterceptor implements HandlerInterceptor {
             return false;
         }
 
+        // Reject unknown users before evaluating any policy
+        if (negativeLookupCache.isUnknownUser(username)) {
+            System.out.println("✗ Access denied for unknown user " + username + " to " + method + " " + endpoint);
+            sendError(response, HttpServletResponse.SC_FORBIDDEN,
+                    "User does not exist: " + username, "User Not Found");
+            return false;
+        }
+
         // Evaluate access
         AccessResult result = accessControlService.checkAccess(username, endpoint, method);
 
@@ -0,0 +1,25 @@
+package com.hunesion.drool_v2.model;
+
+import java.util.Set;
+
+/**
+ * CommandDictionary - Compiled command blacklist/whitelist used by EquipmentAccessRequest.isCommandBlocked
+ * Implemented on the heap by CommandMatcher and off-heap by MappedCommandDictionary
+ */
+public interface CommandDictionary {
+
+    /**
+     * Check whether the command is blocked by the blacklist or the whitelist
+     */
+    boolean isBlocked(String command);
+
+    /**
+     * Blacklisted patterns, or an empty set when the dictionary does not keep them on the heap
+     */
+    Set<String> getBlacklistedCommands();
+
+    /**
+     * Whitelisted patterns, or an empty set when the dictionary does not keep them on the heap
+     */
+    Set<String> getWhitelistedCommands();
+}
@@ -0,0 +1,221 @@
+package com.hunesion.drool_v2.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * CommandMatcher - Aho-Corasick automaton over the merged command blacklist and whitelist
+ * A command is scanned once, in time linear to its length, regardless of how many patterns
+ * the lists contain. Semantics match the original substring loops: a command is blocked when it
+ * contains any blacklisted pattern, or when a whitelist exists and it contains none of its patterns.
+ * An empty pattern is contained in every command.
+ *
+ * The trie is compiled into flat arrays: outgoing edges of a node are stored contiguously and
+ * sorted by character, so transitions are a binary search instead of a map lookup.
+ */
+public final class CommandMatcher implements CommandDictionary {
+
+    private static final byte BLACKLIST = 1;
+    private static final byte WHITELIST = 2;
+
+    private final Set<String> blacklistedCommands;
+    private final Set<String> whitelistedCommands;
+
+    // Edges of node n are edgeChars/edgeTargets[edgeStart[n] .. edgeStart[n + 1])
+    private final int[] edgeStart;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final int[] failure;
+    // Bit set of BLACKLIST/WHITELIST for patterns ending at the node or any of its failure suffixes
+    private final byte[] output;
+
+    public CommandMatcher(Set<String> blacklistedCommands, Set<String> whitelistedCommands) {
+        this.blacklistedCommands = Collections.unmodifiableSet(new HashSet<>(blacklistedCommands));
+        this.whitelistedCommands = Collections.unmodifiableSet(new HashSet<>(whitelistedCommands));
+
+        // Build the trie with per-node maps
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Byte> outputs = new ArrayList<>();
+        children.add(new TreeMap<>());
+        outputs.add((byte) 0);
+        addPatterns(this.blacklistedCommands, BLACKLIST, children, outputs);
+        addPatterns(this.whitelistedCommands, WHITELIST, children, outputs);
+
+        // Flatten edges
+        int nodeCount = children.size();
+        int edgeCount = 0;
+        for (TreeMap<Character, Integer> edges : children) {
+            edgeCount += edges.size();
+        }
+        this.edgeStart = new int[nodeCount + 1];
+        this.edgeChars = new char[edgeCount];
+        this.edgeTargets = new int[edgeCount];
+        int e = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            edgeStart[node] = e;
+            for (Map.Entry<Character, Integer> edge : children.get(node).entrySet()) {
+                edgeChars[e] = edge.getKey();
+                edgeTargets[e] = edge.getValue();
+                e++;
+            }
+        }
+        edgeStart[nodeCount] = e;
+
+        this.output = new byte[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            output[node] = outputs.get(node);
+        }
+
+        // Breadth-first failure links; outputs are merged along them
+        this.failure = new int[nodeCount];
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int i = edgeStart[0]; i < edgeStart[1]; i++) {
+            failure[edgeTargets[i]] = 0;
+            queue[tail++] = edgeTargets[i];
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            output[node] |= output[failure[node]];
+            for (int i = edgeStart[node]; i < edgeStart[node + 1]; i++) {
+                char c = edgeChars[i];
+                int child = edgeTargets[i];
+                int f = failure[node];
+                int next = transition(f, c);
+                while (next < 0 && f != 0) {
+                    f = failure[f];
+                    next = transition(f, c);
+                }
+                failure[child] = next >= 0 ? next : 0;
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    private static void addPatterns(Set<String> patterns, byte flag,
+                                     List<TreeMap<Character, Integer>> children, List<Byte> outputs) {
+        for (String pattern : patterns) {
+            if (pattern == null) {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    outputs.add((byte) 0);
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            outputs.set(node, (byte) (outputs.get(node) | flag));
+        }
+    }
+
+    private int transition(int node, char c) {
+        int low = edgeStart[node];
+        int high = edgeStart[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = edgeChars[mid];
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean isBlocked(String command) {
+        if (command == null || command.isEmpty()) {
+            return false;
+        }
+        int found = output[0];
+        if ((found & BLACKLIST) != 0) {
+            return true;
+        }
+        int node = 0;
+        for (int i = 0; i < command.length(); i++) {
+            char c = command.charAt(i);
+            int next = transition(node, c);
+            while (next < 0 && node != 0) {
+                node = failure[node];
+                next = transition(node, c);
+            }
+            node = next >= 0 ? next : 0;
+            found |= output[node];
+            if ((found & BLACKLIST) != 0) {
+                return true;
+            }
+        }
+        // Whitelist exists and command matched none of it
+        return !whitelistedCommands.isEmpty() && (found & WHITELIST) == 0;
+    }
+
+    /**
+     * Write the automaton in the MappedCommandDictionary file format
+     * Layout (big-endian): header, edgeStart[nodes + 1], edgeChars[edges] padded to 4 bytes,
+     * edgeTargets[edges], failure[nodes], output[nodes]
+     */
+    public void writeTo(Path file) throws IOException {
+        int nodeCount = output.length;
+        int edgeCount = edgeChars.length;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MappedCommandDictionary.MAGIC);
+            out.writeInt(MappedCommandDictionary.FORMAT_VERSION);
+            out.writeInt(nodeCount);
+            out.writeInt(edgeCount);
+            out.writeInt(whitelistedCommands.isEmpty() ? 0 : MappedCommandDictionary.FLAG_HAS_WHITELIST);
+            for (int start : edgeStart) {
+                out.writeInt(start);
+            }
+            for (char c : edgeChars) {
+                out.writeChar(c);
+            }
+            if (edgeCount % 2 != 0) {
+                out.writeChar(0);
+            }
+            for (int target : edgeTargets) {
+                out.writeInt(target);
+            }
+            for (int f : failure) {
+                out.writeInt(f);
+            }
+            out.write(output);
+        }
+    }
+
+    @Override
+    public Set<String> getBlacklistedCommands() {
+        return blacklistedCommands;
+    }
+
+    @Override
+    public Set<String> getWhitelistedCommands() {
+        return whitelistedCommands;
+    }
+
+    public int getStateCount() {
+        return output.length;
+    }
+
+    @Override
+    public String toString() {
+        return "CommandMatcher{" +
+                "blacklisted=" + blacklistedCommands.size() +
+                ", whitelisted=" + whitelistedCommands.size() +
+                ", states=" + output.length +
+                '}';
+    }
+}
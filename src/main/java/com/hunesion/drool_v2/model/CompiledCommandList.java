@@ -0,0 +1,120 @@
+package com.hunesion.drool_v2.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * CompiledCommandList - Immutable in-memory copy of a command list and its items
+ * The version is the list's updated-at timestamp; compiled matchers are keyed by it.
+ * Lists compiled into a memory-mapped dictionary are cached without their command strings
+ * (see withoutCommands); the count is kept.
+ */
+public final class CompiledCommandList {
+
+    private final Long id;
+    private final String listName;
+    private final String listType; // 'blacklist', 'whitelist', 'watchlist'
+    private final String protocolType; // 'TELNET_SSH', 'DB'
+    private final LocalDateTime version;
+    // Null once the strings were dropped
+    private final List<String> commands;
+    private final int commandCount;
+
+    public CompiledCommandList(Long id,
+                               String listName,
+                               String listType,
+                               String protocolType,
+                               LocalDateTime version,
+                               List<String> commands) {
+        this.id = id;
+        this.listName = listName;
+        this.listType = listType;
+        this.protocolType = protocolType;
+        this.version = version;
+        this.commands = commands != null ? List.copyOf(commands) : null;
+        this.commandCount = commands != null ? commands.size() : 0;
+    }
+
+    private CompiledCommandList(CompiledCommandList list) {
+        this.id = list.id;
+        this.listName = list.listName;
+        this.listType = list.listType;
+        this.protocolType = list.protocolType;
+        this.version = list.version;
+        this.commands = null;
+        this.commandCount = list.commandCount;
+    }
+
+    /**
+     * Same list and version without the command strings
+     */
+    public CompiledCommandList withoutCommands() {
+        return commands != null ? new CompiledCommandList(this) : this;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getListName() {
+        return listName;
+    }
+
+    public String getListType() {
+        return listType;
+    }
+
+    public String getProtocolType() {
+        return protocolType;
+    }
+
+    public LocalDateTime getVersion() {
+        return version;
+    }
+
+    /**
+     * Command strings, or an empty list if they were dropped (check hasCommands)
+     */
+    public List<String> getCommands() {
+        return commands != null ? commands : List.of();
+    }
+
+    public boolean hasCommands() {
+        return commands != null;
+    }
+
+    public int getCommandCount() {
+        return commandCount;
+    }
+
+    public boolean isBlacklist() {
+        return "blacklist".equals(listType);
+    }
+
+    public boolean isWhitelist() {
+        return "whitelist".equals(listType);
+    }
+
+    public boolean isWatchlist() {
+        return "watchlist".equals(listType);
+    }
+
+    /**
+     * Key identifying this exact list contents, e.g. "12@2026-01-24T10:15:30"
+     */
+    public String versionKey() {
+        return id + "@" + version;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledCommandList{" +
+                "id=" + id +
+                ", listName='" + listName + '\'' +
+                ", listType='" + listType + '\'' +
+                ", protocolType='" + protocolType + '\'' +
+                ", version=" + version +
+                ", commands=" + commandCount + (commands != null ? "" : " (dropped)") +
+                '}';
+    }
+}
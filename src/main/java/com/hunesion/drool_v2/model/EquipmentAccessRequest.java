@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -24,6 +25,7 @@ public class EquipmentAccessRequest {
     private LocalDateTime requestTime;
     private String clientIp;
     private Integer currentHour; // 0-23
+    private Integer currentMinute; // 0-59
     private Integer currentDayOfWeek; // 1=Monday, 7=Sunday
     private Integer currentSshSessions;
     private Integer currentRdpSessions;
@@ -39,12 +41,15 @@ public class EquipmentAccessRequest {
     // Command lists (set by PolicyFactLoader)
     private Set<String> blacklistedCommands = new HashSet<>();
     private Set<String> whitelistedCommands = new HashSet<>();
+    private CommandDictionary commandDictionary; // Compiled from the command lists above, shared across requests
 
     // Time slots (set by PolicyFactLoader)
     private Set<TimeSlot> allowedTimeSlots = new HashSet<>();
+    private WeeklyTimeBitmap allowedTimeBitmap; // Compiled from the time slots above in the server zone, shared across requests
 
     // IP filtering (set by PolicyFactLoader)
     private Set<String> allowedIps = new HashSet<>();
+    private IpPrefixTrie allowedIpTrie; // Compiled from allowedIps (single IPs, CIDR blocks, ranges), shared across requests
     private String ipFilteringType; // 'allow_specified_ips', 'ip_band_allowed', 'no_restrictions'
 
     // Custom attributes map (for flexible conditions from frontend)
@@ -55,26 +60,67 @@ public class EquipmentAccessRequest {
         private Integer dayOfWeek;
         private Integer hourStart;
         private Integer hourEnd;
+        private Integer minuteStart; // Minute of day, inclusive
+        private Integer minuteEnd; // Minute of day, inclusive
 
         public TimeSlot(Integer dayOfWeek, Integer hourStart, Integer hourEnd) {
+            this(dayOfWeek, hourStart * 60, hourEnd * 60 + 59);
+        }
+
+        private TimeSlot(Integer dayOfWeek, int minuteStart, int minuteEnd) {
             this.dayOfWeek = dayOfWeek;
-            this.hourStart = hourStart;
-            this.hourEnd = hourEnd;
+            this.minuteStart = minuteStart;
+            this.minuteEnd = minuteEnd;
+            this.hourStart = minuteStart / 60;
+            this.hourEnd = minuteEnd / 60;
+        }
+
+        /**
+         * Slot with minute granularity
+         *
+         * @param minuteStart First allowed minute of the day
+         * @param minuteEnd   Last allowed minute of the day, inclusive
+         */
+        public static TimeSlot ofMinutes(Integer dayOfWeek, int minuteStart, int minuteEnd) {
+            return new TimeSlot(dayOfWeek, minuteStart, minuteEnd);
         }
 
         public boolean isWithinTime(int day, int hour) {
-            return dayOfWeek.equals(day) && hour >= hourStart && hour <= hourEnd;
+            return isWithinTime(day, hour, 0);
+        }
+
+        public boolean isWithinTime(int day, int hour, int minute) {
+            int minuteOfDay = hour * 60 + minute;
+            return dayOfWeek.equals(day) && minuteOfDay >= minuteStart && minuteOfDay <= minuteEnd;
         }
 
         // Getters
         public Integer getDayOfWeek() { return dayOfWeek; }
         public Integer getHourStart() { return hourStart; }
         public Integer getHourEnd() { return hourEnd; }
+        public Integer getMinuteStart() { return minuteStart; }
+        public Integer getMinuteEnd() { return minuteEnd; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TimeSlot)) return false;
+            TimeSlot other = (TimeSlot) o;
+            return Objects.equals(dayOfWeek, other.dayOfWeek)
+                    && Objects.equals(minuteStart, other.minuteStart)
+                    && Objects.equals(minuteEnd, other.minuteEnd);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dayOfWeek, minuteStart, minuteEnd);
+        }
     }
 
     public EquipmentAccessRequest() {
         this.requestTime = LocalDateTime.now();
         this.currentHour = this.requestTime.getHour();
+        this.currentMinute = this.requestTime.getMinute();
         this.currentDayOfWeek = this.requestTime.getDayOfWeek().getValue();
     }
 
@@ -114,14 +160,23 @@ public class EquipmentAccessRequest {
         if (currentDayOfWeek == null || currentHour == null) {
             return false;
         }
+        int minute = currentMinute != null ? currentMinute : 0;
+        // Precomputed weekly bitmap: a single bit test regardless of how many slots were merged
+        if (allowedTimeBitmap != null) {
+            return allowedTimeBitmap.isAllowed(currentDayOfWeek, currentHour * 60 + minute);
+        }
         return allowedTimeSlots.stream()
-                .anyMatch(slot -> slot.isWithinTime(currentDayOfWeek, currentHour));
+                .anyMatch(slot -> slot.isWithinTime(currentDayOfWeek, currentHour, minute));
     }
 
     public boolean isCommandBlocked(String command) {
         if (command == null || command.isEmpty()) {
             return false;
         }
+        // Compiled matcher scans the command once for all blacklist and whitelist patterns
+        if (commandDictionary != null) {
+            return commandDictionary.isBlocked(command);
+        }
         // Check blacklist
         if (blacklistedCommands != null) {
             for (String blacklisted : blacklistedCommands) {
@@ -145,6 +200,10 @@ public class EquipmentAccessRequest {
         if (allowedIps == null || allowedIps.isEmpty()) {
             return false;
         }
+        // Compiled trie covers CIDR blocks and ranges as well as single addresses
+        if (allowedIpTrie != null) {
+            return allowedIpTrie.contains(ip);
+        }
         return allowedIps.contains(ip);
     }
 
@@ -245,6 +304,7 @@ public class EquipmentAccessRequest {
         this.requestTime = requestTime;
         if (requestTime != null) {
             this.currentHour = requestTime.getHour();
+            this.currentMinute = requestTime.getMinute();
             this.currentDayOfWeek = requestTime.getDayOfWeek().getValue();
         }
     }
@@ -265,6 +325,14 @@ public class EquipmentAccessRequest {
         this.currentHour = currentHour;
     }
 
+    public Integer getCurrentMinute() {
+        return currentMinute;
+    }
+
+    public void setCurrentMinute(Integer currentMinute) {
+        this.currentMinute = currentMinute;
+    }
+
     public Integer getCurrentDayOfWeek() {
         return currentDayOfWeek;
     }
@@ -329,6 +397,14 @@ public class EquipmentAccessRequest {
         this.blacklistedCommands = blacklistedCommands;
     }
 
+    public CommandDictionary getCommandDictionary() {
+        return commandDictionary;
+    }
+
+    public void setCommandDictionary(CommandDictionary commandDictionary) {
+        this.commandDictionary = commandDictionary;
+    }
+
     public Set<String> getWhitelistedCommands() {
         return whitelistedCommands;
     }
@@ -345,6 +421,14 @@ public class EquipmentAccessRequest {
         this.allowedTimeSlots = allowedTimeSlots;
     }
 
+    public WeeklyTimeBitmap getAllowedTimeBitmap() {
+        return allowedTimeBitmap;
+    }
+
+    public void setAllowedTimeBitmap(WeeklyTimeBitmap allowedTimeBitmap) {
+        this.allowedTimeBitmap = allowedTimeBitmap;
+    }
+
     public Set<String> getAllowedIps() {
         return allowedIps;
     }
@@ -353,6 +437,14 @@ public class EquipmentAccessRequest {
         this.allowedIps = allowedIps;
     }
 
+    public IpPrefixTrie getAllowedIpTrie() {
+        return allowedIpTrie;
+    }
+
+    public void setAllowedIpTrie(IpPrefixTrie allowedIpTrie) {
+        this.allowedIpTrie = allowedIpTrie;
+    }
+
     public String getIpFilteringType() {
         return ipFilteringType;
     }
@@ -0,0 +1,79 @@
+package com.hunesion.drool_v2.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * EquipmentContext - Immutable snapshot of the equipment side of a policy check
+ * Holds device attributes, account type codes and the equipment/account-type assigned policy ids
+ * so PolicyFactLoader does not have to reload them for every request
+ */
+public final class EquipmentContext {
+
+    private final Long equipmentId;
+    private final String deviceName;
+    private final String protocol;
+    private final Map<String, Object> attributes;
+    private final Set<String> accountTypeCodes;
+    private final Set<Long> equipmentPolicyIds;
+    private final Set<Long> accountTypePolicyIds;
+
+    public EquipmentContext(Long equipmentId,
+                            String deviceName,
+                            String protocol,
+                            Map<String, Object> attributes,
+                            Set<String> accountTypeCodes,
+                            Set<Long> equipmentPolicyIds,
+                            Set<Long> accountTypePolicyIds) {
+        this.equipmentId = equipmentId;
+        this.deviceName = deviceName;
+        this.protocol = protocol;
+        // HashMap copy: device attributes such as hostName may be null
+        this.attributes = Collections.unmodifiableMap(new HashMap<>(attributes));
+        this.accountTypeCodes = Collections.unmodifiableSet(new HashSet<>(accountTypeCodes));
+        this.equipmentPolicyIds = Collections.unmodifiableSet(new HashSet<>(equipmentPolicyIds));
+        this.accountTypePolicyIds = Collections.unmodifiableSet(new HashSet<>(accountTypePolicyIds));
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    public Set<String> getAccountTypeCodes() {
+        return accountTypeCodes;
+    }
+
+    public Set<Long> getEquipmentPolicyIds() {
+        return equipmentPolicyIds;
+    }
+
+    public Set<Long> getAccountTypePolicyIds() {
+        return accountTypePolicyIds;
+    }
+
+    @Override
+    public String toString() {
+        return "EquipmentContext{" +
+                "equipmentId=" + equipmentId +
+                ", deviceName='" + deviceName + '\'' +
+                ", accountTypeCodes=" + accountTypeCodes +
+                ", equipmentPolicyIds=" + equipmentPolicyIds +
+                ", accountTypePolicyIds=" + accountTypePolicyIds +
+                '}';
+    }
+}
@@ -0,0 +1,411 @@
+package com.hunesion.drool_v2.model;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * IpPrefixTrie - Compiled binary prefix trie over a loginControl IP allowlist
+ * Entries may be single addresses, CIDR blocks ("10.0.0.0/8", "2001:db8::/32") or ranges
+ * ("10.0.0.1-10.0.0.50"); ranges are split into the minimal set of CIDR blocks when compiled.
+ * IPv4 and IPv6 have separate roots, so a lookup walks at most 32 or 128 nodes. Addresses are
+ * parsed straight from the string into primitives, so a lookup allocates nothing.
+ * Entries that are not IP literals (host names, malformed values) are still matched exactly.
+ * IPv6 literals may end in a dotted IPv4 part ("::ffff:192.0.2.1"). An IPv4-mapped address
+ * (::ffff:0:0/96) and the plain IPv4 address match each other's entries, since dual-stack
+ * listeners report IPv4 clients in the mapped form.
+ */
+public final class IpPrefixTrie {
+
+    private static final int NONE = -1;
+    private static final int IPV4_ROOT = 0;
+    private static final int IPV6_ROOT = 1;
+    private static final long IPV4_MAPPED = 0xffff_0000_0000L;
+
+    // Children of node n are zero[n] / one[n]; a terminal node covers its whole subtree
+    private final int[] zero;
+    private final int[] one;
+    private final boolean[] terminal;
+    private final Set<String> literalEntries;
+    private final int entryCount;
+
+    public IpPrefixTrie(Collection<String> entries) {
+        Builder builder = new Builder();
+        Set<String> literals = new HashSet<>();
+        int count = 0;
+        for (String entry : entries) {
+            if (entry == null || entry.isBlank()) {
+                continue;
+            }
+            count++;
+            if (!builder.add(entry.trim())) {
+                literals.add(entry.trim());
+            }
+        }
+        this.zero = Arrays.copyOf(builder.zero, builder.size);
+        this.one = Arrays.copyOf(builder.one, builder.size);
+        this.terminal = Arrays.copyOf(builder.terminal, builder.size);
+        this.literalEntries = Collections.unmodifiableSet(literals);
+        this.entryCount = count;
+    }
+
+    /**
+     * Check whether the address is covered by any entry
+     */
+    public boolean contains(String ip) {
+        if (ip == null) {
+            return false;
+        }
+        int from = 0;
+        int to = ip.length();
+        while (from < to && ip.charAt(from) == ' ') {
+            from++;
+        }
+        while (to > from && ip.charAt(to - 1) == ' ') {
+            to--;
+        }
+        int zone = ip.indexOf('%', from);
+        if (zone >= 0 && zone < to) {
+            to = zone;
+        }
+
+        if (ip.indexOf(':', from) >= 0) {
+            int layout = ipv6Layout(ip, from, to);
+            if (layout >= 0) {
+                long high = ipv6Word(ip, from, to, layout, 0);
+                long low = ipv6Word(ip, from, to, layout, 1);
+                if (containsIpv6(high, low)) {
+                    return true;
+                }
+                if (high == 0 && (low >>> 32) == 0xffffL && containsIpv4(low & 0xffff_ffffL)) {
+                    return true;
+                }
+            }
+        } else {
+            long ipv4 = parseIpv4(ip, from, to);
+            if (ipv4 >= 0 && (containsIpv4(ipv4) || (hasIpv6Entries() && containsIpv6(0, IPV4_MAPPED | ipv4)))) {
+                return true;
+            }
+        }
+        return !literalEntries.isEmpty() && literalEntries.contains(ip);
+    }
+
+    private boolean hasIpv6Entries() {
+        return terminal[IPV6_ROOT] || zero[IPV6_ROOT] != NONE;
+    }
+
+    private boolean containsIpv4(long address) {
+        int node = IPV4_ROOT;
+        for (int bit = 31; bit >= 0; bit--) {
+            if (terminal[node]) {
+                return true;
+            }
+            node = ((address >>> bit) & 1) == 0 ? zero[node] : one[node];
+            if (node == NONE) {
+                return false;
+            }
+        }
+        return terminal[node];
+    }
+
+    private boolean containsIpv6(long high, long low) {
+        int node = IPV6_ROOT;
+        for (int bit = 0; bit < 128; bit++) {
+            if (terminal[node]) {
+                return true;
+            }
+            long word = bit < 64 ? high : low;
+            node = ((word >>> (63 - (bit & 63))) & 1) == 0 ? zero[node] : one[node];
+            if (node == NONE) {
+                return false;
+            }
+        }
+        return terminal[node];
+    }
+
+    /**
+     * Parse a dotted IPv4 address in [from, to)
+     *
+     * @return The address as an unsigned 32-bit value, or -1 if it is not a valid IPv4 literal
+     */
+    static long parseIpv4(String s, int from, int to) {
+        long address = 0;
+        int octets = 0;
+        int value = 0;
+        int digits = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (++digits > 3 || value > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && digits > 0 && octets < 3) {
+                address = (address << 8) | value;
+                octets++;
+                value = 0;
+                digits = 0;
+            } else {
+                return -1;
+            }
+        }
+        if (digits == 0 || octets != 3) {
+            return -1;
+        }
+        return (address << 8) | value;
+    }
+
+    /**
+     * Validate an IPv6 literal in [from, to) and count the groups before and after "::"
+     * A trailing dotted IPv4 part counts as two groups.
+     *
+     * @return head * 16 + tail group counts, or -1 if it is not a valid IPv6 literal
+     */
+    static int ipv6Layout(String s, int from, int to) {
+        int head = 0;
+        int tail = 0;
+        boolean compressed = false;
+        int digits = 0;
+        int i = from;
+        if (to - from >= 2 && s.charAt(from) == ':' && s.charAt(from + 1) == ':') {
+            compressed = true;
+            i = from + 2;
+            if (i == to) {
+                return 0;
+            }
+        }
+        for (; i < to; i++) {
+            char c = s.charAt(i);
+            if (Character.digit(c, 16) >= 0) {
+                if (++digits > 4) {
+                    return -1;
+                }
+                continue;
+            }
+            if (c == '.') {
+                // Embedded IPv4 in the last 32 bits
+                if (digits == 0 || parseIpv4(s, i - digits, to) < 0) {
+                    return -1;
+                }
+                if (compressed) {
+                    tail += 2;
+                } else {
+                    head += 2;
+                }
+                return groupLayout(head, tail, compressed);
+            }
+            if (c != ':' || digits == 0) {
+                return -1;
+            }
+            if (compressed) {
+                tail++;
+            } else {
+                head++;
+            }
+            digits = 0;
+            if (i + 1 < to && s.charAt(i + 1) == ':') {
+                if (compressed) {
+                    return -1;
+                }
+                compressed = true;
+                i++;
+                if (i + 1 == to) {
+                    // Trailing "::"
+                    return head + tail <= 7 ? head * 16 : -1;
+                }
+            }
+        }
+        if (digits == 0) {
+            return -1;
+        }
+        if (compressed) {
+            tail++;
+        } else {
+            head++;
+        }
+        return groupLayout(head, tail, compressed);
+    }
+
+    private static int groupLayout(int head, int tail, boolean compressed) {
+        if (compressed ? head + tail > 7 : head != 8) {
+            return -1;
+        }
+        return head * 16 + tail;
+    }
+
+    /**
+     * Read one 64-bit half of an IPv6 literal already validated by ipv6Layout
+     *
+     * @param word 0 for the high half, 1 for the low half
+     */
+    static long ipv6Word(String s, int from, int to, int layout, int word) {
+        int head = layout / 16;
+        int tail = layout % 16;
+        long result = 0;
+        int group = 0;
+        int value = 0;
+        int groupStart = from;
+        boolean inGroup = false;
+        for (int i = from; i <= to; i++) {
+            char c = i < to ? s.charAt(i) : ':';
+            if (c == '.') {
+                // Trailing dotted IPv4 part: the low 32 bits
+                return word == 1 ? result | parseIpv4(s, groupStart, to) : result;
+            }
+            if (c != ':') {
+                if (!inGroup) {
+                    groupStart = i;
+                }
+                value = (value << 4) | Character.digit(c, 16);
+                inGroup = true;
+                continue;
+            }
+            if (inGroup) {
+                // Groups after "::" are right-aligned
+                int position = group < head ? group : 8 - tail + (group - head);
+                if (position / 4 == word) {
+                    result |= ((long) value) << (16 * (3 - position % 4));
+                }
+                group++;
+                value = 0;
+                inGroup = false;
+            }
+        }
+        return result;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public int getNodeCount() {
+        return terminal.length;
+    }
+
+    @Override
+    public String toString() {
+        return "IpPrefixTrie{" +
+                "entries=" + entryCount +
+                ", nodes=" + terminal.length +
+                ", literals=" + literalEntries.size() +
+                '}';
+    }
+
+    /**
+     * Builder - Growable node arrays used while compiling
+     */
+    private static final class Builder {
+
+        private int[] zero = new int[64];
+        private int[] one = new int[64];
+        private boolean[] terminal = new boolean[64];
+        private int size;
+
+        private Builder() {
+            newNode(); // IPv4 root
+            newNode(); // IPv6 root
+        }
+
+        /**
+         * Add a single address, CIDR block or range
+         *
+         * @return false if the entry is not an IP literal
+         */
+        private boolean add(String entry) {
+            int dash = entry.indexOf('-');
+            if (dash > 0) {
+                BigInteger[] start = parse(entry.substring(0, dash).trim());
+                BigInteger[] end = parse(entry.substring(dash + 1).trim());
+                if (start == null || end == null || start[1].intValue() != end[1].intValue()
+                        || start[0].compareTo(end[0]) > 0) {
+                    return false;
+                }
+                addRange(start[0], end[0], start[1].intValue());
+                return true;
+            }
+
+            int slash = entry.indexOf('/');
+            String address = slash > 0 ? entry.substring(0, slash).trim() : entry;
+            BigInteger[] parsed = parse(address);
+            if (parsed == null) {
+                return false;
+            }
+            int width = parsed[1].intValue();
+            int prefixLength = width;
+            if (slash > 0) {
+                try {
+                    prefixLength = Integer.parseInt(entry.substring(slash + 1).trim());
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+                if (prefixLength < 0 || prefixLength > width) {
+                    return false;
+                }
+            }
+            addPrefix(parsed[0], prefixLength, width);
+            return true;
+        }
+
+        // Address value and width (32 or 128), or null
+        private BigInteger[] parse(String address) {
+            if (address.indexOf(':') >= 0) {
+                int layout = ipv6Layout(address, 0, address.length());
+                if (layout < 0) {
+                    return null;
+                }
+                BigInteger high = new BigInteger(Long.toUnsignedString(ipv6Word(address, 0, address.length(), layout, 0)));
+                BigInteger low = new BigInteger(Long.toUnsignedString(ipv6Word(address, 0, address.length(), layout, 1)));
+                return new BigInteger[]{high.shiftLeft(64).or(low), BigInteger.valueOf(128)};
+            }
+            long ipv4 = parseIpv4(address, 0, address.length());
+            return ipv4 < 0 ? null : new BigInteger[]{BigInteger.valueOf(ipv4), BigInteger.valueOf(32)};
+        }
+
+        // Split [start, end] into the largest aligned CIDR blocks
+        private void addRange(BigInteger start, BigInteger end, int width) {
+            while (start.compareTo(end) <= 0) {
+                int size = start.signum() == 0 ? width : Math.min(start.getLowestSetBit(), width);
+                while (size > 0 && start.add(BigInteger.ONE.shiftLeft(size)).subtract(BigInteger.ONE).compareTo(end) > 0) {
+                    size--;
+                }
+                addPrefix(start, width - size, width);
+                start = start.add(BigInteger.ONE.shiftLeft(size));
+            }
+        }
+
+        private void addPrefix(BigInteger address, int prefixLength, int width) {
+            int node = width == 32 ? IPV4_ROOT : IPV6_ROOT;
+            for (int i = 0; i < prefixLength; i++) {
+                if (terminal[node]) {
+                    return; // Already covered by a shorter prefix
+                }
+                boolean bit = address.testBit(width - 1 - i);
+                int next = bit ? one[node] : zero[node];
+                if (next == NONE) {
+                    next = newNode();
+                    if (bit) {
+                        one[node] = next;
+                    } else {
+                        zero[node] = next;
+                    }
+                }
+                node = next;
+            }
+            terminal[node] = true;
+            // Children of a covered node are unreachable
+            zero[node] = NONE;
+            one[node] = NONE;
+        }
+
+        private int newNode() {
+            if (size == terminal.length) {
+                zero = Arrays.copyOf(zero, size * 2);
+                one = Arrays.copyOf(one, size * 2);
+                terminal = Arrays.copyOf(terminal, size * 2);
+            }
+            zero[size] = NONE;
+            one[size] = NONE;
+            terminal[size] = false;
+            return size++;
+        }
+    }
+}
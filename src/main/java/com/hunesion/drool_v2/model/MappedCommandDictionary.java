@@ -0,0 +1,205 @@
+package com.hunesion.drool_v2.model;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MappedCommandDictionary - Read-only, memory-mapped Aho-Corasick automaton written by CommandMatcher.writeTo
+ * The automaton lives in the page cache instead of the Java heap and is shared by all threads.
+ * Lookups use absolute buffer reads only, so checking a command allocates nothing.
+ * Pattern strings are not kept, so the pattern set getters return empty sets.
+ *
+ * The mapping is reference counted: readers retain() it around a lookup and close() drops the
+ * owner's reference, so the buffer is unmapped as soon as the last in-flight lookup has finished
+ * instead of whenever the garbage collector gets to it.
+ */
+public final class MappedCommandDictionary implements CommandDictionary {
+
+    static final int MAGIC = 0x434D4441; // "CMDA"
+    static final int FORMAT_VERSION = 1;
+    static final int FLAG_HAS_WHITELIST = 1;
+
+    private static final byte BLACKLIST = 1;
+    private static final byte WHITELIST = 2;
+    private static final int HEADER_BYTES = 20;
+
+    private final Path file;
+    private final String versionKey;
+    private final MappedByteBuffer buffer;
+    private final int nodeCount;
+    private final boolean hasWhitelist;
+    private final int edgeStartOffset;
+    private final int edgeCharsOffset;
+    private final int edgeTargetsOffset;
+    private final int failureOffset;
+    private final int outputOffset;
+    // One for the owner plus one per in-flight lookup; zero once unmapped
+    private final AtomicInteger references = new AtomicInteger(1);
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private MappedCommandDictionary(Path file, String versionKey, MappedByteBuffer buffer) {
+        this.file = file;
+        this.versionKey = versionKey;
+        this.buffer = buffer;
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new RuntimeException("Not a command dictionary file: " + file);
+        }
+        this.nodeCount = buffer.getInt(8);
+        int edgeCount = buffer.getInt(12);
+        this.hasWhitelist = (buffer.getInt(16) & FLAG_HAS_WHITELIST) != 0;
+
+        this.edgeStartOffset = HEADER_BYTES;
+        this.edgeCharsOffset = edgeStartOffset + 4 * (nodeCount + 1);
+        this.edgeTargetsOffset = edgeCharsOffset + 2 * (edgeCount + (edgeCount % 2));
+        this.failureOffset = edgeTargetsOffset + 4 * edgeCount;
+        this.outputOffset = failureOffset + 4 * nodeCount;
+        if (outputOffset + nodeCount != buffer.capacity()) {
+            throw new RuntimeException("Truncated command dictionary file: " + file);
+        }
+    }
+
+    /**
+     * Map a dictionary file into memory
+     *
+     * @param file       File written by CommandMatcher.writeTo
+     * @param versionKey Command list versions the file was built from
+     */
+    public static MappedCommandDictionary open(Path file, String versionKey) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedCommandDictionary(file, versionKey, buffer);
+        }
+    }
+
+    private int transition(int node, char c) {
+        int low = buffer.getInt(edgeStartOffset + 4 * node);
+        int high = buffer.getInt(edgeStartOffset + 4 * (node + 1)) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = buffer.getChar(edgeCharsOffset + 2 * mid);
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return buffer.getInt(edgeTargetsOffset + 4 * mid);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean isBlocked(String command) {
+        if (command == null || command.isEmpty()) {
+            return false;
+        }
+        int found = buffer.get(outputOffset);
+        if ((found & BLACKLIST) != 0) {
+            return true;
+        }
+        int node = 0;
+        for (int i = 0; i < command.length(); i++) {
+            char c = command.charAt(i);
+            int next = transition(node, c);
+            while (next < 0 && node != 0) {
+                node = buffer.getInt(failureOffset + 4 * node);
+                next = transition(node, c);
+            }
+            node = next >= 0 ? next : 0;
+            found |= buffer.get(outputOffset + node);
+            if ((found & BLACKLIST) != 0) {
+                return true;
+            }
+        }
+        // Whitelist exists and command matched none of it
+        return hasWhitelist && (found & WHITELIST) == 0;
+    }
+
+    /**
+     * Pin the mapping for a lookup
+     *
+     * @return False if the dictionary was closed and must not be read
+     */
+    public boolean retain() {
+        while (true) {
+            int count = references.get();
+            // A lookup racing with close() may still pin it; the count keeps the buffer mapped
+            if (count == 0 || closed.get()) {
+                return false;
+            }
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release a lookup's pin, unmapping the buffer if the dictionary was closed meanwhile
+     */
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            unmap(buffer);
+        }
+    }
+
+    /**
+     * Drop the owner's reference; the buffer is unmapped once no lookup holds it
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            release();
+        }
+    }
+
+    // MappedByteBuffer has no public unmap; without the cleaner the mapping lives until it is collected
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Field field = sun.misc.Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            ((sun.misc.Unsafe) field.get(null)).invokeCleaner(buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.out.println("Command dictionary left to the garbage collector: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Set<String> getBlacklistedCommands() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<String> getWhitelistedCommands() {
+        return Collections.emptySet();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public String getVersionKey() {
+        return versionKey;
+    }
+
+    public int getStateCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedCommandDictionary{" +
+                "file=" + file +
+                ", states=" + nodeCount +
+                ", bytes=" + buffer.capacity() +
+                '}';
+    }
+}
@@ -0,0 +1,308 @@
+package com.hunesion.drool_v2.model;
+
+import com.hunesion.drool_v2.model.EquipmentAccessRequest.TimeSlot;
+
+import java.time.DateTimeException;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * PolicyConfig - Immutable, pre-parsed form of an equipment policy's JSONB config
+ * Built once per policy version by PolicyConfigCache, so the fact loader and rule generator read
+ * typed fields instead of casting map entries and parsing numbers, times and day names.
+ * Each section is null when the config does not contain it.
+ */
+public final class PolicyConfig {
+
+    public static final PolicyConfig EMPTY = new PolicyConfig(null, null, null, null, Collections.emptyList());
+
+    private final CommonSettings commonSettings;
+    private final AllowedTime allowedTime;
+    private final LoginControl loginControl;
+    private final CommandSettings commandSettings;
+    private final List<CustomCondition> customConditions;
+
+    private PolicyConfig(CommonSettings commonSettings,
+                         AllowedTime allowedTime,
+                         LoginControl loginControl,
+                         CommandSettings commandSettings,
+                         List<CustomCondition> customConditions) {
+        this.commonSettings = commonSettings;
+        this.allowedTime = allowedTime;
+        this.loginControl = loginControl;
+        this.commandSettings = commandSettings;
+        this.customConditions = customConditions;
+    }
+
+    /**
+     * Convert a parsed config map into typed sections
+     */
+    @SuppressWarnings("unchecked")
+    public static PolicyConfig from(Map<String, Object> config) {
+        if (config == null || config.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, Object> common = (Map<String, Object>) config.get("commonSettings");
+        Map<String, Object> time = (Map<String, Object>) config.get("allowedTime");
+        Map<String, Object> login = (Map<String, Object>) config.get("loginControl");
+        List<Map<String, Object>> commands = (List<Map<String, Object>>) config.get("commandSettings");
+        Map<String, Object> custom = (Map<String, Object>) config.get("customConditions");
+
+        List<CustomCondition> conditions = new ArrayList<>();
+        if (custom != null) {
+            for (Map.Entry<String, Object> entry : custom.entrySet()) {
+                Map<String, String> condition = (Map<String, String>) entry.getValue();
+                conditions.add(new CustomCondition(entry.getKey(), condition.get("operator"), condition.get("value")));
+            }
+        }
+
+        return new PolicyConfig(
+                common != null ? new CommonSettings(common) : null,
+                time != null ? new AllowedTime(time) : null,
+                login != null ? new LoginControl(login) : null,
+                commands != null ? new CommandSettings(commands) : null,
+                Collections.unmodifiableList(conditions));
+    }
+
+    public CommonSettings getCommonSettings() { return commonSettings; }
+    public AllowedTime getAllowedTime() { return allowedTime; }
+    public LoginControl getLoginControl() { return loginControl; }
+    public CommandSettings getCommandSettings() { return commandSettings; }
+    public List<CustomCondition> getCustomConditions() { return customConditions; }
+
+    /**
+     * CommonSettings - Allowed protocols/DBMS and per-protocol session limits
+     * Protocol and DBMS names stay strings: they are open-ended and matched case-insensitively by the rules.
+     */
+    public static final class CommonSettings {
+        private final Set<String> allowedProtocols;
+        private final Set<String> allowedDbms;
+        private final Integer maxSshSessions;
+        private final Integer maxRdpSessions;
+        private final Integer maxTelnetSessions;
+
+        @SuppressWarnings("unchecked")
+        private CommonSettings(Map<String, Object> settings) {
+            this.allowedProtocols = orderedSet((List<String>) settings.get("allowedProtocols"));
+            this.allowedDbms = orderedSet((List<String>) settings.get("allowedDbms"));
+            this.maxSshSessions = intOrNull(settings.get("maxSshSessions"));
+            this.maxRdpSessions = intOrNull(settings.get("maxRdpSessions"));
+            this.maxTelnetSessions = intOrNull(settings.get("maxTelnetSessions"));
+        }
+
+        public Set<String> getAllowedProtocols() { return allowedProtocols; }
+        public Set<String> getAllowedDbms() { return allowedDbms; }
+        public Integer getMaxSshSessions() { return maxSshSessions; }
+        public Integer getMaxRdpSessions() { return maxRdpSessions; }
+        public Integer getMaxTelnetSessions() { return maxTelnetSessions; }
+    }
+
+    /**
+     * AllowedTime - Time slots with their weekly bitmap, in the policy's own time zone
+     * The fact loader shifts the bitmap to the server zone when merging, using the offsets at that time.
+     */
+    public static final class AllowedTime {
+        private final Set<TimeSlot> timeSlots;
+        private final WeeklyTimeBitmap bitmap = new WeeklyTimeBitmap();
+        private final ZoneId timeZone; // Null = server zone
+
+        @SuppressWarnings("unchecked")
+        private AllowedTime(Map<String, Object> allowedTime) {
+            this.timeZone = zoneOrNull((String) allowedTime.get("timeZone"));
+            Set<TimeSlot> slots = new LinkedHashSet<>();
+            List<Map<String, Object>> timeSlots = (List<Map<String, Object>>) allowedTime.get("timeSlots");
+            if (timeSlots != null) {
+                for (Map<String, Object> ts : timeSlots) {
+                    addSlot(ts, slots);
+                }
+            }
+            this.timeSlots = Collections.unmodifiableSet(slots);
+        }
+
+        /**
+         * A slot may use startTime/endTime ("HH:mm", end exclusive) instead of hourStart/hourEnd for
+         * minute-level windows; such a window may run past midnight into the next day.
+         */
+        private void addSlot(Map<String, Object> ts, Set<TimeSlot> slots) {
+            Object dayOfWeekObj = ts.get("dayOfWeek");
+            Object hourStartObj = ts.get("hourStart");
+            Object hourEndObj = ts.get("hourEnd");
+            Object startTimeObj = ts.get("startTime");
+            Object endTimeObj = ts.get("endTime");
+            if (dayOfWeekObj == null) {
+                return;
+            }
+            Integer dayOfWeek = dayOfWeekObj instanceof Number
+                    ? Integer.valueOf(((Number) dayOfWeekObj).intValue())
+                    : convertDayNameToInteger(dayOfWeekObj.toString());
+            if (dayOfWeek == null) {
+                return;
+            }
+
+            if (startTimeObj != null && endTimeObj != null) {
+                int start = LocalTime.parse(startTimeObj.toString()).toSecondOfDay() / 60;
+                int end = Math.floorMod(LocalTime.parse(endTimeObj.toString()).toSecondOfDay() / 60 - 1,
+                        WeeklyTimeBitmap.MINUTES_PER_DAY);
+                slots.add(TimeSlot.ofMinutes(dayOfWeek, start, end));
+                bitmap.allow(dayOfWeek, start, end, 0);
+            } else if (hourStartObj != null && hourEndObj != null) {
+                int hourStart = hourStartObj instanceof Number
+                        ? ((Number) hourStartObj).intValue() : Integer.parseInt(hourStartObj.toString());
+                int hourEnd = hourEndObj instanceof Number
+                        ? ((Number) hourEndObj).intValue() : Integer.parseInt(hourEndObj.toString());
+                slots.add(new TimeSlot(dayOfWeek, hourStart, hourEnd));
+                // Hour slots never wrapped past midnight, so a reversed one still allows nothing
+                if (hourStart <= hourEnd) {
+                    bitmap.allow(dayOfWeek, hourStart * 60, hourEnd * 60 + 59, 0);
+                }
+            }
+        }
+
+        public Set<TimeSlot> getTimeSlots() { return timeSlots; }
+        public ZoneId getTimeZone() { return timeZone; }
+
+        /**
+         * Allowed minutes of the week in the policy's time zone (read-only)
+         */
+        public WeeklyTimeBitmap getBitmap() { return bitmap; }
+    }
+
+    /**
+     * LoginControl - IP filtering with the compiled allowlist, and account lock settings
+     */
+    public static final class LoginControl {
+        private final String ipFilteringType;
+        private final List<String> allowedIps;
+        private final IpPrefixTrie allowedIpTrie; // Null when there are no allowedIps
+        private final boolean accountLockEnabled;
+        private final int maxFailureAttempts;
+        private final int lockoutDurationMinutes;
+
+        @SuppressWarnings("unchecked")
+        private LoginControl(Map<String, Object> loginControl) {
+            this.ipFilteringType = (String) loginControl.get("ipFilteringType");
+            List<String> ips = (List<String>) loginControl.get("allowedIps");
+            this.allowedIps = ips != null ? List.copyOf(ips) : Collections.emptyList();
+            this.allowedIpTrie = allowedIps.isEmpty() ? null : new IpPrefixTrie(allowedIps);
+
+            Object maxFailures = loginControl.get("maxFailureAttempts");
+            Object lockoutMinutes = loginControl.get("lockoutDurationMinutes");
+            this.accountLockEnabled = Boolean.TRUE.equals(loginControl.get("accountLockEnabled"))
+                    && maxFailures instanceof Number && lockoutMinutes instanceof Number;
+            this.maxFailureAttempts = accountLockEnabled ? Math.max(1, ((Number) maxFailures).intValue()) : 0;
+            this.lockoutDurationMinutes = accountLockEnabled ? Math.max(1, ((Number) lockoutMinutes).intValue()) : 0;
+        }
+
+        public String getIpFilteringType() { return ipFilteringType; }
+        public List<String> getAllowedIps() { return allowedIps; }
+        public IpPrefixTrie getAllowedIpTrie() { return allowedIpTrie; }
+
+        /**
+         * True when the account lock is enabled and both its limits are set
+         */
+        public boolean isAccountLockEnabled() { return accountLockEnabled; }
+        public int getMaxFailureAttempts() { return maxFailureAttempts; }
+        public int getLockoutDurationMinutes() { return lockoutDurationMinutes; }
+
+        public boolean restrictsIps() {
+            return ipFilteringType != null && !"no_restrictions".equals(ipFilteringType);
+        }
+    }
+
+    /**
+     * CommandSettings - Referenced command list IDs; the lists themselves are compiled by CommandMatcherCache
+     */
+    public static final class CommandSettings {
+        private final Set<Long> commandListIds;
+        private final boolean blacklist;
+
+        @SuppressWarnings("unchecked")
+        private CommandSettings(List<Map<String, Object>> commandSettings) {
+            Set<Long> listIds = new LinkedHashSet<>();
+            boolean anyBlacklist = false;
+            for (Map<String, Object> cmdSetting : commandSettings) {
+                List<Number> ids = (List<Number>) cmdSetting.get("commandListIds");
+                if (ids != null) {
+                    ids.forEach(listId -> listIds.add(listId.longValue()));
+                }
+                if ("blacklist".equals(cmdSetting.get("controlMethod"))) {
+                    anyBlacklist = true;
+                }
+            }
+            this.commandListIds = Collections.unmodifiableSet(listIds);
+            this.blacklist = anyBlacklist;
+        }
+
+        public Set<Long> getCommandListIds() { return commandListIds; }
+
+        /**
+         * True when any setting uses the blacklist control method
+         */
+        public boolean isBlacklist() { return blacklist; }
+    }
+
+    /**
+     * CustomCondition - Attribute condition of customConditions (any policy type)
+     */
+    public static final class CustomCondition {
+        private final String attribute;
+        private final String operator;
+        private final String value;
+
+        private CustomCondition(String attribute, String operator, String value) {
+            this.attribute = attribute;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        public String getAttribute() { return attribute; }
+        public String getOperator() { return operator; }
+        public String getValue() { return value; }
+    }
+
+    private static Set<String> orderedSet(List<String> values) {
+        return values != null
+                ? Collections.unmodifiableSet(new LinkedHashSet<>(values))
+                : Collections.emptySet();
+    }
+
+    private static Integer intOrNull(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+
+    private static ZoneId zoneOrNull(String timeZone) {
+        if (timeZone == null || timeZone.isBlank()) {
+            return null;
+        }
+        try {
+            return ZoneId.of(timeZone);
+        } catch (DateTimeException e) {
+            System.out.println("Unknown allowedTime time zone '" + timeZone + "', using server zone");
+            return null;
+        }
+    }
+
+    /**
+     * Convert day name string to integer (1=Monday, 7=Sunday)
+     */
+    private static Integer convertDayNameToInteger(String dayName) {
+        return switch (dayName.toUpperCase()) {
+            case "MONDAY", "MON" -> 1;
+            case "TUESDAY", "TUE" -> 2;
+            case "WEDNESDAY", "WED" -> 3;
+            case "THURSDAY", "THU" -> 4;
+            case "FRIDAY", "FRI" -> 5;
+            case "SATURDAY", "SAT" -> 6;
+            case "SUNDAY", "SUN" -> 7;
+            default -> {
+                // Try to parse as integer
+                try {
+                    yield Integer.valueOf(dayName);
+                } catch (NumberFormatException e) {
+                    yield null;
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.hunesion.drool_v2.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PrincipalSnapshot - Immutable copy of the user data an API access check needs
+ * Cached by PrincipalSnapshotCache so the interceptor does not load the user, its roles,
+ * groups and attributes for every request
+ */
+public final class PrincipalSnapshot {
+
+    private final Long userId;
+    private final String username;
+    private final boolean active;
+    private final Set<String> roleNames;
+    private final Set<String> groupNames;
+    private final String department;
+    private final Integer level;
+    private final Map<String, String> attributes;
+
+    public PrincipalSnapshot(Long userId,
+                             String username,
+                             boolean active,
+                             Set<String> roleNames,
+                             Set<String> groupNames,
+                             String department,
+                             Integer level,
+                             Map<String, String> attributes) {
+        this.userId = userId;
+        this.username = username;
+        this.active = active;
+        this.roleNames = Collections.unmodifiableSet(new HashSet<>(roleNames));
+        this.groupNames = Collections.unmodifiableSet(new HashSet<>(groupNames));
+        this.department = department;
+        this.level = level;
+        this.attributes = attributes != null
+                ? Collections.unmodifiableMap(new HashMap<>(attributes))
+                : Collections.emptyMap();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public Set<String> getRoleNames() {
+        return roleNames;
+    }
+
+    public Set<String> getGroupNames() {
+        return groupNames;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public Integer getLevel() {
+        return level;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return "PrincipalSnapshot{" +
+                "username='" + username + '\'' +
+                ", active=" + active +
+                ", roles=" + roleNames +
+                ", groups=" + groupNames +
+                '}';
+    }
+}
@@ -0,0 +1,88 @@
+package com.hunesion.drool_v2.model;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * SubjectProfile - The user-dependent inputs of an equipment policy decision
+ * Generated rules only look at the assigned policy ids, the userTypeCode / workGroupNames
+ * attributes and the user's live session counts (maxSshSessions etc.), so users with equal
+ * profiles get the same decision on a given equipment. Login lockouts are not part of the
+ * profile; they are checked per user before the rules run.
+ */
+public final class SubjectProfile {
+
+    private final Set<Long> policyIds;
+    private final String userTypeCode;
+    private final Set<String> workGroupNames;
+    private final int sshSessions;
+    private final int rdpSessions;
+    private final int telnetSessions;
+
+    public SubjectProfile(Set<Long> policyIds, String userTypeCode, Set<String> workGroupNames) {
+        this(policyIds, userTypeCode, workGroupNames, 0, 0, 0);
+    }
+
+    public SubjectProfile(Set<Long> policyIds, String userTypeCode, Set<String> workGroupNames,
+                          int sshSessions, int rdpSessions, int telnetSessions) {
+        this.policyIds = Collections.unmodifiableSet(new HashSet<>(policyIds));
+        this.userTypeCode = userTypeCode;
+        this.workGroupNames = Collections.unmodifiableSet(new HashSet<>(workGroupNames));
+        this.sshSessions = sshSessions;
+        this.rdpSessions = rdpSessions;
+        this.telnetSessions = telnetSessions;
+    }
+
+    public Set<Long> getPolicyIds() {
+        return policyIds;
+    }
+
+    public String getUserTypeCode() {
+        return userTypeCode;
+    }
+
+    public Set<String> getWorkGroupNames() {
+        return workGroupNames;
+    }
+
+    public int getSshSessions() {
+        return sshSessions;
+    }
+
+    public int getRdpSessions() {
+        return rdpSessions;
+    }
+
+    public int getTelnetSessions() {
+        return telnetSessions;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SubjectProfile that)) return false;
+        return policyIds.equals(that.policyIds)
+                && Objects.equals(userTypeCode, that.userTypeCode)
+                && workGroupNames.equals(that.workGroupNames)
+                && sshSessions == that.sshSessions
+                && rdpSessions == that.rdpSessions
+                && telnetSessions == that.telnetSessions;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(policyIds, userTypeCode, workGroupNames, sshSessions, rdpSessions, telnetSessions);
+    }
+
+    @Override
+    public String toString() {
+        return "SubjectProfile{" +
+                "policyIds=" + policyIds +
+                ", userTypeCode='" + userTypeCode + '\'' +
+                ", workGroupNames=" + workGroupNames +
+                ", sessions=" + sshSessions + "/" + rdpSessions + "/" + telnetSessions +
+                '}';
+    }
+}
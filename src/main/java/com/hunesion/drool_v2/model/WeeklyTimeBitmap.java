@@ -0,0 +1,101 @@
+package com.hunesion.drool_v2.model;
+
+/**
+ * WeeklyTimeBitmap - Allowed access minutes of a week, one bit per minute (7 x 1440 bits)
+ * Built once when allowedTime policies are aggregated, with each policy's time zone already
+ * converted to the server zone, so checking a request is a single bit test.
+ * Minute of week 0 is Monday 00:00.
+ */
+public final class WeeklyTimeBitmap {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    private final long[] bits = new long[(MINUTES_PER_WEEK + 63) / 64];
+    private boolean empty = true;
+
+    /**
+     * Allow a window of one day
+     * A window whose end is before its start continues into the next day.
+     *
+     * @param dayOfWeek    1=Monday, 7=Sunday, in the policy's time zone
+     * @param startMinute  First allowed minute of the day (0-1439)
+     * @param endMinute    Last allowed minute of the day, inclusive (0-1439)
+     * @param shiftMinutes Minutes to add to convert the policy's zone to the server zone
+     */
+    public void allow(int dayOfWeek, int startMinute, int endMinute, int shiftMinutes) {
+        if (dayOfWeek < 1 || dayOfWeek > 7 || startMinute < 0 || endMinute < 0
+                || startMinute >= MINUTES_PER_DAY || endMinute >= MINUTES_PER_DAY) {
+            return;
+        }
+        int length = endMinute - startMinute + 1;
+        if (length <= 0) {
+            length += MINUTES_PER_DAY;
+        }
+        int start = Math.floorMod((dayOfWeek - 1) * MINUTES_PER_DAY + startMinute + shiftMinutes, MINUTES_PER_WEEK);
+        for (int i = 0; i < length; i++) {
+            int minute = (start + i) % MINUTES_PER_WEEK;
+            bits[minute >>> 6] |= 1L << (minute & 63);
+        }
+        empty = false;
+    }
+
+    /**
+     * Add the allowed minutes of another bitmap, rotated by a zone shift
+     *
+     * @param shiftMinutes Minutes to add to convert the other bitmap's zone to this one's
+     */
+    public void or(WeeklyTimeBitmap other, int shiftMinutes) {
+        if (other.empty) {
+            return;
+        }
+        int shift = Math.floorMod(shiftMinutes, MINUTES_PER_WEEK);
+        for (int w = 0; w < bits.length; w++) {
+            long word = other.bits[w];
+            if (shift == 0) {
+                bits[w] |= word;
+                continue;
+            }
+            while (word != 0) {
+                int minute = (w * 64 + Long.numberOfTrailingZeros(word) + shift) % MINUTES_PER_WEEK;
+                bits[minute >>> 6] |= 1L << (minute & 63);
+                word &= word - 1;
+            }
+        }
+        empty = false;
+    }
+
+    /**
+     * Check whether a minute is allowed
+     *
+     * @param dayOfWeek   1=Monday, 7=Sunday, in the server zone
+     * @param minuteOfDay 0-1439
+     */
+    public boolean isAllowed(int dayOfWeek, int minuteOfDay) {
+        if (dayOfWeek < 1 || dayOfWeek > 7 || minuteOfDay < 0 || minuteOfDay >= MINUTES_PER_DAY) {
+            return false;
+        }
+        int minute = (dayOfWeek - 1) * MINUTES_PER_DAY + minuteOfDay;
+        return (bits[minute >>> 6] & (1L << (minute & 63))) != 0;
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Number of allowed minutes in the week
+     */
+    public int getAllowedMinutes() {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "WeeklyTimeBitmap{allowedMinutes=" + getAllowedMinutes() + '}';
+    }
+}
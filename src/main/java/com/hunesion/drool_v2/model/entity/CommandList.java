@@ -7,6 +7,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "command_lists")
+@EntityListeners(CommandListChangeListener.class)
 public class CommandList {
 
     @Id
@@ -25,12 +26,28 @@ public class CommandList {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt; // Version of the list contents, bumped when the list or its items change
+
     @OneToMany(mappedBy = "commandList", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<CommandListItem> items = new HashSet<>();
 
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Mark the list contents as changed (called when one of its items changes)
+     */
+    public void touch() {
+        updatedAt = LocalDateTime.now();
     }
 
     public CommandList() {
@@ -77,6 +94,14 @@ public class CommandList {
         this.createdAt = createdAt;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     public Set<CommandListItem> getItems() {
         return items;
     }
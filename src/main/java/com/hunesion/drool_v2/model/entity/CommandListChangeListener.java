@@ -0,0 +1,74 @@
+package com.hunesion.drool_v2.model.entity;
+
+import com.hunesion.drool_v2.service.CommandListCache;
+import com.hunesion.drool_v2.service.CommandMatcherCache;
+import com.hunesion.drool_v2.service.InspectionSessionService;
+import com.hunesion.drool_v2.service.PolicyFactLoader;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * CommandListChangeListener - Invalidates cached command lists when a list or one of its items changes
+ * Instantiated by Hibernate through Spring's bean container, so the cache can be injected.
+ * Eviction runs after commit so a concurrent reader cannot re-cache the pre-change state.
+ */
+public class CommandListChangeListener {
+
+    private final CommandListCache commandListCache;
+    private final CommandMatcherCache commandMatcherCache;
+    private final InspectionSessionService inspectionSessionService;
+    private final PolicyFactLoader policyFactLoader;
+
+    @Autowired
+    public CommandListChangeListener(@Lazy CommandListCache commandListCache,
+                                     @Lazy CommandMatcherCache commandMatcherCache,
+                                     @Lazy InspectionSessionService inspectionSessionService,
+                                     @Lazy PolicyFactLoader policyFactLoader) {
+        this.commandListCache = commandListCache;
+        this.commandMatcherCache = commandMatcherCache;
+        this.inspectionSessionService = inspectionSessionService;
+        this.policyFactLoader = policyFactLoader;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Long listId = null;
+        if (entity instanceof CommandList commandList) {
+            listId = commandList.getId();
+        } else if (entity instanceof CommandListItem item && item.getCommandList() != null) {
+            listId = item.getCommandList().getId();
+        }
+        if (listId == null) {
+            return;
+        }
+
+        Long changedListId = listId;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(changedListId);
+                }
+            });
+        } else {
+            evict(changedListId);
+        }
+    }
+
+    private void evict(Long listId) {
+        commandListCache.evictList(listId);
+        // Matchers are keyed by list version; dropping them also covers item changes that did not bump it
+        commandMatcherCache.evictAll();
+        // Open inspection sessions hold their own dictionaries
+        inspectionSessionService.invalidateAll();
+        // Subject class aggregations hold the compiled dictionaries too
+        policyFactLoader.evictSubjectClasses();
+    }
+}
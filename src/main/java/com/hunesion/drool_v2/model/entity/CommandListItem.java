@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "command_list_items")
+@EntityListeners(CommandListChangeListener.class)
 public class CommandListItem {
 
     @Id
@@ -24,6 +25,16 @@ public class CommandListItem {
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        touchList();
+    }
+
+    @PreUpdate
+    @PreRemove
+    protected void touchList() {
+        // Item changes bump the parent list version so compiled matchers are rebuilt
+        if (commandList != null) {
+            commandList.touch();
+        }
     }
 
     public CommandListItem() {
@@ -113,6 +113,8 @@ public class EquipmentPolicy {
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        // Typed configs are cached per (id, versionNo)
+        versionNo = versionNo == null ? 1 : versionNo + 1;
     }
 
     public EquipmentPolicy() {
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +22,7 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     List<Account> findByEquipmentIdAndAccountTypeCode(@Param("equipmentId") Long equipmentId, @Param("typeCode") String typeCode);
     
     boolean existsByAccountNameAndEquipmentId(String accountName, Long equipmentId);
+
+    @Query("SELECT a FROM Account a WHERE a.equipment.id IN :equipmentIds AND a.active = true")
+    List<Account> findActiveByEquipmentIds(@Param("equipmentIds") Collection<Long> equipmentIds);
 }
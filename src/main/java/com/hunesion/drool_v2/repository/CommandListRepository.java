@@ -2,12 +2,20 @@ package com.hunesion.drool_v2.repository;
 
 import com.hunesion.drool_v2.model.entity.CommandList;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CommandListRepository extends JpaRepository<CommandList, Long> {
     Optional<CommandList> findByListNameAndListTypeAndProtocolType(
             String listName, String listType, String protocolType);
-}
\ No newline at end of file
+
+    // Load lists together with their items in one query (avoids one lazy load per list)
+    @Query("SELECT DISTINCT cl FROM CommandList cl LEFT JOIN FETCH cl.items WHERE cl.id IN :ids")
+    List<CommandList> findAllWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+}
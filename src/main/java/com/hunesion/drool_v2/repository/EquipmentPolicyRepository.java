@@ -6,11 +6,59 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface EquipmentPolicyRepository extends JpaRepository<EquipmentPolicy, Long> {
+
+    // Enabled policies reaching a user through direct, user-group, role and user-type assignments
+    String DIRECT_SUBJECT_POLICY_IDS_SQL =
+            "SELECT pua.policy_id FROM policy_user_assignments pua " +
+            "JOIN equipment_policies ep ON ep.id = pua.policy_id AND ep.enabled = true " +
+            "WHERE pua.user_id = :userId " +
+            "UNION " +
+            "SELECT puga.policy_id FROM policy_user_group_assignments puga " +
+            "JOIN user_group_members ugm ON ugm.group_id = puga.group_id " +
+            "JOIN equipment_policies ep ON ep.id = puga.policy_id AND ep.enabled = true " +
+            "WHERE ugm.user_id = :userId " +
+            "UNION " +
+            "SELECT pra.policy_id FROM policy_role_assignments pra " +
+            "JOIN user_roles ur ON ur.role_id = pra.role_id " +
+            "JOIN equipment_policies ep ON ep.id = pra.policy_id AND ep.enabled = true " +
+            "WHERE ur.user_id = :userId " +
+            "UNION " +
+            "SELECT puta.policy_id FROM policy_user_type_assignments puta " +
+            "JOIN users u ON u.user_type_id = puta.user_type_id " +
+            "JOIN equipment_policies ep ON ep.id = puta.policy_id AND ep.enabled = true " +
+            "WHERE u.id = :userId";
+
+    // Policy groups assigned to a user, their user groups or roles (enabled or not)
+    String ASSIGNED_POLICY_GROUP_IDS_SQL =
+            "SELECT pgua.policy_group_id FROM policy_group_user_assignments pgua WHERE pgua.user_id = :userId " +
+            "UNION " +
+            "SELECT pguga.policy_group_id FROM policy_group_user_group_assignments pguga " +
+            "JOIN user_group_members ugm ON ugm.group_id = pguga.user_group_id WHERE ugm.user_id = :userId " +
+            "UNION " +
+            "SELECT pgra.policy_group_id FROM policy_group_role_assignments pgra " +
+            "JOIN user_roles ur ON ur.role_id = pgra.role_id WHERE ur.user_id = :userId";
+
+    // All subject-side policies: the direct ones plus the enabled members of the enabled policy groups
+    // assigned to the user, their user groups or roles
+    String SUBJECT_POLICY_IDS_SQL = DIRECT_SUBJECT_POLICY_IDS_SQL + " " +
+            "UNION " +
+            "SELECT pgm.policy_id FROM policy_group_members pgm " +
+            "JOIN policy_groups pg ON pg.id = pgm.policy_group_id AND pg.enabled = true " +
+            "JOIN equipment_policies ep ON ep.id = pgm.policy_id AND ep.enabled = true " +
+            "WHERE pgm.policy_group_id IN (" + ASSIGNED_POLICY_GROUP_IDS_SQL + ")";
+
+    // The same assignments without the member join, as (kind, id) rows in one statement:
+    // kind 0 is a direct policy id, kind 1 an assigned policy group id to expand in memory
+    String SUBJECT_ASSIGNMENT_ROWS_SQL =
+            "SELECT 0 AS kind, d.policy_id AS id FROM (" + DIRECT_SUBJECT_POLICY_IDS_SQL + ") d " +
+            "UNION ALL " +
+            "SELECT 1 AS kind, g.policy_group_id AS id FROM (" + ASSIGNED_POLICY_GROUP_IDS_SQL + ") g";
     Optional<EquipmentPolicy> findByPolicyName(String policyName);
     List<EquipmentPolicy> findByEnabledTrueOrderByPriorityDesc();
     boolean existsByPolicyName(String policyName);
@@ -46,4 +94,80 @@ public interface EquipmentPolicyRepository extends JpaRepository<EquipmentPolicy
     @Query("SELECT DISTINCT ep FROM EquipmentPolicy ep " +
             "JOIN ep.accountTypeAssignments ata WHERE ata.accountType.typeCode = :typeCode AND ep.enabled = true")
     List<EquipmentPolicy> findAssignedToAccountTypeCode(@Param("typeCode") String typeCode);
-}
\ No newline at end of file
+
+    @Query(value = SUBJECT_POLICY_IDS_SQL, nativeQuery = true)
+    List<Long> findSubjectPolicyIds(@Param("userId") Long userId);
+
+    @Query(value = SUBJECT_ASSIGNMENT_ROWS_SQL, nativeQuery = true)
+    List<Object[]> findSubjectAssignmentRows(@Param("userId") Long userId);
+
+    /**
+     * Resolve every assigned policy id for a (user, equipment) pair in one SQL statement.
+     * Equipment-assigned policies only count when the user has at least one subject-side policy,
+     * account-type policies come from the active accounts on the equipment, and work-group
+     * policies require both the user and the equipment to be members of an enabled work group.
+     */
+    @Query(value = "WITH subject_policies AS (" + SUBJECT_POLICY_IDS_SQL + ") " +
+            "SELECT sp.policy_id FROM subject_policies sp " +
+            "UNION " +
+            "SELECT pea.policy_id FROM policy_equipment_assignments pea " +
+            "JOIN equipment_policies ep ON ep.id = pea.policy_id AND ep.enabled = true " +
+            "WHERE pea.equipment_id = :equipmentId AND EXISTS (SELECT 1 FROM subject_policies) " +
+            "UNION " +
+            "SELECT pata.policy_id FROM policy_account_type_assignments pata " +
+            "JOIN accounts a ON a.account_type_id = pata.account_type_id AND a.is_active = true " +
+            "JOIN equipment_policies ep ON ep.id = pata.policy_id AND ep.enabled = true " +
+            "WHERE a.equipment_id = :equipmentId " +
+            "UNION " +
+            "SELECT wgp.policy_id FROM work_group_policies wgp " +
+            "JOIN work_groups wg ON wg.id = wgp.work_group_id AND wg.enabled = true " +
+            "JOIN work_group_users wgu ON wgu.work_group_id = wg.id " +
+            "JOIN work_group_equipment wge ON wge.work_group_id = wg.id " +
+            "JOIN equipment_policies ep ON ep.id = wgp.policy_id AND ep.enabled = true " +
+            "WHERE wgu.user_id = :userId AND wge.equipment_id = :equipmentId",
+            nativeQuery = true)
+    List<Long> findAssignedPolicyIds(@Param("userId") Long userId, @Param("equipmentId") Long equipmentId);
+
+    // (equipment_id, policy_id) rows for enabled policies assigned to any of the given equipment
+    @Query(value = "SELECT pea.equipment_id, pea.policy_id FROM policy_equipment_assignments pea " +
+            "JOIN equipment_policies ep ON ep.id = pea.policy_id AND ep.enabled = true " +
+            "WHERE pea.equipment_id IN (:equipmentIds)", nativeQuery = true)
+    List<Object[]> findEquipmentAssignmentRows(@Param("equipmentIds") Collection<Long> equipmentIds);
+
+    // (account_type_id, policy_id) rows for enabled policies assigned to any of the given account types
+    @Query(value = "SELECT pata.account_type_id, pata.policy_id FROM policy_account_type_assignments pata " +
+            "JOIN equipment_policies ep ON ep.id = pata.policy_id AND ep.enabled = true " +
+            "WHERE pata.account_type_id IN (:accountTypeIds)", nativeQuery = true)
+    List<Object[]> findAccountTypeAssignmentRows(@Param("accountTypeIds") Collection<Long> accountTypeIds);
+
+    // (user_id, policy_id) rows for every user's subject-side policies, same rules as SUBJECT_POLICY_IDS_SQL
+    @Query(value = "SELECT pua.user_id, pua.policy_id FROM policy_user_assignments pua " +
+            "JOIN equipment_policies ep ON ep.id = pua.policy_id AND ep.enabled = true " +
+            "UNION " +
+            "SELECT ugm.user_id, puga.policy_id FROM policy_user_group_assignments puga " +
+            "JOIN user_group_members ugm ON ugm.group_id = puga.group_id " +
+            "JOIN equipment_policies ep ON ep.id = puga.policy_id AND ep.enabled = true " +
+            "UNION " +
+            "SELECT ur.user_id, pra.policy_id FROM policy_role_assignments pra " +
+            "JOIN user_roles ur ON ur.role_id = pra.role_id " +
+            "JOIN equipment_policies ep ON ep.id = pra.policy_id AND ep.enabled = true " +
+            "UNION " +
+            "SELECT u.id, puta.policy_id FROM policy_user_type_assignments puta " +
+            "JOIN users u ON u.user_type_id = puta.user_type_id " +
+            "JOIN equipment_policies ep ON ep.id = puta.policy_id AND ep.enabled = true " +
+            "UNION " +
+            "SELECT pgu.user_id, pgm.policy_id FROM policy_group_members pgm " +
+            "JOIN policy_groups pg ON pg.id = pgm.policy_group_id AND pg.enabled = true " +
+            "JOIN equipment_policies ep ON ep.id = pgm.policy_id AND ep.enabled = true " +
+            "JOIN (" +
+            "    SELECT pgua.policy_group_id, pgua.user_id FROM policy_group_user_assignments pgua " +
+            "    UNION " +
+            "    SELECT pguga.policy_group_id, ugm.user_id FROM policy_group_user_group_assignments pguga " +
+            "    JOIN user_group_members ugm ON ugm.group_id = pguga.user_group_id " +
+            "    UNION " +
+            "    SELECT pgra.policy_group_id, ur.user_id FROM policy_group_role_assignments pgra " +
+            "    JOIN user_roles ur ON ur.role_id = pgra.role_id" +
+            ") pgu ON pgu.policy_group_id = pgm.policy_group_id",
+            nativeQuery = true)
+    List<Object[]> findSubjectPolicyRowsForAllUsers();
+}
@@ -1,6 +1,7 @@
 package com.hunesion.drool_v2.repository;
 
 import com.hunesion.drool_v2.model.entity.Equipment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -24,6 +25,9 @@ public interface EquipmentRepository extends JpaRepository<Equipment, Long> {
     
     // Check if device name exists (non-deleted)
     boolean existsByDeviceNameAndIsDeletedFalse(String deviceName);
+
+    // Check if equipment exists (non-deleted)
+    boolean existsByIdAndIsDeletedFalse(Long id);
     
     // Soft delete - mark as deleted
     @Modifying
@@ -32,4 +36,12 @@ public interface EquipmentRepository extends JpaRepository<Equipment, Long> {
     
     // Find by device type (non-deleted)
     List<Equipment> findByDeviceTypeAndIsDeletedFalse(String deviceType);
+
+    // Keyset page of non-deleted equipment ids after the given id (cursor paging)
+    @Query("SELECT e.id FROM Equipment e WHERE e.isDeleted = false AND e.id > :afterId ORDER BY e.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // All non-deleted equipment ids; used to build the known-equipment Bloom filter
+    @Query("SELECT e.id FROM Equipment e WHERE e.isDeleted = false")
+    List<Long> findActiveIds();
 }
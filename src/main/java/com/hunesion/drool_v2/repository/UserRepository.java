@@ -2,12 +2,23 @@ package com.hunesion.drool_v2.repository;
 
 import com.hunesion.drool_v2.model.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    // (id, username, user type code or null) for every user; used by the reverse authorization query
+    @Query(value = "SELECT u.id, u.username, ut.type_code FROM users u " +
+            "LEFT JOIN user_types ut ON ut.id = u.user_type_id", nativeQuery = true)
+    List<Object[]> findUserTypeRows();
+
+    // All usernames; used to build the known-username Bloom filter
+    @Query("SELECT u.username FROM User u")
+    List<String> findAllUsernames();
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,4 +37,29 @@ public interface WorkGroupRepository extends JpaRepository<WorkGroup, Long> {
     // Find work groups that contain a specific account
     @Query("SELECT DISTINCT wg FROM WorkGroup wg JOIN wg.accounts a WHERE a.id = :accountId AND wg.enabled = true")
     List<WorkGroup> findByAccountId(@Param("accountId") Long accountId);
+
+    // Membership rows (equipment_id, work_group_name, enabled policy_id or null) for the enabled work groups
+    // that contain the user and any of the given equipment; used by batch checks
+    @Query(value = "SELECT wge.equipment_id, wg.work_group_name, ep.id " +
+           "FROM work_groups wg " +
+           "JOIN work_group_users wgu ON wgu.work_group_id = wg.id " +
+           "JOIN work_group_equipment wge ON wge.work_group_id = wg.id " +
+           "LEFT JOIN work_group_policies wgp ON wgp.work_group_id = wg.id " +
+           "LEFT JOIN equipment_policies ep ON ep.id = wgp.policy_id AND ep.enabled = true " +
+           "WHERE wg.enabled = true AND wgu.user_id = :userId AND wge.equipment_id IN (:equipmentIds)",
+           nativeQuery = true)
+    List<Object[]> findMembershipRowsForUser(@Param("userId") Long userId,
+                                             @Param("equipmentIds") Collection<Long> equipmentIds);
+
+    // Membership rows (user_id, work_group_name, enabled policy_id or null) for the enabled work groups
+    // that contain the equipment; used by the reverse authorization query
+    @Query(value = "SELECT wgu.user_id, wg.work_group_name, ep.id " +
+           "FROM work_groups wg " +
+           "JOIN work_group_users wgu ON wgu.work_group_id = wg.id " +
+           "JOIN work_group_equipment wge ON wge.work_group_id = wg.id " +
+           "LEFT JOIN work_group_policies wgp ON wgp.work_group_id = wg.id " +
+           "LEFT JOIN equipment_policies ep ON ep.id = wgp.policy_id AND ep.enabled = true " +
+           "WHERE wg.enabled = true AND wge.equipment_id = :equipmentId",
+           nativeQuery = true)
+    List<Object[]> findMembershipRowsForEquipment(@Param("equipmentId") Long equipmentId);
 }
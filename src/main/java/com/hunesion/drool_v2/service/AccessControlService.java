@@ -1,13 +1,17 @@
 package com.hunesion.drool_v2.service;
 
-import com.hunesion.drool_v2.model.entity.User;
+import com.hunesion.drool_v2.dto.AccessCheckBatchRequestDTO;
 import com.hunesion.drool_v2.model.AccessRequest;
 import com.hunesion.drool_v2.model.AccessResult;
-import com.hunesion.drool_v2.repository.UserRepository;
+import com.hunesion.drool_v2.model.PrincipalSnapshot;
 import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * AccessControlService - Evaluates access requests against policies using Drools
@@ -16,22 +20,21 @@ import org.springframework.transaction.annotation.Transactional;
 public class AccessControlService {
 
     private final DynamicRuleService dynamicRuleService;
-    private final UserRepository userRepository;
+    private final PrincipalSnapshotCache principalSnapshotCache;
 
     @Autowired
     public AccessControlService(DynamicRuleService dynamicRuleService,
-                                UserRepository userRepository) {
+                                PrincipalSnapshotCache principalSnapshotCache) {
         this.dynamicRuleService = dynamicRuleService;
-        this.userRepository = userRepository;
+        this.principalSnapshotCache = principalSnapshotCache;
     }
 
     /**
      * Check if a user has access to a specific endpoint
+     * The user comes from the principal snapshot cache, so a cached user needs no database access.
      */
-    @Transactional(readOnly = true)
     public AccessResult checkAccess(String username, String endpoint, String httpMethod) {
-        User user = userRepository.findByUsername(username)
-                .orElse(null);
+        PrincipalSnapshot user = principalSnapshotCache.getSnapshot(username);
 
         if (user == null) {
             AccessResult result = new AccessResult();
@@ -46,22 +49,86 @@ public class AccessControlService {
         }
 
         // Build access request from user data
+        AccessRequest request = buildRequest(user);
+        request.setEndpoint(endpoint);
+        request.setHttpMethod(httpMethod);
+
+        return evaluateAccess(request);
+    }
+
+    /**
+     * Check a list of (endpoint, method) pairs for one user, e.g. to decide which menu items to show
+     * The user is loaded and the AccessRequest built once; each pair is then evaluated in the same
+     * KieSession by updating the endpoint and method between firings.
+     *
+     * @return Results keyed by "METHOD endpoint", in request order
+     */
+    public Map<String, AccessResult> checkAccessBatch(String username, List<AccessCheckBatchRequestDTO.EndpointDTO> endpoints) {
+        Map<String, AccessResult> results = new LinkedHashMap<>();
+        PrincipalSnapshot user = principalSnapshotCache.getSnapshot(username);
+
+        if (user == null || !user.isActive()) {
+            for (AccessCheckBatchRequestDTO.EndpointDTO item : endpoints) {
+                AccessResult result = new AccessResult();
+                if (user == null) {
+                    result.deny("User Not Found", "User does not exist: " + username);
+                } else {
+                    result.deny("User Inactive", "User account is disabled");
+                }
+                results.put(permissionKey(item), result);
+            }
+            return results;
+        }
+
+        AccessRequest request = buildRequest(user);
+        KieSession kieSession = dynamicRuleService.newKieSession();
+        try {
+            for (AccessCheckBatchRequestDTO.EndpointDTO item : endpoints) {
+                request.setEndpoint(item.getEndpoint());
+                request.setHttpMethod(item.getMethod());
+                AccessResult result = new AccessResult();
+
+                // Rules only match an unevaluated result, so each pair is inserted, fired
+                // and retracted before the next one enters the session
+                FactHandle requestHandle = kieSession.insert(request);
+                FactHandle resultHandle = kieSession.insert(result);
+                kieSession.fireAllRules();
+                kieSession.delete(requestHandle);
+                kieSession.delete(resultHandle);
+
+                // If no rules matched, deny by default
+                if (!result.isEvaluated()) {
+                    result.deny("No Policy Match", "No access policy found for this endpoint");
+                }
+                results.put(permissionKey(item), result);
+            }
+        } finally {
+            kieSession.dispose();
+        }
+
+        System.out.println("Access control batch evaluated: " + endpoints.size() + " endpoints for " + username);
+        return results;
+    }
+
+    /**
+     * Build an access request carrying the user's roles, groups and attributes
+     */
+    private AccessRequest buildRequest(PrincipalSnapshot user) {
         AccessRequest request = new AccessRequest();
-        request.setUsername(username);
+        request.setUsername(user.getUsername());
+        // Role and group sets are immutable and shared with the snapshot
         request.setUserRoles(user.getRoleNames());
-        // In checkAccess method, after line 49, add:
         request.setUserGroups(user.getGroupNames());
-        request.setEndpoint(endpoint);
-        request.setHttpMethod(httpMethod);
         request.setDepartment(user.getDepartment());
         request.setUserLevel(user.getLevel());
-        
+
         // Copy user attributes
-        if (user.getAttributes() != null) {
-            user.getAttributes().forEach((k, v) -> request.setAttribute(k, v));
-        }
+        user.getAttributes().forEach((k, v) -> request.setAttribute(k, v));
+        return request;
+    }
 
-        return evaluateAccess(request);
+    private String permissionKey(AccessCheckBatchRequestDTO.EndpointDTO item) {
+        return item.getMethod() + " " + item.getEndpoint();
     }
 
     /**
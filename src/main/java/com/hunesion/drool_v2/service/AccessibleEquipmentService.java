@@ -0,0 +1,231 @@
+package com.hunesion.drool_v2.service;
+
+import com.hunesion.drool_v2.dto.AccessibleEquipmentPageDTO;
+import com.hunesion.drool_v2.model.EquipmentAccessRequest;
+import com.hunesion.drool_v2.model.EquipmentAccessResult;
+import com.hunesion.drool_v2.model.PrincipalSnapshot;
+import com.hunesion.drool_v2.repository.EquipmentRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AccessibleEquipmentService - Computes which equipment a user can reach
+ * Candidate equipment is scanned in id order (keyset cursor), facts are built in bulk for each
+ * scan window with the user side resolved once, and the window is evaluated in parallel
+ * partitions, each in its own KieSession, on a dedicated bounded pool (not the common ForkJoinPool). A page is returned as soon as it is full, so the
+ * first page of a user with thousands of reachable hosts does not wait for the rest.
+ * When the authorization graph is current, each window is first intersected with the equipment on
+ * which the user has any assigned policy, so hosts that can only be denied are never evaluated.
+ */
+@Service
+public class AccessibleEquipmentService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int SCAN_WINDOW = 500;
+    private static final int EVALUATION_PARTITION = 100;
+
+    private final EquipmentRepository equipmentRepository;
+    private final PolicyFactLoader factLoader;
+    private final EquipmentAccessControlService accessControlService;
+    private final PrincipalSnapshotCache principalSnapshotCache;
+    private final AuthorizationGraph authorizationGraph;
+    // Partitions queued beyond the pool's capacity run on the request thread instead
+    private final ThreadPoolExecutor evaluationExecutor;
+
+    @Autowired
+    public AccessibleEquipmentService(
+            EquipmentRepository equipmentRepository,
+            PolicyFactLoader factLoader,
+            EquipmentAccessControlService accessControlService,
+            PrincipalSnapshotCache principalSnapshotCache,
+            AuthorizationGraph authorizationGraph,
+            @Value("${policy.accessible-equipment.evaluation-threads:0}") int evaluationThreads,
+            @Value("${policy.accessible-equipment.evaluation-queue:64}") int evaluationQueue) {
+        this.equipmentRepository = equipmentRepository;
+        this.factLoader = factLoader;
+        this.accessControlService = accessControlService;
+        this.principalSnapshotCache = principalSnapshotCache;
+        this.authorizationGraph = authorizationGraph;
+
+        int threads = evaluationThreads > 0 ? evaluationThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.evaluationExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, evaluationQueue)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "equipment-evaluation-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.evaluationExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get one page of equipment the user is allowed to access
+     *
+     * @param username The user
+     * @param protocol Protocol to evaluate with, or null to use each equipment's own protocol
+     * @param clientIp Client IP for login control policies (optional)
+     * @param afterId  Cursor from the previous page, or null for the first page
+     * @param limit    Page size (capped at 500)
+     */
+    public AccessibleEquipmentPageDTO findAccessibleEquipment(String username, String protocol, String clientIp,
+                                                              Long afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LocalDateTime requestTime = LocalDateTime.now();
+
+        AccessibleEquipmentPageDTO page = new AccessibleEquipmentPageDTO();
+        page.setUsername(username);
+
+        long cursor = afterId != null ? afterId : 0L;
+        boolean exhausted = false;
+        int scanned = 0;
+        // Null when every equipment has to be evaluated
+        Set<Long> policyEquipmentIds = findPolicyEquipmentIds(username);
+
+        while (page.getEquipment().size() < pageSize) {
+            List<Long> windowIds = equipmentRepository.findIdsAfter(cursor, PageRequest.of(0, SCAN_WINDOW));
+            if (windowIds.isEmpty()) {
+                exhausted = true;
+                break;
+            }
+            long windowEnd = windowIds.get(windowIds.size() - 1);
+
+            List<Long> candidateIds = windowIds;
+            if (policyEquipmentIds != null) {
+                candidateIds = windowIds.stream().filter(policyEquipmentIds::contains).toList();
+                if (candidateIds.isEmpty()) {
+                    cursor = windowEnd;
+                    scanned += windowIds.size();
+                    if (windowIds.size() < SCAN_WINDOW) {
+                        exhausted = true;
+                        break;
+                    }
+                    continue;
+                }
+            }
+
+            List<EquipmentAccessRequest> facts = factLoader.loadPoliciesIntoFacts(
+                    Collections.nCopies(candidateIds.size(), username), candidateIds);
+            if (facts.get(0) == null) {
+                throw new RuntimeException("User not found: " + username);
+            }
+            for (EquipmentAccessRequest fact : facts) {
+                if (protocol != null) {
+                    fact.setProtocol(protocol);
+                }
+                fact.setClientIp(clientIp);
+                fact.setRequestTime(requestTime);
+            }
+
+            List<EquipmentAccessResult> results = evaluateInParallel(facts);
+            boolean pageFull = false;
+            for (int i = 0; i < facts.size(); i++) {
+                cursor = candidateIds.get(i);
+                if (results.get(i).isAllowed()) {
+                    page.getEquipment().add(toItem(facts.get(i), results.get(i)));
+                    if (page.getEquipment().size() == pageSize) {
+                        pageFull = true;
+                        break;
+                    }
+                }
+            }
+            // Pruned ids after the last candidate are covered too unless the page filled up first
+            if (!pageFull) {
+                cursor = windowEnd;
+            }
+            scanned += windowIds.indexOf(cursor) + 1;
+
+            if (windowIds.size() < SCAN_WINDOW && cursor == windowEnd) {
+                exhausted = true;
+                break;
+            }
+        }
+
+        page.setNextCursor(exhausted ? null : cursor);
+        page.setHasMore(!exhausted);
+        page.setScanned(scanned);
+        System.out.println("Accessible equipment for " + username + ": " + page.getEquipment().size()
+                + " allowed of " + scanned + " scanned, next cursor " + page.getNextCursor());
+        return page;
+    }
+
+    /**
+     * Equipment on which the user has any assigned policy, from the authorization graph
+     *
+     * @return The equipment ids, or null if the graph is not current or every equipment qualifies
+     */
+    private Set<Long> findPolicyEquipmentIds(String username) {
+        AuthorizationGraph.Snapshot graph = authorizationGraph.current();
+        if (graph == null) {
+            return null;
+        }
+        PrincipalSnapshot principal = principalSnapshotCache.getSnapshot(username);
+        if (principal == null) {
+            throw new RuntimeException("User not found: " + username);
+        }
+        return graph.candidateEquipmentIds(principal.getUserId());
+    }
+
+    /**
+     * Evaluate facts in fixed-size partitions on the evaluation pool, keeping the input order
+     */
+    private List<EquipmentAccessResult> evaluateInParallel(List<EquipmentAccessRequest> facts) {
+        List<List<EquipmentAccessRequest>> partitions = new ArrayList<>();
+        for (int start = 0; start < facts.size(); start += EVALUATION_PARTITION) {
+            partitions.add(facts.subList(start, Math.min(start + EVALUATION_PARTITION, facts.size())));
+        }
+
+        List<Future<List<EquipmentAccessResult>>> evaluations = new ArrayList<>(partitions.size());
+        for (List<EquipmentAccessRequest> partition : partitions) {
+            evaluations.add(evaluationExecutor.submit(() -> accessControlService.evaluateFacts(partition)));
+        }
+
+        List<EquipmentAccessResult> results = new ArrayList<>(facts.size());
+        for (Future<List<EquipmentAccessResult>> evaluation : evaluations) {
+            try {
+                results.addAll(evaluation.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while evaluating accessible equipment", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new RuntimeException("Accessible equipment evaluation failed", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evaluationExecutor.shutdownNow();
+    }
+
+    private AccessibleEquipmentPageDTO.EquipmentItemDTO toItem(EquipmentAccessRequest fact, EquipmentAccessResult result) {
+        AccessibleEquipmentPageDTO.EquipmentItemDTO item = new AccessibleEquipmentPageDTO.EquipmentItemDTO();
+        item.setId(fact.getEquipmentId());
+        item.setDeviceName(fact.getEquipmentName());
+        item.setDeviceType((String) fact.getAttribute("deviceType"));
+        item.setIpAddress((String) fact.getAttribute("ipAddress"));
+        item.setProtocol((String) fact.getAttribute("protocol"));
+        item.setMatchedPolicyName(result.getMatchedPolicyName());
+        return item;
+    }
+}
@@ -0,0 +1,889 @@
+package com.hunesion.drool_v2.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AuthorizationGraph - In-memory index of the whole assignment model for policy id resolution
+ * Users, user groups, roles, user types, policy groups, work groups, equipment, account types and
+ * policies are mapped to dense int indexes, and every assignment relation is stored as a CSR
+ * adjacency (int offsets + int targets). Resolving a user's or a (user, equipment) pair's policy
+ * ids is then a handful of array walks, following the same rules as the SQL in
+ * EquipmentPolicyRepository and WorkGroupRepository.
+ *
+ * The graph is built from Postgres in one repeatable-read transaction at startup and rebuilt in the
+ * background (debounced) when it goes stale: after a rules rebuild (every policy, assignment and
+ * policy group change triggers one) or after markDirty() (memberships, accounts, work groups).
+ * While stale, current() returns null and callers use the database queries, so a change is never
+ * resolved against the old graph on this node. A periodic rebuild picks up out-of-band edits.
+ *
+ * Bulk and reverse questions ("all users covered by policy P", "all equipment where user U has any
+ * policy") are answered with BitSet algebra over the dense indexes: the reverse adjacency is built
+ * once per snapshot on first use, and unions over groups, roles and policy groups are bit operations
+ * instead of row-by-row loads.
+ */
+@Service
+public class AuthorizationGraph {
+
+    private static final long REBUILD_DEBOUNCE_MILLIS = 500;
+
+    private static final String ENABLED_POLICY = " JOIN equipment_policies ep ON ep.id = %s AND ep.enabled = true";
+    private static final String ENABLED_WORK_GROUP = " JOIN work_groups wg ON wg.id = %s AND wg.enabled = true";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final DynamicRuleService dynamicRuleService;
+    private final boolean enabled;
+    private final long rebuildSeconds;
+
+    private volatile Snapshot snapshot;
+    // Bumped by markDirty(); a snapshot is current only if built at the latest generation
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "authorization-graph");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public AuthorizationGraph(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            DynamicRuleService dynamicRuleService,
+            @Value("${policy.authorization-graph.enabled:true}") boolean enabled,
+            @Value("${policy.authorization-graph.rebuild-seconds:300}") long rebuildSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dynamicRuleService = dynamicRuleService;
+        this.enabled = enabled;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        // Own connection, so a caller's transaction neither joins nor sees the snapshot read
+        this.snapshotTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.rebuildSeconds = Math.max(10, rebuildSeconds);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::rebuildQuietly, rebuildSeconds, rebuildSeconds, TimeUnit.SECONDS);
+            rebuildQuietly();
+        }
+    }
+
+    /**
+     * The current graph, or null if it is disabled, not built yet or stale
+     * A stale graph schedules its rebuild; callers fall back to the database meanwhile.
+     */
+    public Snapshot current() {
+        if (!enabled) {
+            return null;
+        }
+        Snapshot current = snapshot;
+        if (current != null && current.generation == generation.get()
+                && current.rulesVersion == dynamicRuleService.getRulesVersion()) {
+            return current;
+        }
+        scheduleRebuild();
+        return null;
+    }
+
+    /**
+     * The current graph, rebuilding it first if it is stale
+     * For bulk queries, where one rebuild is cheaper than answering from the database.
+     *
+     * @return The graph, or null if it is disabled or the rebuild failed
+     */
+    public Snapshot awaitCurrent() {
+        Snapshot current = current();
+        if (current == null && enabled) {
+            rebuildQuietly();
+            current = current();
+        }
+        return current;
+    }
+
+    /**
+     * Mark the graph stale after a membership change the rules version does not cover
+     * (user groups, roles, user type, accounts, work groups, policy group enabled flag).
+     * Takes effect immediately; the rebuild starts after the surrounding transaction commits.
+     * The generation is bumped again on commit: a rebuild that ran before it read the old rows.
+     */
+    public void markDirty() {
+        if (!enabled) {
+            return;
+        }
+        generation.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    generation.incrementAndGet();
+                    scheduleRebuild();
+                }
+            });
+        } else {
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * Rebuild the graph from the database and publish it
+     */
+    public synchronized void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        // Read the versions first so a change during the load leaves the new graph stale. Both
+        // are bumped again when a write commits, so a graph loaded before the commit is stale too.
+        long buildGeneration = generation.get();
+        long rulesVersion = dynamicRuleService.getRulesVersion();
+
+        Builder builder = snapshotTransaction.execute(status -> load());
+        Snapshot built = builder.build(buildGeneration, rulesVersion);
+        snapshot = built;
+
+        System.out.println("Authorization graph built: " + built.users.size() + " users, "
+                + built.equipment.size() + " equipment, " + built.getEdgeCount() + " edges, "
+                + (built.getFootprintBytes() / 1024) + " KB in " + (System.currentTimeMillis() - startedAt) + " ms");
+    }
+
+    private Builder load() {
+        Builder builder = new Builder();
+        jdbcTemplate.query("SELECT id, user_type_id FROM users", rs -> {
+            long userId = rs.getLong(1);
+            long userTypeId = rs.getLong(2);
+            builder.addUser(userId, rs.wasNull() ? null : userTypeId);
+        });
+        jdbcTemplate.query("SELECT id, work_group_name FROM work_groups WHERE enabled = true",
+                rs -> { builder.addWorkGroup(rs.getLong(1), rs.getString(2)); });
+
+        loadEdges(builder.userGroups, "SELECT user_id, group_id FROM user_group_members");
+        loadEdges(builder.userRoles, "SELECT user_id, role_id FROM user_roles");
+        loadEdges(builder.userPolicies, "SELECT pua.user_id, pua.policy_id FROM policy_user_assignments pua"
+                + String.format(ENABLED_POLICY, "pua.policy_id"));
+        loadEdges(builder.groupPolicies, "SELECT puga.group_id, puga.policy_id FROM policy_user_group_assignments puga"
+                + String.format(ENABLED_POLICY, "puga.policy_id"));
+        loadEdges(builder.rolePolicies, "SELECT pra.role_id, pra.policy_id FROM policy_role_assignments pra"
+                + String.format(ENABLED_POLICY, "pra.policy_id"));
+        loadEdges(builder.userTypePolicies, "SELECT puta.user_type_id, puta.policy_id FROM policy_user_type_assignments puta"
+                + String.format(ENABLED_POLICY, "puta.policy_id"));
+
+        loadEdges(builder.policyGroupPolicies, "SELECT pgm.policy_group_id, pgm.policy_id FROM policy_group_members pgm "
+                + "JOIN policy_groups pg ON pg.id = pgm.policy_group_id AND pg.enabled = true"
+                + String.format(ENABLED_POLICY, "pgm.policy_id"));
+        loadEdges(builder.userPolicyGroups, "SELECT user_id, policy_group_id FROM policy_group_user_assignments");
+        loadEdges(builder.groupPolicyGroups, "SELECT user_group_id, policy_group_id FROM policy_group_user_group_assignments");
+        loadEdges(builder.rolePolicyGroups, "SELECT role_id, policy_group_id FROM policy_group_role_assignments");
+
+        loadEdges(builder.equipmentPolicies, "SELECT pea.equipment_id, pea.policy_id FROM policy_equipment_assignments pea"
+                + String.format(ENABLED_POLICY, "pea.policy_id"));
+        loadEdges(builder.equipmentAccountTypes, "SELECT DISTINCT equipment_id, account_type_id FROM accounts "
+                + "WHERE is_active = true AND equipment_id IS NOT NULL AND account_type_id IS NOT NULL");
+        loadEdges(builder.accountTypePolicies, "SELECT pata.account_type_id, pata.policy_id FROM policy_account_type_assignments pata"
+                + String.format(ENABLED_POLICY, "pata.policy_id"));
+
+        loadEdges(builder.userWorkGroups, "SELECT wgu.user_id, wgu.work_group_id FROM work_group_users wgu"
+                + String.format(ENABLED_WORK_GROUP, "wgu.work_group_id"));
+        loadEdges(builder.equipmentWorkGroups, "SELECT wge.equipment_id, wge.work_group_id FROM work_group_equipment wge"
+                + String.format(ENABLED_WORK_GROUP, "wge.work_group_id"));
+        loadEdges(builder.workGroupPolicies, "SELECT wgp.work_group_id, wgp.policy_id FROM work_group_policies wgp"
+                + String.format(ENABLED_WORK_GROUP, "wgp.work_group_id")
+                + String.format(ENABLED_POLICY, "wgp.policy_id"));
+        return builder;
+    }
+
+    private void loadEdges(EdgeList edges, String sql) {
+        jdbcTemplate.query(sql, rs -> { edges.add(rs.getLong(1), rs.getLong(2)); });
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                rebuildPending.set(false);
+                rebuildQuietly();
+            }, REBUILD_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            System.out.println("Authorization graph rebuild failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Snapshot - One immutable build of the graph
+     */
+    public static final class Snapshot {
+        private final long generation;
+        private final long rulesVersion;
+
+        private final IdIndex users;
+        private final IdIndex userGroups;
+        private final IdIndex roles;
+        private final IdIndex userTypes;
+        private final IdIndex policyGroups;
+        private final IdIndex workGroups;
+        private final IdIndex equipment;
+        private final IdIndex accountTypes;
+        private final IdIndex policies;
+
+        private final int[] userTypeOfUser; // -1 = none
+        private final String[] workGroupNames;
+
+        private final Csr userGroupEdges;
+        private final Csr userRoleEdges;
+        private final Csr userPolicyEdges;
+        private final Csr groupPolicyEdges;
+        private final Csr rolePolicyEdges;
+        private final Csr userTypePolicyEdges;
+        private final Csr policyGroupPolicyEdges;
+        private final Csr userPolicyGroupEdges;
+        private final Csr groupPolicyGroupEdges;
+        private final Csr rolePolicyGroupEdges;
+        private final Csr equipmentPolicyEdges;
+        private final Csr equipmentAccountTypeEdges;
+        private final Csr accountTypePolicyEdges;
+        private final Csr userWorkGroupEdges;
+        private final Csr equipmentWorkGroupEdges;
+        private final Csr workGroupPolicyEdges;
+
+        // Built on first bulk query
+        private volatile ReverseIndex reverse;
+
+        private Snapshot(Builder b, long generation, long rulesVersion) {
+            this.generation = generation;
+            this.rulesVersion = rulesVersion;
+
+            users = IdIndex.of(b.userIds);
+            workGroups = IdIndex.of(b.workGroupIds);
+            userGroups = IdIndex.of(b.userGroups.targets(), b.groupPolicies.sources(), b.groupPolicyGroups.sources());
+            roles = IdIndex.of(b.userRoles.targets(), b.rolePolicies.sources(), b.rolePolicyGroups.sources());
+            userTypes = IdIndex.of(b.userTypeIds, b.userTypePolicies.sources());
+            policyGroups = IdIndex.of(b.policyGroupPolicies.sources(), b.userPolicyGroups.targets(),
+                    b.groupPolicyGroups.targets(), b.rolePolicyGroups.targets());
+            equipment = IdIndex.of(b.equipmentPolicies.sources(), b.equipmentAccountTypes.sources(),
+                    b.equipmentWorkGroups.sources());
+            accountTypes = IdIndex.of(b.equipmentAccountTypes.targets(), b.accountTypePolicies.sources());
+            policies = IdIndex.of(b.userPolicies.targets(), b.groupPolicies.targets(), b.rolePolicies.targets(),
+                    b.userTypePolicies.targets(), b.policyGroupPolicies.targets(), b.equipmentPolicies.targets(),
+                    b.accountTypePolicies.targets(), b.workGroupPolicies.targets());
+
+            userTypeOfUser = new int[users.size()];
+            for (int i = 0; i < b.userIds.size(); i++) {
+                long userTypeId = b.userTypeIds.get(i);
+                userTypeOfUser[users.indexOf(b.userIds.get(i))] = userTypeId >= 0 ? userTypes.indexOf(userTypeId) : -1;
+            }
+            workGroupNames = new String[workGroups.size()];
+            for (int i = 0; i < b.workGroupIds.size(); i++) {
+                workGroupNames[workGroups.indexOf(b.workGroupIds.get(i))] = b.workGroupNameList.get(i);
+            }
+
+            userGroupEdges = Csr.of(users, userGroups, b.userGroups);
+            userRoleEdges = Csr.of(users, roles, b.userRoles);
+            userPolicyEdges = Csr.of(users, policies, b.userPolicies);
+            groupPolicyEdges = Csr.of(userGroups, policies, b.groupPolicies);
+            rolePolicyEdges = Csr.of(roles, policies, b.rolePolicies);
+            userTypePolicyEdges = Csr.of(userTypes, policies, b.userTypePolicies);
+            policyGroupPolicyEdges = Csr.of(policyGroups, policies, b.policyGroupPolicies);
+            userPolicyGroupEdges = Csr.of(users, policyGroups, b.userPolicyGroups);
+            groupPolicyGroupEdges = Csr.of(userGroups, policyGroups, b.groupPolicyGroups);
+            rolePolicyGroupEdges = Csr.of(roles, policyGroups, b.rolePolicyGroups);
+            equipmentPolicyEdges = Csr.of(equipment, policies, b.equipmentPolicies);
+            equipmentAccountTypeEdges = Csr.of(equipment, accountTypes, b.equipmentAccountTypes);
+            accountTypePolicyEdges = Csr.of(accountTypes, policies, b.accountTypePolicies);
+            userWorkGroupEdges = Csr.of(users, workGroups, b.userWorkGroups);
+            equipmentWorkGroupEdges = Csr.of(equipment, workGroups, b.equipmentWorkGroups);
+            workGroupPolicyEdges = Csr.of(workGroups, policies, b.workGroupPolicies);
+        }
+
+        /**
+         * Subject-side policy ids of a user (direct, user groups, roles, user type, policy groups)
+         * Same rules as EquipmentPolicyRepository.SUBJECT_POLICY_IDS_SQL.
+         *
+         * @return The policy ids, or null if the user is not in the graph
+         */
+        public Set<Long> subjectPolicyIds(Long userId) {
+            int user = userId != null ? users.indexOf(userId) : -1;
+            if (user < 0) {
+                return null;
+            }
+            Set<Long> policyIds = new HashSet<>();
+            BitSet reachedPolicyGroups = new BitSet(policyGroups.size());
+
+            collectPolicies(userPolicyEdges, user, policyIds);
+            userPolicyGroupEdges.forEach(user, reachedPolicyGroups::set);
+            userGroupEdges.forEach(user, group -> {
+                collectPolicies(groupPolicyEdges, group, policyIds);
+                groupPolicyGroupEdges.forEach(group, reachedPolicyGroups::set);
+            });
+            userRoleEdges.forEach(user, role -> {
+                collectPolicies(rolePolicyEdges, role, policyIds);
+                rolePolicyGroupEdges.forEach(role, reachedPolicyGroups::set);
+            });
+            if (userTypeOfUser[user] >= 0) {
+                collectPolicies(userTypePolicyEdges, userTypeOfUser[user], policyIds);
+            }
+            for (int pg = reachedPolicyGroups.nextSetBit(0); pg >= 0; pg = reachedPolicyGroups.nextSetBit(pg + 1)) {
+                collectPolicies(policyGroupPolicyEdges, pg, policyIds);
+            }
+            return policyIds;
+        }
+
+        /**
+         * All policy ids of a (user, equipment) pair and the names of the work groups containing both
+         * Same rules as EquipmentPolicyRepository.findAssignedPolicyIds.
+         *
+         * @return The resolution, or null if the user is not in the graph
+         */
+        public Resolution resolve(Long userId, Long equipmentId) {
+            Set<Long> policyIds = subjectPolicyIds(userId);
+            if (policyIds == null) {
+                return null;
+            }
+            Set<String> names = new HashSet<>();
+            int equipmentIndex = equipmentId != null ? equipment.indexOf(equipmentId) : -1;
+            if (equipmentIndex >= 0) {
+                // Equipment-assigned policies require at least one subject-side policy
+                if (!policyIds.isEmpty()) {
+                    collectPolicies(equipmentPolicyEdges, equipmentIndex, policyIds);
+                }
+                equipmentAccountTypeEdges.forEach(equipmentIndex,
+                        accountType -> collectPolicies(accountTypePolicyEdges, accountType, policyIds));
+                collectWorkGroups(users.indexOf(userId), equipmentIndex, names, policyIds);
+            }
+            return new Resolution(policyIds, names);
+        }
+
+        /**
+         * Work groups containing both the user and the equipment: names and their enabled policy ids
+         *
+         * @return The resolution (subject policies not included), or null if the user is not in the graph
+         */
+        public Resolution workGroups(Long userId, Long equipmentId) {
+            int user = userId != null ? users.indexOf(userId) : -1;
+            if (user < 0) {
+                return null;
+            }
+            Set<Long> policyIds = new HashSet<>();
+            Set<String> names = new HashSet<>();
+            int equipmentIndex = equipmentId != null ? equipment.indexOf(equipmentId) : -1;
+            if (equipmentIndex >= 0) {
+                collectWorkGroups(user, equipmentIndex, names, policyIds);
+            }
+            return new Resolution(policyIds, names);
+        }
+
+        /**
+         * Users a policy reaches through their own assignments: directly, via user groups, roles,
+         * user type or policy groups, or as members of a work group carrying the policy
+         *
+         * @return Sorted user ids
+         */
+        public long[] usersCoveredByPolicy(Long policyId) {
+            int policy = policyId != null ? policies.indexOf(policyId) : -1;
+            if (policy < 0) {
+                return new long[0];
+            }
+            ReverseIndex r = reverse();
+            BitSet reachedGroups = new BitSet(userGroups.size());
+            BitSet reachedRoles = new BitSet(roles.size());
+            BitSet covered = new BitSet(users.size());
+
+            r.policyUsers.forEach(policy, covered::set);
+            r.policyGroups.forEach(policy, reachedGroups::set);
+            r.policyRoles.forEach(policy, reachedRoles::set);
+            r.policyUserTypes.forEach(policy, userType -> covered.or(r.userTypeMembers[userType]));
+            r.policyPolicyGroups.forEach(policy, pg -> {
+                r.policyGroupUsers.forEach(pg, covered::set);
+                r.policyGroupGroups.forEach(pg, reachedGroups::set);
+                r.policyGroupRoles.forEach(pg, reachedRoles::set);
+            });
+            // Each group and role is expanded once, however many paths reached it
+            for (int g = reachedGroups.nextSetBit(0); g >= 0; g = reachedGroups.nextSetBit(g + 1)) {
+                r.groupUsers.forEach(g, covered::set);
+            }
+            for (int role = reachedRoles.nextSetBit(0); role >= 0; role = reachedRoles.nextSetBit(role + 1)) {
+                r.roleUsers.forEach(role, covered::set);
+            }
+            r.policyWorkGroups.forEach(policy, wg -> r.workGroupUsers.forEach(wg, covered::set));
+            return users.idsOf(covered);
+        }
+
+        /**
+         * Equipment on which a user has at least one assigned policy
+         * A user with subject-side policies has them on every equipment.
+         *
+         * @return Equipment ids, or null if every equipment qualifies (or the user is not in the graph)
+         */
+        public Set<Long> candidateEquipmentIds(Long userId) {
+            int user = userId != null ? users.indexOf(userId) : -1;
+            ReverseIndex r = reverse();
+            if (user < 0 || r.usersWithSubjectPolicies.get(user)) {
+                return null;
+            }
+            BitSet candidates = (BitSet) r.equipmentWithAccountTypePolicies.clone();
+            userWorkGroupEdges.forEach(user, wg -> {
+                if (workGroupPolicyEdges.degree(wg) > 0) {
+                    r.workGroupEquipment.forEach(wg, candidates::set);
+                }
+            });
+            Set<Long> equipmentIds = new HashSet<>();
+            for (long id : equipment.idsOf(candidates)) {
+                equipmentIds.add(id);
+            }
+            return equipmentIds;
+        }
+
+        /**
+         * Users who can have a policy on the equipment: users with subject-side policies and the
+         * members of work groups containing the equipment (all users when account-type policies apply)
+         */
+        public Set<Long> candidateUserIds(Long equipmentId, boolean everyUser) {
+            ReverseIndex r = reverse();
+            BitSet candidates;
+            if (everyUser) {
+                candidates = new BitSet(users.size());
+                candidates.set(0, users.size());
+            } else {
+                candidates = (BitSet) r.usersWithSubjectPolicies.clone();
+                int equipmentIndex = equipmentId != null ? equipment.indexOf(equipmentId) : -1;
+                if (equipmentIndex >= 0) {
+                    equipmentWorkGroupEdges.forEach(equipmentIndex, wg -> r.workGroupUsers.forEach(wg, candidates::set));
+                }
+            }
+            Set<Long> userIds = new HashSet<>(candidates.cardinality() * 2);
+            for (long id : users.idsOf(candidates)) {
+                userIds.add(id);
+            }
+            return userIds;
+        }
+
+        private ReverseIndex reverse() {
+            ReverseIndex r = reverse;
+            if (r == null) {
+                synchronized (this) {
+                    r = reverse;
+                    if (r == null) {
+                        r = new ReverseIndex(this);
+                        reverse = r;
+                    }
+                }
+            }
+            return r;
+        }
+
+        private void collectWorkGroups(int user, int equipmentIndex, Set<String> names, Set<Long> policyIds) {
+            // Both rows are sorted, so the shared work groups are a merge walk
+            Csr a = userWorkGroupEdges;
+            Csr b = equipmentWorkGroupEdges;
+            int i = a.offsets[user];
+            int iEnd = a.offsets[user + 1];
+            int j = b.offsets[equipmentIndex];
+            int jEnd = b.offsets[equipmentIndex + 1];
+            while (i < iEnd && j < jEnd) {
+                int left = a.targets[i];
+                int right = b.targets[j];
+                if (left < right) {
+                    i++;
+                } else if (left > right) {
+                    j++;
+                } else {
+                    names.add(workGroupNames[left]);
+                    collectPolicies(workGroupPolicyEdges, left, policyIds);
+                    i++;
+                    j++;
+                }
+            }
+        }
+
+        private void collectPolicies(Csr edges, int node, Set<Long> policyIds) {
+            for (int k = edges.offsets[node]; k < edges.offsets[node + 1]; k++) {
+                policyIds.add(policies.ids[edges.targets[k]]);
+            }
+        }
+
+        public long getEdgeCount() {
+            long count = 0;
+            for (Csr csr : allEdges()) {
+                count += csr.targets.length;
+            }
+            return count;
+        }
+
+        /**
+         * Approximate heap size of the arrays (ids, offsets, targets), excluding work group name strings
+         */
+        public long getFootprintBytes() {
+            long bytes = 4L * userTypeOfUser.length + 8L * workGroupNames.length;
+            for (IdIndex index : List.of(users, userGroups, roles, userTypes, policyGroups, workGroups,
+                    equipment, accountTypes, policies)) {
+                bytes += 8L * index.ids.length;
+            }
+            for (Csr csr : allEdges()) {
+                bytes += 4L * (csr.offsets.length + csr.targets.length);
+            }
+            return bytes;
+        }
+
+        private List<Csr> allEdges() {
+            return List.of(userGroupEdges, userRoleEdges, userPolicyEdges, groupPolicyEdges, rolePolicyEdges,
+                    userTypePolicyEdges, policyGroupPolicyEdges, userPolicyGroupEdges, groupPolicyGroupEdges,
+                    rolePolicyGroupEdges, equipmentPolicyEdges, equipmentAccountTypeEdges, accountTypePolicyEdges,
+                    userWorkGroupEdges, equipmentWorkGroupEdges, workGroupPolicyEdges);
+        }
+    }
+
+    /**
+     * Resolution - Policy ids and work group names resolved from the graph
+     */
+    public static final class Resolution {
+        private final Set<Long> policyIds;
+        private final Set<String> workGroupNames;
+
+        private Resolution(Set<Long> policyIds, Set<String> workGroupNames) {
+            this.policyIds = policyIds;
+            this.workGroupNames = workGroupNames;
+        }
+
+        public Set<Long> getPolicyIds() {
+            return policyIds;
+        }
+
+        public Set<String> getWorkGroupNames() {
+            return workGroupNames;
+        }
+    }
+
+    /**
+     * ReverseIndex - Transposed adjacency and precomputed bitmaps of one snapshot, for bulk queries
+     */
+    private static final class ReverseIndex {
+        private final Csr groupUsers;
+        private final Csr roleUsers;
+        private final BitSet[] userTypeMembers;
+        private final Csr policyUsers;
+        private final Csr policyGroups;
+        private final Csr policyRoles;
+        private final Csr policyUserTypes;
+        private final Csr policyPolicyGroups;
+        private final Csr policyGroupUsers;
+        private final Csr policyGroupGroups;
+        private final Csr policyGroupRoles;
+        private final Csr policyWorkGroups;
+        private final Csr workGroupUsers;
+        private final Csr workGroupEquipment;
+        private final BitSet usersWithSubjectPolicies;
+        private final BitSet equipmentWithAccountTypePolicies;
+
+        private ReverseIndex(Snapshot g) {
+            int userCount = g.users.size();
+            groupUsers = g.userGroupEdges.transpose(g.userGroups.size());
+            roleUsers = g.userRoleEdges.transpose(g.roles.size());
+            userTypeMembers = new BitSet[g.userTypes.size()];
+            for (int t = 0; t < userTypeMembers.length; t++) {
+                userTypeMembers[t] = new BitSet(userCount);
+            }
+            for (int u = 0; u < userCount; u++) {
+                if (g.userTypeOfUser[u] >= 0) {
+                    userTypeMembers[g.userTypeOfUser[u]].set(u);
+                }
+            }
+            int policyCount = g.policies.size();
+            policyUsers = g.userPolicyEdges.transpose(policyCount);
+            policyGroups = g.groupPolicyEdges.transpose(policyCount);
+            policyRoles = g.rolePolicyEdges.transpose(policyCount);
+            policyUserTypes = g.userTypePolicyEdges.transpose(policyCount);
+            policyPolicyGroups = g.policyGroupPolicyEdges.transpose(policyCount);
+            policyGroupUsers = g.userPolicyGroupEdges.transpose(g.policyGroups.size());
+            policyGroupGroups = g.groupPolicyGroupEdges.transpose(g.policyGroups.size());
+            policyGroupRoles = g.rolePolicyGroupEdges.transpose(g.policyGroups.size());
+            policyWorkGroups = g.workGroupPolicyEdges.transpose(policyCount);
+            workGroupUsers = g.userWorkGroupEdges.transpose(g.workGroups.size());
+            workGroupEquipment = g.equipmentWorkGroupEdges.transpose(g.workGroups.size());
+
+            // Users with any subject-side policy: set algebra over the nodes that carry policies
+            usersWithSubjectPolicies = new BitSet(userCount);
+            for (int u = 0; u < userCount; u++) {
+                if (g.userPolicyEdges.degree(u) > 0 || g.userPolicyGroupEdges.any(u, pg -> g.policyGroupPolicyEdges.degree(pg) > 0)) {
+                    usersWithSubjectPolicies.set(u);
+                }
+            }
+            for (int group = 0; group < g.userGroups.size(); group++) {
+                if (g.groupPolicyEdges.degree(group) > 0
+                        || g.groupPolicyGroupEdges.any(group, pg -> g.policyGroupPolicyEdges.degree(pg) > 0)) {
+                    groupUsers.forEach(group, usersWithSubjectPolicies::set);
+                }
+            }
+            for (int role = 0; role < g.roles.size(); role++) {
+                if (g.rolePolicyEdges.degree(role) > 0
+                        || g.rolePolicyGroupEdges.any(role, pg -> g.policyGroupPolicyEdges.degree(pg) > 0)) {
+                    roleUsers.forEach(role, usersWithSubjectPolicies::set);
+                }
+            }
+            for (int t = 0; t < userTypeMembers.length; t++) {
+                if (g.userTypePolicyEdges.degree(t) > 0) {
+                    usersWithSubjectPolicies.or(userTypeMembers[t]);
+                }
+            }
+
+            equipmentWithAccountTypePolicies = new BitSet(g.equipment.size());
+            for (int e = 0; e < g.equipment.size(); e++) {
+                if (g.equipmentAccountTypeEdges.any(e, accountType -> g.accountTypePolicyEdges.degree(accountType) > 0)) {
+                    equipmentWithAccountTypePolicies.set(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * IdIndex - Sorted distinct database ids; the position of an id is its dense index
+     */
+    private static final class IdIndex {
+        private final long[] ids;
+
+        private IdIndex(long[] ids) {
+            this.ids = ids;
+        }
+
+        private static IdIndex of(LongList... columns) {
+            int total = 0;
+            for (LongList column : columns) {
+                total += column.size();
+            }
+            long[] all = new long[total];
+            int n = 0;
+            for (LongList column : columns) {
+                for (int i = 0; i < column.size(); i++) {
+                    if (column.get(i) >= 0) {
+                        all[n++] = column.get(i);
+                    }
+                }
+            }
+            Arrays.sort(all, 0, n);
+            int distinct = 0;
+            for (int i = 0; i < n; i++) {
+                if (distinct == 0 || all[distinct - 1] != all[i]) {
+                    all[distinct++] = all[i];
+                }
+            }
+            return new IdIndex(Arrays.copyOf(all, distinct));
+        }
+
+        private int indexOf(long id) {
+            int index = Arrays.binarySearch(ids, id);
+            return index >= 0 ? index : -1;
+        }
+
+        private long[] idsOf(BitSet indexes) {
+            long[] result = new long[indexes.cardinality()];
+            int n = 0;
+            for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+                result[n++] = ids[i];
+            }
+            return result;
+        }
+
+        private int size() {
+            return ids.length;
+        }
+    }
+
+    /**
+     * Csr - Compressed sparse row adjacency; the targets of node n are targets[offsets[n]..offsets[n+1])
+     * Targets of each row are sorted.
+     */
+    private static final class Csr {
+        private final int[] offsets;
+        private final int[] targets;
+
+        private Csr(int[] offsets, int[] targets) {
+            this.offsets = offsets;
+            this.targets = targets;
+        }
+
+        private static Csr of(IdIndex sourceIndex, IdIndex targetIndex, EdgeList edges) {
+            int[] sources = new int[edges.size()];
+            int[] mapped = new int[edges.size()];
+            int[] offsets = new int[sourceIndex.size() + 1];
+            int count = 0;
+            for (int e = 0; e < edges.size(); e++) {
+                int source = sourceIndex.indexOf(edges.sources.get(e));
+                int target = targetIndex.indexOf(edges.targets.get(e));
+                // Edges to nodes outside the index (e.g. a disabled work group) are dropped
+                if (source >= 0 && target >= 0) {
+                    sources[count] = source;
+                    mapped[count] = target;
+                    offsets[source + 1]++;
+                    count++;
+                }
+            }
+            for (int n = 0; n < sourceIndex.size(); n++) {
+                offsets[n + 1] += offsets[n];
+            }
+            int[] targets = new int[count];
+            int[] next = Arrays.copyOf(offsets, sourceIndex.size());
+            for (int e = 0; e < count; e++) {
+                targets[next[sources[e]]++] = mapped[e];
+            }
+            for (int n = 0; n < sourceIndex.size(); n++) {
+                Arrays.sort(targets, offsets[n], offsets[n + 1]);
+            }
+            return new Csr(offsets, targets);
+        }
+
+        private void forEach(int node, java.util.function.IntConsumer action) {
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                action.accept(targets[k]);
+            }
+        }
+
+        private boolean any(int node, java.util.function.IntPredicate predicate) {
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                if (predicate.test(targets[k])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int degree(int node) {
+            return offsets[node + 1] - offsets[node];
+        }
+
+        /**
+         * Reverse adjacency: for each target node, its source nodes (sorted)
+         */
+        private Csr transpose(int targetCount) {
+            int[] reverseOffsets = new int[targetCount + 1];
+            for (int target : targets) {
+                reverseOffsets[target + 1]++;
+            }
+            for (int n = 0; n < targetCount; n++) {
+                reverseOffsets[n + 1] += reverseOffsets[n];
+            }
+            int[] reverseTargets = new int[targets.length];
+            int[] next = Arrays.copyOf(reverseOffsets, targetCount);
+            // Sources are visited in ascending order, so each reversed row comes out sorted
+            for (int source = 0; source < offsets.length - 1; source++) {
+                for (int k = offsets[source]; k < offsets[source + 1]; k++) {
+                    reverseTargets[next[targets[k]]++] = source;
+                }
+            }
+            return new Csr(reverseOffsets, reverseTargets);
+        }
+    }
+
+    /**
+     * Builder - Raw id rows collected while loading, turned into a Snapshot
+     */
+    static final class Builder {
+        private final LongList userIds = new LongList();
+        private final LongList userTypeIds = new LongList(); // -1 = none, parallel to userIds
+        private final LongList workGroupIds = new LongList();
+        private final List<String> workGroupNameList = new ArrayList<>();
+
+        final EdgeList userGroups = new EdgeList();
+        final EdgeList userRoles = new EdgeList();
+        final EdgeList userPolicies = new EdgeList();
+        final EdgeList groupPolicies = new EdgeList();
+        final EdgeList rolePolicies = new EdgeList();
+        final EdgeList userTypePolicies = new EdgeList();
+        final EdgeList policyGroupPolicies = new EdgeList();
+        final EdgeList userPolicyGroups = new EdgeList();
+        final EdgeList groupPolicyGroups = new EdgeList();
+        final EdgeList rolePolicyGroups = new EdgeList();
+        final EdgeList equipmentPolicies = new EdgeList();
+        final EdgeList equipmentAccountTypes = new EdgeList();
+        final EdgeList accountTypePolicies = new EdgeList();
+        final EdgeList userWorkGroups = new EdgeList();
+        final EdgeList equipmentWorkGroups = new EdgeList();
+        final EdgeList workGroupPolicies = new EdgeList();
+
+        void addUser(long userId, Long userTypeId) {
+            userIds.add(userId);
+            userTypeIds.add(userTypeId != null ? userTypeId : -1);
+        }
+
+        void addWorkGroup(long workGroupId, String name) {
+            workGroupIds.add(workGroupId);
+            workGroupNameList.add(name);
+        }
+
+        Snapshot build(long generation, long rulesVersion) {
+            return new Snapshot(this, generation, rulesVersion);
+        }
+    }
+
+    /**
+     * EdgeList - Growable (source id, target id) rows
+     */
+    static final class EdgeList {
+        private final LongList sources = new LongList();
+        private final LongList targets = new LongList();
+
+        void add(long source, long target) {
+            sources.add(source);
+            targets.add(target);
+        }
+
+        private int size() {
+            return sources.size();
+        }
+
+        private LongList sources() {
+            return sources;
+        }
+
+        private LongList targets() {
+            return targets;
+        }
+    }
+
+    /**
+     * LongList - Growable primitive long array
+     */
+    private static final class LongList {
+        private long[] values = new long[16];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private long get(int index) {
+            return values[index];
+        }
+
+        private int size() {
+            return size;
+        }
+    }
+}
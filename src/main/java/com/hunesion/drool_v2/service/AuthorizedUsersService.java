@@ -0,0 +1,195 @@
+package com.hunesion.drool_v2.service;
+
+import com.hunesion.drool_v2.dto.AuthorizedUsersDTO;
+import com.hunesion.drool_v2.model.EquipmentAccessRequest;
+import com.hunesion.drool_v2.model.EquipmentAccessResult;
+import com.hunesion.drool_v2.model.EquipmentContext;
+import com.hunesion.drool_v2.model.SubjectProfile;
+import com.hunesion.drool_v2.repository.EquipmentPolicyRepository;
+import com.hunesion.drool_v2.repository.UserRepository;
+import com.hunesion.drool_v2.repository.WorkGroupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * AuthorizedUsersService - Reverse authorization query: which users can access a given equipment
+ * Starts from the equipment's own assignments (equipment, account types, work groups), expands to
+ * users through the subject assignment tables in set-based queries, and groups the candidates into
+ * subject profiles so the rule engine evaluates each distinct profile once instead of once per user.
+ * When the authorization graph is current, candidates and their policy ids come from its bitmaps
+ * instead of the two set-based queries.
+ * Live session counts are part of the profile, so maxSshSessions/maxRdpSessions/maxTelnetSessions
+ * apply as in a single check; users locked out after login failures are dropped from the result.
+ */
+@Service
+public class AuthorizedUsersService {
+
+    private final EquipmentContextCache equipmentContextCache;
+    private final EquipmentPolicyRepository policyRepository;
+    private final WorkGroupRepository workGroupRepository;
+    private final UserRepository userRepository;
+    private final PolicyFactLoader factLoader;
+    private final EquipmentAccessControlService accessControlService;
+    private final AuthorizationGraph authorizationGraph;
+    private final SessionRegistry sessionRegistry;
+    private final LoginAttemptTracker loginAttemptTracker;
+
+    @Autowired
+    public AuthorizedUsersService(
+            EquipmentContextCache equipmentContextCache,
+            EquipmentPolicyRepository policyRepository,
+            WorkGroupRepository workGroupRepository,
+            UserRepository userRepository,
+            PolicyFactLoader factLoader,
+            EquipmentAccessControlService accessControlService,
+            AuthorizationGraph authorizationGraph,
+            SessionRegistry sessionRegistry,
+            LoginAttemptTracker loginAttemptTracker) {
+        this.equipmentContextCache = equipmentContextCache;
+        this.policyRepository = policyRepository;
+        this.workGroupRepository = workGroupRepository;
+        this.userRepository = userRepository;
+        this.factLoader = factLoader;
+        this.accessControlService = accessControlService;
+        this.authorizationGraph = authorizationGraph;
+        this.sessionRegistry = sessionRegistry;
+        this.loginAttemptTracker = loginAttemptTracker;
+    }
+
+    /**
+     * Find all users allowed to access the equipment
+     *
+     * @param equipmentId The equipment
+     * @param protocol    Protocol to evaluate with, or null to use the equipment's own protocol
+     */
+    @Transactional(readOnly = true)
+    public AuthorizedUsersDTO findAuthorizedUsers(Long equipmentId, String protocol) {
+        EquipmentContext equipmentContext = equipmentContextCache.getContext(equipmentId);
+        if (equipmentContext == null) {
+            throw new RuntimeException("Equipment not found: " + equipmentId);
+        }
+
+        // Account-type policies reach every user, so all users are candidates when there are any;
+        // otherwise only users with subject-side policies or a shared work group can be allowed
+        boolean everyUserIsCandidate = !equipmentContext.getAccountTypePolicyIds().isEmpty();
+
+        Map<Long, Set<Long>> subjectPolicyIds = new HashMap<>();
+        Map<Long, Set<String>> workGroupNames = new HashMap<>();
+        Map<Long, Set<Long>> workGroupPolicyIds = new HashMap<>();
+        AuthorizationGraph.Snapshot graph = authorizationGraph.awaitCurrent();
+        Set<Long> candidateUserIds;
+        if (graph != null) {
+            candidateUserIds = graph.candidateUserIds(equipmentId, everyUserIsCandidate);
+            for (Long userId : candidateUserIds) {
+                subjectPolicyIds.put(userId, graph.subjectPolicyIds(userId));
+                AuthorizationGraph.Resolution workGroups = graph.workGroups(userId, equipmentId);
+                if (!workGroups.getWorkGroupNames().isEmpty()) {
+                    workGroupNames.put(userId, workGroups.getWorkGroupNames());
+                    workGroupPolicyIds.put(userId, workGroups.getPolicyIds());
+                }
+            }
+        } else {
+            candidateUserIds = null;
+            loadCandidatesFromDatabase(equipmentId, subjectPolicyIds, workGroupNames, workGroupPolicyIds);
+        }
+
+        Map<SubjectProfile, List<Object[]>> usersByProfile = new LinkedHashMap<>();
+        int candidates = 0;
+        for (Object[] userRow : userRepository.findUserTypeRows()) {
+            Long userId = ((Number) userRow[0]).longValue();
+            if (candidateUserIds != null && !candidateUserIds.contains(userId)) {
+                continue;
+            }
+            Set<Long> subject = subjectPolicyIds.getOrDefault(userId, Collections.emptySet());
+            if (!everyUserIsCandidate && subject.isEmpty() && !workGroupNames.containsKey(userId)) {
+                continue;
+            }
+
+            // Same composition as the single-user resolution in EquipmentPolicyRepository
+            Set<Long> policyIds = new HashSet<>(subject);
+            if (!subject.isEmpty()) {
+                policyIds.addAll(equipmentContext.getEquipmentPolicyIds());
+            }
+            policyIds.addAll(equipmentContext.getAccountTypePolicyIds());
+            policyIds.addAll(workGroupPolicyIds.getOrDefault(userId, Collections.emptySet()));
+            if (policyIds.isEmpty()) {
+                continue;
+            }
+
+            candidates++;
+            String username = (String) userRow[1];
+            SubjectProfile profile = new SubjectProfile(policyIds, (String) userRow[2],
+                    workGroupNames.getOrDefault(userId, Collections.emptySet()),
+                    sessionRegistry.getSessionCount(username, "SSH"),
+                    sessionRegistry.getSessionCount(username, "RDP"),
+                    sessionRegistry.getSessionCount(username, "TELNET"));
+            usersByProfile.computeIfAbsent(profile, p -> new ArrayList<>()).add(userRow);
+        }
+
+        // Evaluate one fact per profile
+        List<SubjectProfile> profiles = new ArrayList<>(usersByProfile.keySet());
+        List<EquipmentAccessRequest> facts = factLoader.loadSubjectProfileFacts(equipmentContext, profiles);
+        LocalDateTime requestTime = LocalDateTime.now();
+        for (EquipmentAccessRequest fact : facts) {
+            if (protocol != null) {
+                fact.setProtocol(protocol);
+            }
+            fact.setRequestTime(requestTime);
+        }
+        List<EquipmentAccessResult> results = accessControlService.evaluateFacts(facts);
+
+        AuthorizedUsersDTO response = new AuthorizedUsersDTO();
+        response.setEquipmentId(equipmentId);
+        response.setDeviceName(equipmentContext.getDeviceName());
+        response.setProtocol(protocol != null ? protocol : equipmentContext.getProtocol());
+        for (int i = 0; i < profiles.size(); i++) {
+            EquipmentAccessResult result = results.get(i);
+            if (!result.isAllowed()) {
+                continue;
+            }
+            for (Object[] userRow : usersByProfile.get(profiles.get(i))) {
+                // Same pre-rule lockout check as a single check without a client IP
+                if (loginAttemptTracker.isLocked((String) userRow[1], null)) {
+                    continue;
+                }
+                response.getUsers().add(new AuthorizedUsersDTO.AuthorizedUserDTO(
+                        ((Number) userRow[0]).longValue(), (String) userRow[1], result.getMatchedPolicyName()));
+            }
+        }
+        response.getUsers().sort(Comparator.comparing(AuthorizedUsersDTO.AuthorizedUserDTO::getUsername));
+        response.setCandidateUsers(candidates);
+        response.setEvaluatedProfiles(profiles.size());
+
+        System.out.println("Authorized users for equipment " + equipmentId + ": " + response.getUsers().size()
+                + " of " + candidates + " candidates (" + profiles.size() + " profiles evaluated)");
+        return response;
+    }
+
+    /**
+     * Subject-side policies of every user and the work-group memberships for the equipment,
+     * in two set-based queries
+     */
+    private void loadCandidatesFromDatabase(Long equipmentId, Map<Long, Set<Long>> subjectPolicyIds,
+                                            Map<Long, Set<String>> workGroupNames,
+                                            Map<Long, Set<Long>> workGroupPolicyIds) {
+        // Subject-side policies for every user (user, group, role, user type, policy group) in one statement
+        for (Object[] row : policyRepository.findSubjectPolicyRowsForAllUsers()) {
+            subjectPolicyIds.computeIfAbsent(((Number) row[0]).longValue(), id -> new HashSet<>())
+                    .add(((Number) row[1]).longValue());
+        }
+
+        // Work groups containing this equipment, with their member users and enabled policies
+        for (Object[] row : workGroupRepository.findMembershipRowsForEquipment(equipmentId)) {
+            Long userId = ((Number) row[0]).longValue();
+            workGroupNames.computeIfAbsent(userId, id -> new HashSet<>()).add((String) row[1]);
+            Set<Long> policyIds = workGroupPolicyIds.computeIfAbsent(userId, id -> new HashSet<>());
+            if (row[2] != null) {
+                policyIds.add(((Number) row[2]).longValue());
+            }
+        }
+    }
+}
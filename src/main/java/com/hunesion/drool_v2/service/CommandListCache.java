@@ -0,0 +1,137 @@
+package com.hunesion.drool_v2.service;
+
+import com.hunesion.drool_v2.model.CompiledCommandList;
+import com.hunesion.drool_v2.model.entity.CommandList;
+import com.hunesion.drool_v2.model.entity.CommandListItem;
+import com.hunesion.drool_v2.repository.CommandListRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * CommandListCache - In-memory copy of command lists keyed by list id
+ * Each entry is an immutable CompiledCommandList carrying its updated-at version, so the access
+ * check hot path never goes through JPA for command lists. Entries are evicted by
+ * CommandListChangeListener when a list or its items change. Lists that went into a memory-mapped
+ * dictionary are kept without their command strings; loadLists reads them again when needed.
+ */
+@Service
+public class CommandListCache {
+
+    private final CommandListRepository commandListRepository;
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public CommandListCache(CommandListRepository commandListRepository, CacheManager cacheManager) {
+        this.commandListRepository = commandListRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Get the compiled command lists for the given ids
+     * Cached lists are returned directly; misses are loaded together and cached.
+     * Unknown ids are absent from the result.
+     *
+     * @param commandListIds Command list IDs
+     * @return Compiled lists ordered by id
+     */
+    @Transactional(readOnly = true)
+    public List<CompiledCommandList> getLists(Collection<Long> commandListIds) {
+        Cache cache = cacheManager.getCache("commandListCache");
+        Map<Long, CompiledCommandList> lists = new TreeMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long listId : commandListIds) {
+            CompiledCommandList cached = cache != null ? cache.get(listId, CompiledCommandList.class) : null;
+            if (cached != null) {
+                lists.put(listId, cached);
+            } else if (listId != null) {
+                missing.add(listId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (CommandList cmdList : commandListRepository.findAllWithItemsByIdIn(missing)) {
+                CompiledCommandList compiled = compile(cmdList);
+                lists.put(cmdList.getId(), compiled);
+                if (cache != null) {
+                    cache.put(cmdList.getId(), compiled);
+                }
+                System.out.println("Cached command list: " + compiled);
+            }
+        }
+        return new ArrayList<>(lists.values());
+    }
+
+    /**
+     * Load command lists with their command strings, bypassing the cache
+     * Used to compile dictionaries when cached entries had their strings dropped.
+     */
+    @Transactional(readOnly = true)
+    public List<CompiledCommandList> loadLists(Collection<Long> commandListIds) {
+        Map<Long, CompiledCommandList> lists = new TreeMap<>();
+        Set<Long> ids = new HashSet<>(commandListIds);
+        ids.remove(null);
+        if (!ids.isEmpty()) {
+            for (CommandList cmdList : commandListRepository.findAllWithItemsByIdIn(ids)) {
+                lists.put(cmdList.getId(), compile(cmdList));
+            }
+        }
+        return new ArrayList<>(lists.values());
+    }
+
+    /**
+     * Replace cached lists by copies without command strings, once they live in a mapped dictionary
+     * Entries that changed meanwhile are left alone.
+     */
+    public void dropCommands(Collection<CompiledCommandList> compiledLists) {
+        if (!(cacheManager.getCache("commandListCache") instanceof CaffeineCache caffeineCache)) {
+            return;
+        }
+        // Atomic per entry, so an eviction racing with this is never undone
+        for (CompiledCommandList list : compiledLists) {
+            caffeineCache.getNativeCache().asMap().computeIfPresent(list.getId(), (id, cached) ->
+                    cached instanceof CompiledCommandList compiled && compiled.versionKey().equals(list.versionKey())
+                            ? compiled.withoutCommands()
+                            : cached);
+        }
+    }
+
+    private CompiledCommandList compile(CommandList cmdList) {
+        List<String> commands = new ArrayList<>(cmdList.getItems().size());
+        for (CommandListItem item : cmdList.getItems()) {
+            commands.add(item.getCommandText());
+        }
+        return new CompiledCommandList(
+                cmdList.getId(),
+                cmdList.getListName(),
+                cmdList.getListType(),
+                cmdList.getProtocolType(),
+                cmdList.getUpdatedAt() != null ? cmdList.getUpdatedAt() : cmdList.getCreatedAt(),
+                commands
+        );
+    }
+
+    /**
+     * Evict a command list when it or its items change
+     *
+     * @param commandListId The command list ID to evict from cache
+     */
+    @CacheEvict(value = "commandListCache", key = "#commandListId")
+    public void evictList(Long commandListId) {
+        // Cache eviction handled by annotation
+    }
+
+    /**
+     * Evict all cached command lists
+     */
+    @CacheEvict(value = "commandListCache", allEntries = true)
+    public void evictAll() {
+        // Cache eviction handled by annotation
+    }
+}
@@ -0,0 +1,281 @@
+package com.hunesion.drool_v2.service;
+
+import com.hunesion.drool_v2.model.CommandDictionary;
+import com.hunesion.drool_v2.model.CommandMatcher;
+import com.hunesion.drool_v2.model.CompiledCommandList;
+import com.hunesion.drool_v2.model.MappedCommandDictionary;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * CommandMatcherCache - Caches compiled command matchers per distinct set of command lists
+ * Policies referencing the same command lists share one Aho-Corasick automaton. The cache key is
+ * the set of list versions ("id@updatedAt"), so a changed list yields a new matcher automatically.
+ *
+ * List sets with at least policy.command-dictionary.mapped-threshold patterns are exported to a
+ * dictionary file and memory-mapped instead of being kept on the heap. When one of their lists
+ * changes, the file is rebuilt in the background and the previous dictionary keeps serving
+ * checks until the new one is swapped in. Callers get one stable handle per list set, so cached
+ * subject classes pick up the rebuilt dictionary too; the replaced mapping is unmapped once its
+ * last in-flight lookup is done. The cached lists of a mapped set drop their command strings.
+ */
+@Service
+public class CommandMatcherCache {
+
+    private final CommandListCache commandListCache;
+    private final CacheManager cacheManager;
+    private final int mappedThreshold;
+    private final Path dictionaryDirectory;
+
+    // Memory-mapped dictionaries keyed by command list IDs (not versions) so a rebuild replaces in place
+    private final Map<Set<Long>, MappedDictionaryHandle> mappedDictionaries = new ConcurrentHashMap<>();
+    private final Set<Set<Long>> pendingRebuilds = ConcurrentHashMap.newKeySet();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "command-dictionary-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public CommandMatcherCache(
+            CommandListCache commandListCache,
+            CacheManager cacheManager,
+            @Value("${policy.command-dictionary.mapped-threshold:100000}") int mappedThreshold,
+            @Value("${policy.command-dictionary.directory:${java.io.tmpdir}/drool-command-dictionaries}") String dictionaryDirectory) {
+        this.commandListCache = commandListCache;
+        this.cacheManager = cacheManager;
+        this.mappedThreshold = mappedThreshold;
+        this.dictionaryDirectory = Paths.get(dictionaryDirectory);
+    }
+
+    /**
+     * Get the matcher for a set of command lists, compiling it on first use
+     *
+     * @param commandListIds Command list IDs referenced by the assigned commandSettings policies
+     * @return Compiled dictionary over the merged blacklist and whitelist items
+     */
+    public CommandDictionary getMatcher(Set<Long> commandListIds) {
+        List<CompiledCommandList> lists = commandListCache.getLists(commandListIds);
+
+        Set<String> key = new TreeSet<>();
+        int patternCount = 0;
+        for (CompiledCommandList list : lists) {
+            key.add(list.versionKey());
+            if (list.isBlacklist() || list.isWhitelist()) {
+                patternCount += list.getCommandCount();
+            }
+        }
+
+        if (patternCount >= mappedThreshold) {
+            return getMappedDictionary(Set.copyOf(commandListIds), lists, String.join(",", key));
+        }
+
+        Cache cache = cacheManager.getCache("commandMatcherCache");
+        if (cache == null) {
+            return compile(withCommands(commandListIds, lists));
+        }
+        return cache.get(key, () -> {
+            CommandMatcher matcher = compile(withCommands(commandListIds, lists));
+            System.out.println("Compiled command matcher for lists " + key + ": " + matcher);
+            return matcher;
+        });
+    }
+
+    private CommandDictionary getMappedDictionary(Set<Long> commandListIds,
+                                                  List<CompiledCommandList> lists,
+                                                  String versionKey) {
+        MappedDictionaryHandle current = mappedDictionaries.get(commandListIds);
+        if (current != null) {
+            if (!current.getVersionKey().equals(versionKey)) {
+                scheduleRebuild(commandListIds);
+            }
+            // Stale dictionaries keep serving until the rebuilt file is swapped in
+            return current;
+        }
+        // First use: nothing to fall back on, so build on the calling thread
+        synchronized (this) {
+            current = mappedDictionaries.get(commandListIds);
+            if (current == null) {
+                export(commandListIds, withCommands(commandListIds, lists), versionKey);
+                current = mappedDictionaries.get(commandListIds);
+            }
+            return current;
+        }
+    }
+
+    // The lists themselves if they still carry their strings, otherwise a fresh load
+    private List<CompiledCommandList> withCommands(Set<Long> commandListIds, List<CompiledCommandList> lists) {
+        for (CompiledCommandList list : lists) {
+            if (!list.hasCommands()) {
+                return commandListCache.loadLists(commandListIds);
+            }
+        }
+        return lists;
+    }
+
+    private void scheduleRebuild(Set<Long> commandListIds) {
+        if (!pendingRebuilds.add(commandListIds)) {
+            return;
+        }
+        rebuildExecutor.execute(() -> {
+            try {
+                List<CompiledCommandList> lists = withCommands(commandListIds, commandListCache.getLists(commandListIds));
+                Set<String> key = new TreeSet<>();
+                for (CompiledCommandList list : lists) {
+                    key.add(list.versionKey());
+                }
+                synchronized (this) {
+                    export(commandListIds, lists, String.join(",", key));
+                }
+            } catch (RuntimeException e) {
+                System.out.println("Command dictionary rebuild failed for lists " + commandListIds + ": " + e.getMessage());
+            } finally {
+                pendingRebuilds.remove(commandListIds);
+            }
+        });
+    }
+
+    /**
+     * Compile the lists, write the dictionary file and swap the mapping in
+     * The file is written under a temporary name and moved into place, so readers never see a partial file.
+     * The replaced mapping is closed and the lists' cached command strings are dropped.
+     */
+    private void export(Set<Long> commandListIds,
+                                           List<CompiledCommandList> lists,
+                                           String versionKey) {
+        try {
+            Files.createDirectories(dictionaryDirectory);
+            CommandMatcher matcher = compile(lists);
+            Path tempFile = Files.createTempFile(dictionaryDirectory, "commands-", ".tmp");
+            matcher.writeTo(tempFile);
+            Path file = dictionaryDirectory.resolve("commands-" + UUID.randomUUID() + ".dict");
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+
+            MappedCommandDictionary dictionary = MappedCommandDictionary.open(file, versionKey);
+            MappedDictionaryHandle handle = mappedDictionaries.get(commandListIds);
+            MappedCommandDictionary previous = null;
+            if (handle == null) {
+                mappedDictionaries.put(commandListIds, new MappedDictionaryHandle(dictionary));
+            } else {
+                previous = handle.swap(dictionary);
+            }
+            System.out.println("Mapped command dictionary for lists " + versionKey + ": " + dictionary);
+            commandListCache.dropCommands(lists);
+            if (previous != null) {
+                previous.close();
+                // Existing mappings stay valid after the file is unlinked
+                Files.deleteIfExists(previous.getFile());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to export command dictionary for lists " + commandListIds, e);
+        }
+    }
+
+    private CommandMatcher compile(List<CompiledCommandList> lists) {
+        Set<String> blacklisted = new HashSet<>();
+        Set<String> whitelisted = new HashSet<>();
+        for (CompiledCommandList list : lists) {
+            if (list.isBlacklist()) {
+                blacklisted.addAll(list.getCommands());
+            } else if (list.isWhitelist()) {
+                whitelisted.addAll(list.getCommands());
+            }
+        }
+        return new CommandMatcher(blacklisted, whitelisted);
+    }
+
+    /**
+     * Evict all compiled matchers (command list items changed)
+     * Mapped dictionaries are not evicted; they detect the new list versions and rebuild in the background.
+     */
+    @CacheEvict(value = "commandMatcherCache", allEntries = true)
+    public void evictAll() {
+        // Cache eviction handled by annotation
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+        for (MappedDictionaryHandle handle : mappedDictionaries.values()) {
+            MappedCommandDictionary dictionary = handle.current;
+            dictionary.close();
+            try {
+                Files.deleteIfExists(dictionary.getFile());
+            } catch (IOException e) {
+                System.out.println("Failed to delete command dictionary " + dictionary.getFile() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * MappedDictionaryHandle - Stable dictionary for one set of command list ids
+     * Rebuilds swap the mapping underneath, so facts and cached subject classes holding the
+     * handle never keep checking against a replaced file.
+     */
+    private static final class MappedDictionaryHandle implements CommandDictionary {
+
+        private volatile MappedCommandDictionary current;
+
+        private MappedDictionaryHandle(MappedCommandDictionary current) {
+            this.current = current;
+        }
+
+        private MappedCommandDictionary swap(MappedCommandDictionary replacement) {
+            MappedCommandDictionary previous = current;
+            current = replacement;
+            return previous;
+        }
+
+        private String getVersionKey() {
+            return current.getVersionKey();
+        }
+
+        @Override
+        public boolean isBlocked(String command) {
+            while (true) {
+                MappedCommandDictionary dictionary = current;
+                if (dictionary.retain()) {
+                    try {
+                        return dictionary.isBlocked(command);
+                    } finally {
+                        dictionary.release();
+                    }
+                }
+                if (current == dictionary) {
+                    throw new RuntimeException("Command dictionary is closed: " + dictionary.getFile());
+                }
+                // Closed after a swap; the replacement is already published
+            }
+        }
+
+        @Override
+        public Set<String> getBlacklistedCommands() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Set<String> getWhitelistedCommands() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public String toString() {
+            return current.toString();
+        }
+    }
+}
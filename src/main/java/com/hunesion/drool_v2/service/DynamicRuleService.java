@@ -13,9 +13,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -35,6 +38,8 @@ public class DynamicRuleService {
     private final KieServices kieServices;
     private volatile KieContainer kieContainer;
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Bumped after every successful rebuild so evaluation contexts built from older rules can be detected
+    private final AtomicLong rulesVersion = new AtomicLong();
 
     private static final String STATIC_RULES_PATH = "rules/";
     private static final String DYNAMIC_RULES_PATH = "src/main/resources/rules/dynamic/";
@@ -97,12 +102,38 @@ public class DynamicRuleService {
                     kieBuilder.getKieModule().getReleaseId()
             );
 
+            rulesVersion.incrementAndGet();
+            bumpVersionAfterCommit();
             System.out.println("✓ Rules rebuilt successfully");
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    /**
+     * Callers rebuild inside their write transaction. Until it commits, other threads still read
+     * the old rows and may cache what they build from them under the new version, so the version
+     * is bumped again once the change is visible.
+     */
+    private void bumpVersionAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rulesVersion.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * Version of the current rules, incremented on every rebuild (policy or assignment change)
+     * and again when the rebuilding transaction commits
+     */
+    public long getRulesVersion() {
+        return rulesVersion.get();
+    }
+
     private void loadStaticRules(KieFileSystem kieFileSystem) {
         try {
             PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
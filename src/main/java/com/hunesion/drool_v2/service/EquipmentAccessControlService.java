@@ -5,10 +5,14 @@ import com.hunesion.drool_v2.dto.EquipmentAccessResponseDTO;
 import com.hunesion.drool_v2.model.EquipmentAccessRequest;
 import com.hunesion.drool_v2.model.EquipmentAccessResult;
 import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * EquipmentAccessControlService - Evaluates equipment access using Drools
@@ -18,19 +22,31 @@ public class EquipmentAccessControlService {
 
     private final PolicyFactLoader factLoader;
     private final DynamicRuleService dynamicRuleService;
+    private final LoginAttemptTracker loginAttemptTracker;
+    private final NegativeLookupCache negativeLookupCache;
 
     @Autowired
     public EquipmentAccessControlService(
             PolicyFactLoader factLoader,
-            DynamicRuleService dynamicRuleService) {
+            DynamicRuleService dynamicRuleService,
+            LoginAttemptTracker loginAttemptTracker,
+            NegativeLookupCache negativeLookupCache) {
         this.factLoader = factLoader;
         this.dynamicRuleService = dynamicRuleService;
+        this.loginAttemptTracker = loginAttemptTracker;
+        this.negativeLookupCache = negativeLookupCache;
     }
 
     /**
      * Check equipment access for a user
      */
     public EquipmentAccessResponseDTO checkAccess(EquipmentAccessRequestDTO requestDto) {
+        // Unknown users and unknown or deleted equipment are rejected without loading anything
+        EquipmentAccessResult unknown = unknownSubjectResult(requestDto.getUsername(), requestDto.getEquipmentId());
+        if (unknown != null) {
+            return toResponse(unknown);
+        }
+
         // Load policy data into fact
         EquipmentAccessRequest request = factLoader.loadPoliciesIntoFact(
                 requestDto.getUsername(),
@@ -38,6 +54,119 @@ public class EquipmentAccessControlService {
         );
 
         // Set request-specific data
+        applyRequestData(request, requestDto);
+
+        // The loader records equipment it could not find; locked-out users and client IPs
+        // are denied before any rule runs
+        EquipmentAccessResult result = unknownSubjectResult(request.getUsername(), request.getEquipmentId());
+        if (result == null) {
+            result = lockedOutResult(request);
+        }
+        if (result == null) {
+            // Evaluate using Drools
+            result = evaluateAccess(request);
+        }
+
+        // Convert to DTO
+        EquipmentAccessResponseDTO response = toResponse(result);
+
+        return response;
+    }
+
+    /**
+     * Check equipment access for a batch of requests
+     * Users, equipment contexts and policy aggregations are shared across the batch, and all items
+     * are evaluated in a single KieSession. Responses are returned in request order.
+     */
+    public List<EquipmentAccessResponseDTO> checkAccessBatch(List<EquipmentAccessRequestDTO> requestDtos) {
+        // Items with unknown users or equipment are rejected up front and not loaded
+        EquipmentAccessResult[] rejected = new EquipmentAccessResult[requestDtos.size()];
+        List<Integer> loadedIndexes = new ArrayList<>(requestDtos.size());
+        List<String> usernames = new ArrayList<>(requestDtos.size());
+        List<Long> equipmentIds = new ArrayList<>(requestDtos.size());
+        for (int i = 0; i < requestDtos.size(); i++) {
+            EquipmentAccessRequestDTO requestDto = requestDtos.get(i);
+            rejected[i] = unknownSubjectResult(requestDto.getUsername(), requestDto.getEquipmentId());
+            if (rejected[i] == null) {
+                loadedIndexes.add(i);
+                usernames.add(requestDto.getUsername());
+                equipmentIds.add(requestDto.getEquipmentId());
+            }
+        }
+
+        // Load policy data into facts
+        List<EquipmentAccessRequest> loaded = factLoader.loadPoliciesIntoFacts(usernames, equipmentIds);
+        EquipmentAccessRequest[] requests = new EquipmentAccessRequest[requestDtos.size()];
+        for (int j = 0; j < loadedIndexes.size(); j++) {
+            requests[loadedIndexes.get(j)] = loaded.get(j);
+        }
+
+        List<EquipmentAccessRequest> evaluable = new ArrayList<>();
+        for (int i = 0; i < requestDtos.size(); i++) {
+            EquipmentAccessRequest request = requests[i];
+            if (rejected[i] != null) {
+                continue;
+            }
+            if (request == null) {
+                rejected[i] = new EquipmentAccessResult();
+                rejected[i].deny("User Not Found", "User does not exist: " + requestDtos.get(i).getUsername());
+                continue;
+            }
+            applyRequestData(request, requestDtos.get(i));
+            rejected[i] = unknownSubjectResult(request.getUsername(), request.getEquipmentId());
+            if (rejected[i] == null) {
+                rejected[i] = lockedOutResult(request);
+            }
+            if (rejected[i] == null) {
+                evaluable.add(request);
+            }
+        }
+        Iterator<EquipmentAccessResult> evaluated = evaluateFacts(evaluable).iterator();
+
+        List<EquipmentAccessResponseDTO> responses = new ArrayList<>(requestDtos.size());
+        for (int i = 0; i < requestDtos.size(); i++) {
+            responses.add(toResponse(rejected[i] != null ? rejected[i] : evaluated.next()));
+        }
+
+        System.out.println("Equipment access batch evaluated: " + requestDtos.size() + " items");
+        return responses;
+    }
+
+    /**
+     * Evaluate prepared request facts in a single KieSession
+     * Results are returned in the same order as the facts.
+     */
+    public List<EquipmentAccessResult> evaluateFacts(List<EquipmentAccessRequest> requests) {
+        List<EquipmentAccessResult> results = new ArrayList<>(requests.size());
+        KieSession kieSession = dynamicRuleService.newKieSession();
+        try {
+            for (EquipmentAccessRequest request : requests) {
+                EquipmentAccessResult result = new EquipmentAccessResult();
+
+                // Rules only match an unevaluated result, so each item is inserted, fired
+                // and retracted before the next one enters the session
+                FactHandle requestHandle = kieSession.insert(request);
+                FactHandle resultHandle = kieSession.insert(result);
+                kieSession.fireAllRules();
+                kieSession.delete(requestHandle);
+                kieSession.delete(resultHandle);
+
+                // If no rules matched, deny by default
+                if (!result.isEvaluated()) {
+                    result.deny("No Policy Match", "No matching policy found for this equipment access");
+                }
+                results.add(result);
+            }
+        } finally {
+            kieSession.dispose();
+        }
+        return results;
+    }
+
+    /**
+     * Copy request-specific data from the DTO onto the fact
+     */
+    private void applyRequestData(EquipmentAccessRequest request, EquipmentAccessRequestDTO requestDto) {
         request.setProtocol(requestDto.getProtocol());
         request.setDbmsType(requestDto.getDbmsType());
         request.setCommand(requestDto.getCommand());
@@ -45,20 +174,59 @@ public class EquipmentAccessControlService {
 
         // Set request time - use provided time or default to current time
         // This ensures time-based policy checks work correctly
-        request.setRequestTime(requestDto.getRequestTime() != null 
-                ? requestDto.getRequestTime() 
+        request.setRequestTime(requestDto.getRequestTime() != null
+                ? requestDto.getRequestTime()
                 : LocalDateTime.now());
+    }
+
+    /**
+     * Load the policy data and apply the request data for a DTO, without evaluating it
+     */
+    public EquipmentAccessRequest prepareFact(EquipmentAccessRequestDTO requestDto) {
+        EquipmentAccessRequest request = factLoader.loadPoliciesIntoFact(
+                requestDto.getUsername(),
+                requestDto.getEquipmentId()
+        );
+        applyRequestData(request, requestDto);
+        return request;
+    }
 
-        // Evaluate using Drools
-        EquipmentAccessResult result = evaluateAccess(request);
+    /**
+     * Denial result if the user or the equipment is known not to exist, otherwise null
+     * Answered from NegativeLookupCache; only a Bloom filter miss not yet remembered costs an
+     * existence query.
+     */
+    public EquipmentAccessResult unknownSubjectResult(String username, Long equipmentId) {
+        EquipmentAccessResult result = null;
+        if (negativeLookupCache.isUnknownUser(username)) {
+            result = new EquipmentAccessResult();
+            result.deny("User Not Found", "User does not exist: " + username);
+        } else if (negativeLookupCache.isUnknownEquipment(equipmentId)) {
+            result = new EquipmentAccessResult();
+            result.deny("Equipment Not Found", "Equipment does not exist or was deleted: " + equipmentId);
+        }
+        return result;
+    }
 
-        // Convert to DTO
+    /**
+     * Denial result if the user or client IP is locked out after repeated login failures, otherwise null
+     */
+    public EquipmentAccessResult lockedOutResult(EquipmentAccessRequest request) {
+        if (!loginAttemptTracker.isLocked(request.getUsername(), request.getClientIp())) {
+            return null;
+        }
+        EquipmentAccessResult result = new EquipmentAccessResult();
+        result.deny("Account Locked", "Too many failed login attempts for user " + request.getUsername()
+                + (request.getClientIp() != null ? " or client IP " + request.getClientIp() : ""));
+        return result;
+    }
+
+    private EquipmentAccessResponseDTO toResponse(EquipmentAccessResult result) {
         EquipmentAccessResponseDTO response = new EquipmentAccessResponseDTO();
         response.setAllowed(result.isAllowed());
         response.setMatchedPolicyName(result.getMatchedPolicyName());
         response.setDenialReason(result.getDenialReason());
         response.setDenialCode(result.getDenialCode());
-
         return response;
     }
 
@@ -0,0 +1,226 @@
+package com.hunesion.drool_v2.service;
+
+import com.hunesion.drool_v2.model.EquipmentContext;
+import com.hunesion.drool_v2.model.entity.Account;
+import com.hunesion.drool_v2.model.entity.Equipment;
+import com.hunesion.drool_v2.model.entity.EquipmentPolicy;
+import com.hunesion.drool_v2.repository.AccountRepository;
+import com.hunesion.drool_v2.repository.EquipmentPolicyRepository;
+import com.hunesion.drool_v2.repository.EquipmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * EquipmentContextCache - Caches the equipment side of policy evaluation per equipment
+ * A handful of jump hosts receive most of the traffic, so the snapshot is rebuilt only
+ * when the equipment, its accounts or its policy assignments change. Eviction runs after
+ * commit so a concurrent reader cannot re-cache the pre-change assignments.
+ */
+@Service
+public class EquipmentContextCache {
+
+    private final EquipmentRepository equipmentRepository;
+    private final AccountRepository accountRepository;
+    private final EquipmentPolicyRepository policyRepository;
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public EquipmentContextCache(
+            EquipmentRepository equipmentRepository,
+            AccountRepository accountRepository,
+            EquipmentPolicyRepository policyRepository,
+            CacheManager cacheManager) {
+        this.equipmentRepository = equipmentRepository;
+        this.accountRepository = accountRepository;
+        this.policyRepository = policyRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Build and cache the equipment context
+     * Cache key: equipment ID (unknown equipment is not cached)
+     *
+     * @param equipmentId The equipment ID
+     * @return Immutable equipment context, or null if the equipment does not exist
+     */
+    @Cacheable(value = "equipmentContextCache", key = "#equipmentId", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public EquipmentContext getContext(Long equipmentId) {
+        Equipment equipment = equipmentRepository.findById(equipmentId).orElse(null);
+        if (equipment == null) {
+            return null;
+        }
+
+        // Account types available on the equipment and the policies assigned to them
+        Map<Long, Set<Long>> policyIdsByAccountType = new HashMap<>();
+        List<Account> accounts = accountRepository.findByEquipmentIdAndActiveTrue(equipmentId);
+        for (Account account : accounts) {
+            if (account.getAccountType() != null) {
+                policyIdsByAccountType.computeIfAbsent(account.getAccountType().getId(), typeId -> {
+                    Set<Long> ids = new HashSet<>();
+                    policyRepository.findAssignedToAccountType(typeId).forEach(p -> ids.add(p.getId()));
+                    return ids;
+                });
+            }
+        }
+
+        Set<Long> equipmentPolicyIds = new HashSet<>();
+        for (EquipmentPolicy policy : policyRepository.findAssignedToEquipment(equipmentId)) {
+            equipmentPolicyIds.add(policy.getId());
+        }
+
+        EquipmentContext context = buildContext(equipment, accounts, equipmentPolicyIds, policyIdsByAccountType);
+        System.out.println("Built equipment context: " + context);
+        return context;
+    }
+
+    /**
+     * Get contexts for many equipment items at once (batch checks, accessible-equipment listing)
+     * Cached contexts are reused; the misses are built with one query each for equipment, accounts,
+     * equipment assignments and account type assignments, then written back to the cache.
+     * Unknown equipment ids are absent from the result.
+     *
+     * @param equipmentIds The equipment IDs
+     * @return Contexts keyed by equipment ID
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, EquipmentContext> getContexts(Collection<Long> equipmentIds) {
+        Map<Long, EquipmentContext> contexts = new HashMap<>();
+        Cache cache = cacheManager.getCache("equipmentContextCache");
+        Set<Long> missing = new HashSet<>();
+        for (Long equipmentId : equipmentIds) {
+            EquipmentContext cached = cache != null ? cache.get(equipmentId, EquipmentContext.class) : null;
+            if (cached != null) {
+                contexts.put(equipmentId, cached);
+            } else if (equipmentId != null) {
+                missing.add(equipmentId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return contexts;
+        }
+
+        List<Equipment> equipmentList = equipmentRepository.findAllById(missing);
+
+        Map<Long, List<Account>> accountsByEquipment = new HashMap<>();
+        Set<Long> accountTypeIds = new HashSet<>();
+        for (Account account : accountRepository.findActiveByEquipmentIds(missing)) {
+            accountsByEquipment.computeIfAbsent(account.getEquipment().getId(), id -> new ArrayList<>()).add(account);
+            if (account.getAccountType() != null) {
+                accountTypeIds.add(account.getAccountType().getId());
+            }
+        }
+
+        Map<Long, Set<Long>> equipmentPolicyIds = groupRows(policyRepository.findEquipmentAssignmentRows(missing));
+        Map<Long, Set<Long>> policyIdsByAccountType = accountTypeIds.isEmpty()
+                ? new HashMap<>()
+                : groupRows(policyRepository.findAccountTypeAssignmentRows(accountTypeIds));
+
+        for (Equipment equipment : equipmentList) {
+            EquipmentContext context = buildContext(
+                    equipment,
+                    accountsByEquipment.getOrDefault(equipment.getId(), Collections.emptyList()),
+                    equipmentPolicyIds.getOrDefault(equipment.getId(), Collections.emptySet()),
+                    policyIdsByAccountType);
+            contexts.put(equipment.getId(), context);
+            if (cache != null) {
+                cache.put(equipment.getId(), context);
+            }
+        }
+        System.out.println("Built " + equipmentList.size() + " equipment contexts in bulk (" +
+                (equipmentIds.size() - missing.size()) + " cached)");
+        return contexts;
+    }
+
+    private EquipmentContext buildContext(Equipment equipment,
+                                          List<Account> accounts,
+                                          Set<Long> equipmentPolicyIds,
+                                          Map<Long, Set<Long>> policyIdsByAccountType) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("deviceType", equipment.getDeviceType());
+        attributes.put("deviceName", equipment.getDeviceName());
+        attributes.put("hostName", equipment.getHostName());
+        attributes.put("ipAddress", equipment.getIpAddress());
+        attributes.put("protocol", equipment.getProtocol());
+        attributes.put("port", equipment.getPort() != null ? equipment.getPort().toString() : null);
+
+        Set<String> accountTypeCodes = new HashSet<>();
+        Set<Long> accountTypePolicyIds = new HashSet<>();
+        for (Account account : accounts) {
+            if (account.getAccountType() == null) {
+                continue;
+            }
+            accountTypeCodes.add(account.getAccountType().getTypeCode());
+            accountTypePolicyIds.addAll(policyIdsByAccountType.getOrDefault(account.getAccountType().getId(), Collections.emptySet()));
+        }
+
+        return new EquipmentContext(
+                equipment.getId(),
+                equipment.getDeviceName(),
+                equipment.getProtocol(),
+                attributes,
+                accountTypeCodes,
+                equipmentPolicyIds,
+                accountTypePolicyIds
+        );
+    }
+
+    // Group (key, policy_id) rows into key -> policy ids
+    private Map<Long, Set<Long>> groupRows(List<Object[]> rows) {
+        Map<Long, Set<Long>> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            grouped.computeIfAbsent(((Number) row[0]).longValue(), key -> new HashSet<>())
+                    .add(((Number) row[1]).longValue());
+        }
+        return grouped;
+    }
+
+    /**
+     * Evict cache when the equipment, its accounts or its equipment assignments change
+     *
+     * @param equipmentId The equipment ID to evict from cache
+     */
+    public void evictEquipment(Long equipmentId) {
+        if (equipmentId != null) {
+            afterCommit(() -> {
+                Cache cache = cacheManager.getCache("equipmentContextCache");
+                if (cache != null) {
+                    cache.evict(equipmentId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Evict all equipment contexts (account type assignments or policy enable flags changed)
+     */
+    public void evictAllEquipment() {
+        afterCommit(() -> {
+            Cache cache = cacheManager.getCache("equipmentContextCache");
+            if (cache != null) {
+                cache.clear();
+            }
+        });
+    }
+
+    private void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
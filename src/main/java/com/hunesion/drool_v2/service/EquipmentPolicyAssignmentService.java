@@ -23,6 +23,7 @@ public class EquipmentPolicyAssignmentService {
     private final UserTypeRepository userTypeRepository;
     private final AccountTypeRepository accountTypeRepository;
     private final DynamicRuleService dynamicRuleService;
+    private final EquipmentContextCache equipmentContextCache;
 
     @Autowired
     public EquipmentPolicyAssignmentService(
@@ -33,7 +34,8 @@ public class EquipmentPolicyAssignmentService {
             RoleRepository roleRepository,
             UserTypeRepository userTypeRepository,
             AccountTypeRepository accountTypeRepository,
-            DynamicRuleService dynamicRuleService) {
+            DynamicRuleService dynamicRuleService,
+            EquipmentContextCache equipmentContextCache) {
         this.policyRepository = policyRepository;
         this.userRepository = userRepository;
         this.groupRepository = groupRepository;
@@ -42,6 +44,7 @@ public class EquipmentPolicyAssignmentService {
         this.userTypeRepository = userTypeRepository;
         this.accountTypeRepository = accountTypeRepository;
         this.dynamicRuleService = dynamicRuleService;
+        this.equipmentContextCache = equipmentContextCache;
     }
 
     // ========== USER ASSIGNMENTS ==========
@@ -202,6 +205,7 @@ public class EquipmentPolicyAssignmentService {
         });
         
         policyRepository.save(policy);
+        equipmentIds.forEach(equipmentContextCache::evictEquipment);
         dynamicRuleService.rebuildRules();
     }
 
@@ -214,6 +218,7 @@ public class EquipmentPolicyAssignmentService {
         );
         
         policyRepository.save(policy);
+        equipmentIds.forEach(equipmentContextCache::evictEquipment);
         dynamicRuleService.rebuildRules();
     }
 
@@ -236,6 +241,8 @@ public class EquipmentPolicyAssignmentService {
         });
         
         policyRepository.save(policy);
+        // Previously assigned equipment is not known here, so drop every context
+        equipmentContextCache.evictAllEquipment();
         dynamicRuleService.rebuildRules();
     }
 
@@ -394,6 +401,7 @@ public class EquipmentPolicyAssignmentService {
         });
         
         policyRepository.save(policy);
+        equipmentContextCache.evictAllEquipment();
         dynamicRuleService.rebuildRules();
     }
 
@@ -406,6 +414,7 @@ public class EquipmentPolicyAssignmentService {
         );
         
         policyRepository.save(policy);
+        equipmentContextCache.evictAllEquipment();
         dynamicRuleService.rebuildRules();
     }
 
@@ -428,6 +437,7 @@ public class EquipmentPolicyAssignmentService {
         });
         
         policyRepository.save(policy);
+        equipmentContextCache.evictAllEquipment();
         dynamicRuleService.rebuildRules();
     }
 
@@ -1,5 +1,6 @@
 package com.hunesion.drool_v2.service;
 
+import com.hunesion.drool_v2.model.PolicyConfig;
 import com.hunesion.drool_v2.model.entity.EquipmentPolicy;
 import com.hunesion.drool_v2.repository.EquipmentPolicyRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -73,25 +74,22 @@ public class EquipmentPolicyRuleGenerator {
 
         String policyConfigJson = policy.getPolicyConfig();
         if (policyConfigJson != null && !policyConfigJson.isEmpty()) {
-            // Use cached JSONB config parsing
-            Map<String, Object> config = policyConfigCache.getParsedConfig(
-                policy.getId(),
-                policyConfigJson
-            );
+            // Typed config, parsed once per policy version
+            PolicyConfig config = policyConfigCache.getTypedConfig(policy);
 
             // Generate conditions based on policy type
             switch (typeCode) {
                 case "commonSettings":
-                    generateCommonSettingsConditions(conditions, config);
+                    generateCommonSettingsConditions(conditions, config.getCommonSettings());
                     break;
                 case "allowedTime":
                     generateAllowedTimeConditions(conditions);
                     break;
                 case "loginControl":
-                    generateLoginControlConditions(conditions, config);
+                    generateLoginControlConditions(conditions, config.getLoginControl());
                     break;
                 case "commandSettings":
-                    generateCommandSettingsConditions(conditions, config);
+                    generateCommandSettingsConditions(conditions, config.getCommandSettings());
                     break;
                 default:
                     // Unknown type - no conditions
@@ -99,7 +97,7 @@ public class EquipmentPolicyRuleGenerator {
             }
 
             // Always check customConditions if present (can be in any policy type)
-            generateCustomConditions(conditions, config);
+            generateCustomConditions(conditions, config.getCustomConditions());
         }
 
         drl.append(conditions);
@@ -122,28 +120,36 @@ public class EquipmentPolicyRuleGenerator {
         return drl.toString();
     }
 
-    private void generateCommonSettingsConditions(StringBuilder conditions, Map<String, Object> config) {
-        @SuppressWarnings("unchecked")
-        Map<String, Object> commonSettings = (Map<String, Object>) config.get("commonSettings");
+    private void generateCommonSettingsConditions(StringBuilder conditions, PolicyConfig.CommonSettings commonSettings) {
         if (commonSettings != null) {
-            @SuppressWarnings("unchecked")
-            List<String> protocols = (List<String>) commonSettings.get("allowedProtocols");
-            if (protocols != null && !protocols.isEmpty()) {
+            Set<String> protocols = commonSettings.getAllowedProtocols();
+            if (!protocols.isEmpty()) {
                 String protocolCheck = protocols.stream()
                         .map(p -> "hasProtocol(\"" + p + "\")")
                         .collect(Collectors.joining(" || "));
                 conditions.append("            , (").append(protocolCheck).append(")\n");
             }
 
-            @SuppressWarnings("unchecked")
-            List<String> dbms = (List<String>) commonSettings.get("allowedDbms");
-            if (dbms != null && !dbms.isEmpty()) {
+            Set<String> dbms = commonSettings.getAllowedDbms();
+            if (!dbms.isEmpty()) {
                 String dbmsCheck = dbms.stream()
                         .map(d -> "hasDbmsType(\"" + d + "\")")
                         .collect(Collectors.joining(" || "));
                 // dbmsType == null means request is not a DB request (e.g., SSH), so skip DBMS check
                 conditions.append("            , (dbmsType == null || ").append(dbmsCheck).append(")\n");
             }
+
+            // Session limits only apply to requests for that protocol
+            appendSessionLimit(conditions, "SSH", commonSettings.getMaxSshSessions());
+            appendSessionLimit(conditions, "RDP", commonSettings.getMaxRdpSessions());
+            appendSessionLimit(conditions, "TELNET", commonSettings.getMaxTelnetSessions());
+        }
+    }
+
+    private void appendSessionLimit(StringBuilder conditions, String protocol, Integer maxSessions) {
+        if (maxSessions != null) {
+            conditions.append("            , !(hasProtocol(\"").append(protocol).append("\") && exceedsMaxSessions(\"")
+                    .append(protocol).append("\", ").append(maxSessions).append("))\n");
         }
     }
 
@@ -153,45 +159,24 @@ public class EquipmentPolicyRuleGenerator {
         conditions.append("            , isWithinAllowedTime()\n");
     }
 
-    private void generateLoginControlConditions(StringBuilder conditions, Map<String, Object> config) {
-        @SuppressWarnings("unchecked")
-        Map<String, Object> loginControl = (Map<String, Object>) config.get("loginControl");
-        if (loginControl != null) {
-            String ipFilteringType = (String) loginControl.get("ipFilteringType");
-            if (ipFilteringType != null && !"no_restrictions".equals(ipFilteringType)) {
-                conditions.append("            , isIpAllowed(clientIp)\n");
-            }
+    private void generateLoginControlConditions(StringBuilder conditions, PolicyConfig.LoginControl loginControl) {
+        if (loginControl != null && loginControl.restrictsIps()) {
+            conditions.append("            , isIpAllowed(clientIp)\n");
         }
     }
 
-    private void generateCommandSettingsConditions(StringBuilder conditions, Map<String, Object> config) {
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> commandSettings = (List<Map<String, Object>>) config.get("commandSettings");
-        if (commandSettings != null && !commandSettings.isEmpty()) {
-            for (Map<String, Object> cmdSetting : commandSettings) {
-                String controlMethod = (String) cmdSetting.get("controlMethod");
-                if ("blacklist".equals(controlMethod)) {
-                    conditions.append("            , !isCommandBlocked(command)\n");
-                }
-            }
+    private void generateCommandSettingsConditions(StringBuilder conditions, PolicyConfig.CommandSettings commandSettings) {
+        if (commandSettings != null && commandSettings.isBlacklist()) {
+            conditions.append("            , !isCommandBlocked(command)\n");
         }
     }
 
-    private void generateCustomConditions(StringBuilder conditions, Map<String, Object> config) {
-        @SuppressWarnings("unchecked")
-        Map<String, Object> customConditions = (Map<String, Object>) config.get("customConditions");
-        if (customConditions != null) {
-            for (Map.Entry<String, Object> entry : customConditions.entrySet()) {
-                String attribute = entry.getKey();
-                @SuppressWarnings("unchecked")
-                Map<String, String> condition = (Map<String, String>) entry.getValue();
-                String operator = condition.get("operator");
-                String value = condition.get("value");
-
-                String conditionStr = buildConditionFromJson(attribute, operator, value);
-                if (conditionStr != null) {
-                    conditions.append("            , ").append(conditionStr).append("\n");
-                }
+    private void generateCustomConditions(StringBuilder conditions, List<PolicyConfig.CustomCondition> customConditions) {
+        for (PolicyConfig.CustomCondition condition : customConditions) {
+            String conditionStr = buildConditionFromJson(
+                    condition.getAttribute(), condition.getOperator(), condition.getValue());
+            if (conditionStr != null) {
+                conditions.append("            , ").append(conditionStr).append("\n");
             }
         }
     }
@@ -28,6 +28,11 @@ public class EquipmentPolicyService {
     private final ObjectMapper objectMapper;
     private final PolicyConfigCache policyConfigCache;
     private final PolicyTypeRepository policyTypeRepository;
+    private final EquipmentContextCache equipmentContextCache;
+    private final PolicyActivationCalendar activationCalendar;
+    private final AuthorizationGraph authorizationGraph;
+    private final WorkGroupIndex workGroupIndex;
+    private final PolicyGroupMembershipCache policyGroupMembershipCache;
 
     @Autowired
     public EquipmentPolicyService(
@@ -40,7 +45,12 @@ public class EquipmentPolicyService {
             DynamicRuleService dynamicRuleService,
             ObjectMapper objectMapper,
             PolicyConfigCache policyConfigCache,
-            PolicyTypeRepository policyTypeRepository) {
+            PolicyTypeRepository policyTypeRepository,
+            EquipmentContextCache equipmentContextCache,
+            PolicyActivationCalendar activationCalendar,
+            AuthorizationGraph authorizationGraph,
+            WorkGroupIndex workGroupIndex,
+            PolicyGroupMembershipCache policyGroupMembershipCache) {
         this.policyRepository = policyRepository;
         this.userRepository = userRepository;
         this.groupRepository = groupRepository;
@@ -51,6 +61,11 @@ public class EquipmentPolicyService {
         this.objectMapper = objectMapper;
         this.policyConfigCache = policyConfigCache;
         this.policyTypeRepository = policyTypeRepository;
+        this.equipmentContextCache = equipmentContextCache;
+        this.activationCalendar = activationCalendar;
+        this.authorizationGraph = authorizationGraph;
+        this.workGroupIndex = workGroupIndex;
+        this.policyGroupMembershipCache = policyGroupMembershipCache;
     }
 
     public List<EquipmentPolicy> getAllPolicies() {
@@ -66,6 +81,19 @@ public class EquipmentPolicyService {
                 .orElseThrow(() -> new RuntimeException("Policy not found with id: " + id));
     }
 
+    /**
+     * Ids of all users a policy is assigned to, directly or through user groups, roles, user type,
+     * policy groups or work groups. Disabled policies cover no users.
+     */
+    public long[] getCoveredUserIds(Long id) {
+        getPolicyById(id);
+        AuthorizationGraph.Snapshot graph = authorizationGraph.awaitCurrent();
+        if (graph == null) {
+            throw new RuntimeException("Authorization graph is not available");
+        }
+        return graph.usersCoveredByPolicy(id);
+    }
+
     @Transactional
     public EquipmentPolicy createPolicy(EquipmentPolicyDTO dto) {
         if (policyRepository.existsByPolicyName(dto.getPolicyName())) {
@@ -87,6 +115,7 @@ public class EquipmentPolicyService {
         policy.setPolicyConfig(policyConfigJson);
         
         EquipmentPolicy saved = policyRepository.save(policy);
+        activationCalendar.refreshPolicy(saved);
 
         // Note: Assignments are now managed via separate endpoints
         // /api/equipment-policies/{id}/assignments/*
@@ -134,8 +163,14 @@ public class EquipmentPolicyService {
         // Note: Assignments are now managed via separate endpoints
         // /api/equipment-policies/{id}/assignments/*
 
-        // Evict cache for this policy
-        policyConfigCache.evictPolicyConfig(id);
+        // No config cache eviction needed: the update bumps versionNo
+        // Start/end dates may have changed
+        activationCalendar.refreshPolicy(saved);
+        // Equipment contexts, work group catalogs and policy group members only hold enabled policies,
+        // and the enabled flag may have changed
+        equipmentContextCache.evictAllEquipment();
+        workGroupIndex.policyChanged(id);
+        policyGroupMembershipCache.policyChanged(id);
 
         // Rebuild Drools rules
         dynamicRuleService.rebuildRules();
@@ -146,6 +181,11 @@ public class EquipmentPolicyService {
     @Transactional
     public void deletePolicy(Long id) {
         policyRepository.deleteById(id);
+        policyConfigCache.evictPolicyConfig(id);
+        activationCalendar.removePolicy(id);
+        equipmentContextCache.evictAllEquipment();
+        workGroupIndex.policyChanged(id);
+        policyGroupMembershipCache.policyChanged(id);
         dynamicRuleService.rebuildRules();
     }
 
@@ -154,6 +194,9 @@ public class EquipmentPolicyService {
         EquipmentPolicy policy = getPolicyById(id);
         policy.setEnabled(enabled);
         EquipmentPolicy saved = policyRepository.save(policy);
+        equipmentContextCache.evictAllEquipment();
+        workGroupIndex.policyChanged(id);
+        policyGroupMembershipCache.policyChanged(id);
         dynamicRuleService.rebuildRules();
         return saved;
     }
@@ -289,6 +332,10 @@ public class EquipmentPolicyService {
                     slot.put("dayOfWeek", ts.getDayOfWeek());
                     slot.put("hourStart", ts.getHourStart());
                     slot.put("hourEnd", ts.getHourEnd());
+                    if (ts.getStartTime() != null && ts.getEndTime() != null) {
+                        slot.put("startTime", ts.getStartTime());
+                        slot.put("endTime", ts.getEndTime());
+                    }
                     return slot;
                 })
                 .collect(Collectors.toList()));
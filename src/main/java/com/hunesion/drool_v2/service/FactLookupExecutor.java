@@ -0,0 +1,129 @@
+package com.hunesion.drool_v2.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * FactLookupExecutor - Runs the independent lookups of a policy check on virtual threads
+ * Each lookup gets its own read-only transaction (and therefore its own connection). One semaphore
+ * shared by all requests caps how many lookups run at once, and is never sized above half the
+ * connection pool so a burst of checks cannot drain it. In parallel mode the request itself holds
+ * no transaction while it waits for its lookups; its own database steps run in short transactions.
+ * When disabled, lookups run inline on the calling thread inside one request transaction.
+ */
+@Service
+public class FactLookupExecutor {
+
+    private final boolean parallel;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+
+    @Autowired
+    public FactLookupExecutor(
+            PlatformTransactionManager transactionManager,
+            @Value("${policy.fact-loader.parallel:false}") boolean parallel,
+            @Value("${policy.fact-loader.max-concurrency:3}") int maxConcurrency,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.parallel = parallel;
+        // Leave at least half of the pool to request threads and everything else
+        this.maxConcurrency = Math.max(1, Math.min(maxConcurrency, poolSize / 2));
+        this.permits = new Semaphore(this.maxConcurrency);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.executor = parallel ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        System.out.println("Fact lookup mode: " + (parallel
+                ? "parallel (max " + this.maxConcurrency + " concurrent lookups across all requests)"
+                : "sequential"));
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Run a request: in sequential mode inside one read-only transaction, in parallel mode
+     * without one, so the request thread holds no connection while it waits for its lookups
+     */
+    public <T> T request(Supplier<T> work) {
+        return parallel ? work.get() : readOnlyTransaction.execute(status -> work.get());
+    }
+
+    /**
+     * Run a database step of a request: inline in sequential mode (the request transaction is
+     * active), in its own short read-only transaction in parallel mode
+     */
+    public <T> T step(Supplier<T> work) {
+        return parallel ? readOnlyTransaction.execute(status -> work.get()) : work.get();
+    }
+
+    /**
+     * Start a new group of lookups for one request
+     */
+    public LookupGroup newGroup() {
+        return new LookupGroup();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * LookupGroup - Lookups forked for a single request, sharing the executor-wide concurrency cap
+     */
+    public class LookupGroup {
+
+        private LookupGroup() {
+        }
+
+        /**
+         * Fork a lookup. In sequential mode it runs immediately on the calling thread.
+         */
+        public <T> Future<T> fork(Supplier<T> lookup) {
+            if (!parallel) {
+                return CompletableFuture.completedFuture(lookup.get());
+            }
+            return executor.submit(() -> {
+                permits.acquire();
+                try {
+                    return readOnlyTransaction.execute(status -> lookup.get());
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        /**
+         * Wait for a forked lookup, rethrowing its failure on the request thread
+         */
+        public <T> T join(Future<T> future) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while loading policy facts", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new RuntimeException("Policy fact lookup failed", e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.hunesion.drool_v2.service;
+
+import com.hunesion.drool_v2.dto.EquipmentAccessRequestDTO;
+import com.hunesion.drool_v2.dto.InspectionSessionDTO;
+import com.hunesion.drool_v2.model.CommandDictionary;
+import com.hunesion.drool_v2.model.EquipmentAccessRequest;
+import com.hunesion.drool_v2.model.EquipmentAccessResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * InspectionSessionService - Per-command checks for live SSH/DB sessions against a precomputed context
+ * Within a session only the command changes, and the only command-dependent rule condition is
+ * isCommandBlocked(command). Opening a session therefore evaluates the rules twice, once as if the
+ * command were allowed and once as if it were blocked, and keeps both results with the session's
+ * compiled command dictionary. Each command check afterwards is one dictionary scan.
+ *
+ * Contexts are rebuilt on the next check after the rules are rebuilt (policy or assignment changes),
+ * after a command list changes, or once they are older than policy.inspection.max-context-age-seconds.
+ * Contexts are dropped when the registry session is closed or reaped. A rebuilt context does not
+ * count the session itself towards maxSshSessions/maxRdpSessions/maxTelnetSessions, so a session
+ * that was allowed when it opened is not denied later just because it is still open.
+ */
+@Service
+public class InspectionSessionService {
+
+    private static final String PROBE_COMMAND = "\u0000inspection-probe";
+
+    // Blocks every command; used to evaluate the rules for the "command blocked" case
+    private static final CommandDictionary BLOCK_ALL = new CommandDictionary() {
+        @Override
+        public boolean isBlocked(String command) {
+            return true;
+        }
+
+        @Override
+        public Set<String> getBlacklistedCommands() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Set<String> getWhitelistedCommands() {
+            return Collections.emptySet();
+        }
+    };
+
+    private final EquipmentAccessControlService accessControlService;
+    private final DynamicRuleService dynamicRuleService;
+    private final SessionRegistry sessionRegistry;
+    private final long maxContextAgeMillis;
+
+    private final Map<String, InspectionContext> contexts = new ConcurrentHashMap<>();
+    // Bumped when command lists change
+    private final AtomicLong commandListEpoch = new AtomicLong();
+
+    @Autowired
+    public InspectionSessionService(
+            EquipmentAccessControlService accessControlService,
+            DynamicRuleService dynamicRuleService,
+            SessionRegistry sessionRegistry,
+            @Value("${policy.inspection.max-context-age-seconds:300}") long maxContextAgeSeconds) {
+        this.accessControlService = accessControlService;
+        this.dynamicRuleService = dynamicRuleService;
+        this.sessionRegistry = sessionRegistry;
+        this.maxContextAgeMillis = TimeUnit.SECONDS.toMillis(Math.max(1, maxContextAgeSeconds));
+        sessionRegistry.addCloseListener(contexts::remove);
+    }
+
+    /**
+     * Check access for the session and, if allowed, register it and bind an inspection context
+     *
+     * @return The session with its ID, or the denial if access is not allowed (no session is opened)
+     */
+    public InspectionSessionDTO open(EquipmentAccessRequestDTO requestDto) {
+        requestDto.setCommand(null);
+        InspectionContext context = buildContext(requestDto, null);
+
+        InspectionSessionDTO response = new InspectionSessionDTO();
+        response.setUsername(requestDto.getUsername());
+        response.setEquipmentId(requestDto.getEquipmentId());
+        response.setProtocol(requestDto.getProtocol());
+        response.setAllowed(context.allowedResult.isAllowed());
+        response.setMatchedPolicyName(context.allowedResult.getMatchedPolicyName());
+        response.setDenialReason(context.allowedResult.getDenialReason());
+        response.setDenialCode(context.allowedResult.getDenialCode());
+        if (!context.allowedResult.isAllowed()) {
+            return response;
+        }
+
+        String protocol = requestDto.getProtocol() != null ? requestDto.getProtocol() : "SSH";
+        SessionRegistry.LiveSession session = sessionRegistry.open(
+                requestDto.getUsername(), requestDto.getEquipmentId(), protocol);
+        contexts.put(session.getSessionId(), context);
+        response.setSessionId(session.getSessionId());
+        return response;
+    }
+
+    /**
+     * Check one command of an open session
+     *
+     * @return The decision, or null if the session is unknown, closed or expired
+     */
+    public InspectionSessionDTO.CommandResultDTO inspect(String sessionId, String command) {
+        InspectionContext context = currentContext(sessionId);
+        if (context == null) {
+            return null;
+        }
+        return context.inspect(command);
+    }
+
+    /**
+     * Invalidate all contexts (command list items changed)
+     */
+    public void invalidateAll() {
+        commandListEpoch.incrementAndGet();
+    }
+
+    private InspectionContext currentContext(String sessionId) {
+        InspectionContext context = contexts.get(sessionId);
+        // Each check doubles as a heartbeat
+        if (context == null || !sessionRegistry.heartbeat(sessionId)) {
+            contexts.remove(sessionId);
+            return null;
+        }
+        if (context.rulesVersion != dynamicRuleService.getRulesVersion()
+                || context.commandListEpoch != commandListEpoch.get()
+                || System.currentTimeMillis() - context.builtAt > maxContextAgeMillis) {
+            InspectionContext rebuilt = buildContext(context.requestDto, sessionRegistry.getSession(sessionId));
+            // A concurrent close may have removed the session meanwhile
+            if (contexts.replace(sessionId, context, rebuilt)) {
+                System.out.println("Rebuilt inspection context for session " + sessionId);
+            }
+            context = rebuilt;
+        }
+        return context;
+    }
+
+    /**
+     * Evaluate the session's decisions
+     *
+     * @param ownSession The open session being re-evaluated, or null when opening one
+     */
+    private InspectionContext buildContext(EquipmentAccessRequestDTO requestDto, SessionRegistry.LiveSession ownSession) {
+        // Read the versions first so a change during the build forces another rebuild
+        long rulesVersion = dynamicRuleService.getRulesVersion();
+        long epoch = commandListEpoch.get();
+
+        // Unknown users and equipment are denied without loading anything
+        EquipmentAccessResult unknown = accessControlService.unknownSubjectResult(
+                requestDto.getUsername(), requestDto.getEquipmentId());
+        if (unknown != null) {
+            return new InspectionContext(requestDto, BLOCK_ALL, unknown, unknown, rulesVersion, epoch);
+        }
+
+        EquipmentAccessRequest request = accessControlService.prepareFact(requestDto);
+        if (ownSession != null) {
+            excludeOwnSession(request, ownSession.getProtocol());
+        }
+        CommandDictionary dictionary = request.getCommandDictionary();
+
+        EquipmentAccessResult allowedResult = accessControlService.lockedOutResult(request);
+        EquipmentAccessResult blockedResult;
+        if (allowedResult != null) {
+            blockedResult = allowedResult;
+        } else {
+            allowedResult = accessControlService.evaluateFacts(List.of(request)).get(0);
+
+            request.setCommand(PROBE_COMMAND);
+            request.setCommandDictionary(BLOCK_ALL);
+            blockedResult = accessControlService.evaluateFacts(List.of(request)).get(0);
+        }
+
+        // Without compiled lists, fall back to the fact's own (small) command sets
+        if (dictionary == null) {
+            EquipmentAccessRequest fallback = new EquipmentAccessRequest();
+            fallback.setBlacklistedCommands(request.getBlacklistedCommands());
+            fallback.setWhitelistedCommands(request.getWhitelistedCommands());
+            dictionary = new CommandDictionary() {
+                @Override
+                public boolean isBlocked(String command) {
+                    return fallback.isCommandBlocked(command);
+                }
+
+                @Override
+                public Set<String> getBlacklistedCommands() {
+                    return fallback.getBlacklistedCommands();
+                }
+
+                @Override
+                public Set<String> getWhitelistedCommands() {
+                    return fallback.getWhitelistedCommands();
+                }
+            };
+        }
+        return new InspectionContext(requestDto, dictionary, allowedResult, blockedResult, rulesVersion, epoch);
+    }
+
+    // The loaded counts include the session being re-evaluated; the limits apply to the others
+    private static void excludeOwnSession(EquipmentAccessRequest request, String protocol) {
+        switch (protocol.toUpperCase()) {
+            case "SSH":
+                request.setCurrentSshSessions(excludeOne(request.getCurrentSshSessions()));
+                break;
+            case "RDP":
+                request.setCurrentRdpSessions(excludeOne(request.getCurrentRdpSessions()));
+                break;
+            case "TELNET":
+                request.setCurrentTelnetSessions(excludeOne(request.getCurrentTelnetSessions()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static Integer excludeOne(Integer count) {
+        return count != null && count > 0 ? count - 1 : count;
+    }
+
+    /**
+     * InspectionContext - Precomputed decision for one session
+     */
+    private static final class InspectionContext {
+        private final EquipmentAccessRequestDTO requestDto;
+        private final CommandDictionary dictionary;
+        private final EquipmentAccessResult allowedResult; // Decision for a command that is not blocked
+        private final EquipmentAccessResult blockedResult; // Decision for a blocked command
+        private final long rulesVersion;
+        private final long commandListEpoch;
+        private final long builtAt = System.currentTimeMillis();
+
+        private InspectionContext(EquipmentAccessRequestDTO requestDto,
+                                  CommandDictionary dictionary,
+                                  EquipmentAccessResult allowedResult,
+                                  EquipmentAccessResult blockedResult,
+                                  long rulesVersion,
+                                  long commandListEpoch) {
+            this.requestDto = requestDto;
+            this.dictionary = dictionary;
+            this.allowedResult = allowedResult;
+            this.blockedResult = blockedResult;
+            this.rulesVersion = rulesVersion;
+            this.commandListEpoch = commandListEpoch;
+        }
+
+        private InspectionSessionDTO.CommandResultDTO inspect(String command) {
+            // Same guard as EquipmentAccessRequest.isCommandBlocked: empty commands are never blocked
+            boolean blocked = command != null && !command.isEmpty() && dictionary.isBlocked(command);
+            EquipmentAccessResult result = blocked ? blockedResult : allowedResult;
+
+            InspectionSessionDTO.CommandResultDTO dto = new InspectionSessionDTO.CommandResultDTO();
+            dto.setCommand(command);
+            dto.setAllowed(result.isAllowed());
+            dto.setMatchedPolicyName(result.getMatchedPolicyName());
+            dto.setDenialReason(result.getDenialReason());
+            dto.setDenialCode(result.getDenialCode());
+            return dto;
+        }
+    }
+}
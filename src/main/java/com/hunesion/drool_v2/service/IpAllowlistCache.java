@@ -0,0 +1,54 @@
+package com.hunesion.drool_v2.service;
+
+import com.hunesion.drool_v2.model.IpPrefixTrie;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * IpAllowlistCache - Caches compiled loginControl IP allowlists
+ * The cache key is the set of contributing policy versions ("id@updatedAt"), so editing a
+ * loginControl policy yields a new trie automatically and unchanged policies share one.
+ */
+@Service
+public class IpAllowlistCache {
+
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public IpAllowlistCache(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Get the compiled allowlist for a set of policy versions, compiling it on first use
+     *
+     * @param policyVersions Versions of the loginControl policies the entries came from
+     * @param allowedIps     Merged allowedIps entries of those policies
+     * @return Compiled prefix trie
+     */
+    public IpPrefixTrie getTrie(Set<String> policyVersions, Collection<String> allowedIps) {
+        Cache cache = cacheManager.getCache("ipAllowlistCache");
+        if (cache == null) {
+            return new IpPrefixTrie(allowedIps);
+        }
+        return cache.get(policyVersions, () -> {
+            IpPrefixTrie trie = new IpPrefixTrie(allowedIps);
+            System.out.println("Compiled IP allowlist for policies " + policyVersions + ": " + trie);
+            return trie;
+        });
+    }
+
+    /**
+     * Evict all compiled allowlists
+     */
+    @CacheEvict(value = "ipAllowlistCache", allEntries = true)
+    public void evictAll() {
+        // Cache eviction handled by annotation
+    }
+}
@@ -0,0 +1,379 @@
+package com.hunesion.drool_v2.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LoginAttemptTracker - Login failure counting and account/IP lockout for loginControl policies
+ * Failures are counted in lock-free per-minute sliding windows per user and per client IP. When a
+ * user's count reaches maxFailureAttempts of the lock settings passed in with the failure (resolved
+ * by PolicyFactLoader from the user's loginControl policies), the user and the client IP are locked
+ * for lockoutDurationMinutes. Lock checks are a map lookup; expired locks are removed by a timing
+ * wheel. Lock state and failure counts are written to login_lockouts in periodic batches (never per
+ * attempt) and reloaded at startup, so neither lockouts nor counts reset on a restart. Restored
+ * counts are placed at the minute of the key's last failure.
+ */
+@Service
+public class LoginAttemptTracker {
+
+    private static final String USER_PREFIX = "user:";
+    private static final String IP_PREFIX = "ip:";
+    private static final int WHEEL_SLOTS = 60; // One slot per minute
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int windowMinutes;
+    private final boolean persistent;
+
+    private final Map<String, FailureWindow> windows = new ConcurrentHashMap<>();
+    private final Map<String, Long> lockedUntil = new ConcurrentHashMap<>();
+    // Keys whose lock state or failure count changed since the last flush
+    private final Set<String> dirtyKeys = ConcurrentHashMap.newKeySet();
+
+    // Timing wheel: slot = expiry minute % WHEEL_SLOTS; longer locks are re-queued until due
+    private final List<Queue<String>> wheel = new ArrayList<>(WHEEL_SLOTS);
+    private long wheelMinute = currentMinute();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "login-attempt-tracker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public LoginAttemptTracker(
+            JdbcTemplate jdbcTemplate,
+            @Value("${policy.login-attempts.window-minutes:30}") int windowMinutes,
+            @Value("${policy.login-attempts.persistent:true}") boolean persistent,
+            @Value("${policy.login-attempts.flush-seconds:5}") long flushSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.windowMinutes = Math.max(1, Math.min(windowMinutes, 24 * 60));
+        this.persistent = persistent;
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel.add(new ConcurrentLinkedQueue<>());
+        }
+        scheduler.scheduleWithFixedDelay(this::advanceWheel, 1, 1, TimeUnit.SECONDS);
+        if (persistent) {
+            long period = Math.max(1, flushSeconds);
+            scheduler.scheduleWithFixedDelay(this::flush, period, period, TimeUnit.SECONDS);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!persistent) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            jdbcTemplate.query(
+                    "SELECT lock_key, locked_until, failure_count, updated_at FROM login_lockouts " +
+                            "WHERE locked_until > ? OR updated_at > ?",
+                    rs -> {
+                        String key = rs.getString(1);
+                        Timestamp until = rs.getTimestamp(2);
+                        if (until != null && until.getTime() > now) {
+                            lockedUntil.put(key, until.getTime());
+                            schedule(key, until.getTime());
+                        }
+                        if (rs.getInt(3) > 0) {
+                            window(key).seed(rs.getInt(3), Math.min(now, rs.getTimestamp(4).getTime()));
+                        }
+                    },
+                    new Timestamp(now), new Timestamp(now - TimeUnit.MINUTES.toMillis(windowMinutes)));
+            System.out.println("Login attempt tracker: restored " + lockedUntil.size() + " active lockouts and "
+                    + windows.size() + " failure counts");
+        } catch (RuntimeException e) {
+            System.out.println("Login attempt tracker: could not restore lockouts - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Record a failed login and lock the user and the client IP once the policy threshold is reached
+     *
+     * @param settings accountLock settings of the user's loginControl policies, or null if accountLock
+     *                 is off (the failure is counted but never locks)
+     * @return The user's failure count within the window
+     */
+    public int recordFailure(String username, String clientIp, LockSettings settings) {
+        long now = System.currentTimeMillis();
+        int userFailures = window(USER_PREFIX + username).increment(now, windowMinutes);
+        int ipFailures = clientIp != null ? window(IP_PREFIX + clientIp).increment(now, windowMinutes) : 0;
+        if (persistent) {
+            dirtyKeys.add(USER_PREFIX + username);
+            if (clientIp != null) {
+                dirtyKeys.add(IP_PREFIX + clientIp);
+            }
+        }
+
+        if (settings != null) {
+            long until = now + TimeUnit.MINUTES.toMillis(settings.lockoutDurationMinutes);
+            if (userFailures >= settings.maxFailureAttempts) {
+                lock(USER_PREFIX + username, until);
+            }
+            if (clientIp != null && ipFailures >= settings.maxFailureAttempts) {
+                lock(IP_PREFIX + clientIp, until);
+            }
+        }
+        return userFailures;
+    }
+
+    /**
+     * Record a successful login, which resets the user's failure window
+     */
+    public void recordSuccess(String username) {
+        if (windows.remove(USER_PREFIX + username) != null && persistent) {
+            dirtyKeys.add(USER_PREFIX + username);
+        }
+    }
+
+    /**
+     * Check whether the user or the client IP is currently locked out (no DB access)
+     */
+    public boolean isLocked(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+        return isLockedKey(USER_PREFIX + username, now) || (clientIp != null && isLockedKey(IP_PREFIX + clientIp, now));
+    }
+
+    /**
+     * End of the user's lockout, or null if the user is not locked
+     */
+    public Long getLockedUntil(String username) {
+        Long until = lockedUntil.get(USER_PREFIX + username);
+        return until != null && until > System.currentTimeMillis() ? until : null;
+    }
+
+    /**
+     * Remove the lockout and failures of a user (admin unlock)
+     */
+    public void unlock(String username) {
+        String key = USER_PREFIX + username;
+        boolean hadFailures = windows.remove(key) != null;
+        if (lockedUntil.remove(key) != null || hadFailures) {
+            dirtyKeys.add(key);
+        }
+    }
+
+    private boolean isLockedKey(String key, long now) {
+        Long until = lockedUntil.get(key);
+        return until != null && until > now;
+    }
+
+    private void lock(String key, long until) {
+        Long previous = lockedUntil.put(key, until);
+        if (previous == null || previous != until) {
+            dirtyKeys.add(key);
+            schedule(key, until);
+            System.out.println("Login lockout: " + key + " until " + new Timestamp(until));
+        }
+    }
+
+    private FailureWindow window(String key) {
+        return windows.computeIfAbsent(key, k -> new FailureWindow(windowMinutes));
+    }
+
+    private static long currentMinute() {
+        return TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+
+    private void schedule(String key, long until) {
+        long minute = TimeUnit.MILLISECONDS.toMinutes(until) + 1;
+        wheel.get((int) (minute % WHEEL_SLOTS)).add(key);
+    }
+
+    // Drain the slots of every minute that has passed and drop locks that have expired
+    private synchronized void advanceWheel() {
+        long now = System.currentTimeMillis();
+        long target = currentMinute();
+        while (wheelMinute <= target) {
+            Queue<String> slot = wheel.get((int) (wheelMinute % WHEEL_SLOTS));
+            int pending = slot.size();
+            for (int i = 0; i < pending; i++) {
+                String key = slot.poll();
+                if (key == null) {
+                    break;
+                }
+                Long until = lockedUntil.get(key);
+                if (until == null) {
+                    continue;
+                }
+                if (until <= now) {
+                    if (lockedUntil.remove(key, until)) {
+                        dirtyKeys.add(key);
+                    }
+                } else if (TimeUnit.MILLISECONDS.toMinutes(until) + 1 - wheelMinute >= WHEEL_SLOTS) {
+                    // Not due in this round of the wheel
+                    slot.add(key);
+                }
+            }
+            wheelMinute++;
+        }
+        // Drop idle windows so scanned usernames and IPs do not accumulate; their rows go with them
+        windows.entrySet().removeIf(entry -> {
+            boolean idle = entry.getValue().isIdle(now, windowMinutes) && !lockedUntil.containsKey(entry.getKey());
+            if (idle && persistent) {
+                dirtyKeys.add(entry.getKey());
+            }
+            return idle;
+        });
+    }
+
+    // Write changed lock state and failure counts in one batch; a burst of failures costs one write per key per flush
+    private void flush() {
+        if (dirtyKeys.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(dirtyKeys);
+        dirtyKeys.removeAll(keys);
+        long now = System.currentTimeMillis();
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (String key : keys) {
+            Long until = lockedUntil.get(key);
+            boolean locked = until != null && until > now;
+            FailureWindow window = windows.get(key);
+            int failures = window != null ? window.count(now, windowMinutes) : 0;
+            if (locked || failures > 0) {
+                long lastFailure = failures > 0 ? TimeUnit.MINUTES.toMillis(window.lastMinute()) : now;
+                upserts.add(new Object[]{key, locked ? new Timestamp(until) : null, failures, new Timestamp(lastFailure)});
+            } else {
+                deletes.add(new Object[]{key});
+            }
+        }
+        try {
+            if (!upserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO login_lockouts (lock_key, locked_until, failure_count, updated_at) VALUES (?, ?, ?, ?) " +
+                                "ON CONFLICT (lock_key) DO UPDATE SET locked_until = EXCLUDED.locked_until, " +
+                                "failure_count = EXCLUDED.failure_count, updated_at = EXCLUDED.updated_at",
+                        upserts);
+            }
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate("DELETE FROM login_lockouts WHERE lock_key = ?", deletes);
+            }
+        } catch (RuntimeException e) {
+            // Retry on the next flush
+            dirtyKeys.addAll(keys);
+            System.out.println("Login attempt tracker: flush failed - " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        if (persistent) {
+            flush();
+        }
+    }
+
+    /**
+     * LockSettings - accountLock settings merged from a user's loginControl policies
+     */
+    public static final class LockSettings {
+        private final int maxFailureAttempts;
+        private final int lockoutDurationMinutes;
+
+        public LockSettings(int maxFailureAttempts, int lockoutDurationMinutes) {
+            this.maxFailureAttempts = maxFailureAttempts;
+            this.lockoutDurationMinutes = lockoutDurationMinutes;
+        }
+
+        public int getMaxFailureAttempts() {
+            return maxFailureAttempts;
+        }
+
+        public int getLockoutDurationMinutes() {
+            return lockoutDurationMinutes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof LockSettings)) return false;
+            LockSettings other = (LockSettings) o;
+            return maxFailureAttempts == other.maxFailureAttempts
+                    && lockoutDurationMinutes == other.lockoutDurationMinutes;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(maxFailureAttempts, lockoutDurationMinutes);
+        }
+    }
+
+    /**
+     * FailureWindow - Per-minute failure buckets updated with CAS
+     * Each bucket packs the epoch minute (high bits) and the count (low 20 bits).
+     */
+    private static final class FailureWindow {
+
+        private static final int COUNT_BITS = 20;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+        private final AtomicLongArray buckets;
+
+        private FailureWindow(int windowMinutes) {
+            this.buckets = new AtomicLongArray(windowMinutes);
+        }
+
+        private int increment(long nowMillis, int windowMinutes) {
+            long minute = TimeUnit.MILLISECONDS.toMinutes(nowMillis);
+            int index = (int) (minute % buckets.length());
+            while (true) {
+                long current = buckets.get(index);
+                long next = (current >>> COUNT_BITS) == minute
+                        ? current + ((current & COUNT_MASK) < COUNT_MASK ? 1 : 0)
+                        : (minute << COUNT_BITS) | 1;
+                if (buckets.compareAndSet(index, current, next)) {
+                    break;
+                }
+            }
+            return count(nowMillis, windowMinutes);
+        }
+
+        private void seed(int failures, long nowMillis) {
+            long minute = TimeUnit.MILLISECONDS.toMinutes(nowMillis);
+            buckets.set((int) (minute % buckets.length()), (minute << COUNT_BITS) | Math.min(failures, COUNT_MASK));
+        }
+
+        private int count(long nowMillis, int windowMinutes) {
+            long minute = TimeUnit.MILLISECONDS.toMinutes(nowMillis);
+            int total = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                long bucket = buckets.get(i);
+                if (minute - (bucket >>> COUNT_BITS) < windowMinutes) {
+                    total += (int) (bucket & COUNT_MASK);
+                }
+            }
+            return total;
+        }
+
+        // Epoch minute of the most recent non-empty bucket
+        private long lastMinute() {
+            long last = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                long bucket = buckets.get(i);
+                if ((bucket & COUNT_MASK) > 0) {
+                    last = Math.max(last, bucket >>> COUNT_BITS);
+                }
+            }
+            return last;
+        }
+
+        private boolean isIdle(long nowMillis, int windowMinutes) {
+            return count(nowMillis, windowMinutes) == 0;
+        }
+    }
+}
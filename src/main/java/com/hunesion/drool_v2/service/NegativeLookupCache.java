@@ -0,0 +1,252 @@
+package com.hunesion.drool_v2.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hunesion.drool_v2.model.BloomFilter;
+import com.hunesion.drool_v2.repository.EquipmentRepository;
+import com.hunesion.drool_v2.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * NegativeLookupCache - Fast rejection of unknown usernames and unknown or deleted equipment
+ * Two layers, both answering without a database query:
+ * - Bloom filters of all usernames and all non-deleted equipment ids. A hit falls through to the
+ *   normal lookup. A miss only means "not known to this node": creations on other nodes are not
+ *   in the filter until the next rebuild, so a miss is confirmed once with an existence query.
+ *   Confirmed misses become "not found" entries; principals that do exist are added to the filter.
+ *   Deletions are dropped by a debounced rebuild, and a periodic rebuild picks up other nodes' changes.
+ * - Short-TTL "not found" entries for lookups that missed in the database, covering Bloom false
+ *   positives, confirmed Bloom misses and deployments with the filters disabled.
+ */
+@Service
+public class NegativeLookupCache {
+
+    private static final String CACHE_NAME = "negativeLookupCache";
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long REBUILD_DEBOUNCE_MILLIS = 1000;
+
+    private final UserRepository userRepository;
+    private final EquipmentRepository equipmentRepository;
+    private final CacheManager cacheManager;
+    private final boolean bloomEnabled;
+    private final long rebuildSeconds;
+
+    // Null until the first rebuild completed
+    private volatile BloomFilter usernames;
+    private volatile BloomFilter equipmentIds;
+    // Additions since the current rebuild started, replayed into the rebuilt filters
+    private final Set<String> addedUsernames = ConcurrentHashMap.newKeySet();
+    private final Set<Long> addedEquipmentIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "negative-lookup-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public NegativeLookupCache(
+            UserRepository userRepository,
+            EquipmentRepository equipmentRepository,
+            CacheManager cacheManager,
+            @Value("${policy.negative-lookup.ttl-seconds:30}") long ttlSeconds,
+            @Value("${policy.negative-lookup.bloom-enabled:true}") boolean bloomEnabled,
+            @Value("${policy.negative-lookup.rebuild-seconds:300}") long rebuildSeconds) {
+        this.userRepository = userRepository;
+        this.equipmentRepository = equipmentRepository;
+        this.cacheManager = cacheManager;
+        this.bloomEnabled = bloomEnabled;
+
+        if (cacheManager instanceof CaffeineCacheManager caffeineCacheManager) {
+            caffeineCacheManager.registerCustomCache(CACHE_NAME, Caffeine.newBuilder()
+                    .maximumSize(100000)
+                    .expireAfterWrite(Math.max(1, ttlSeconds), TimeUnit.SECONDS)
+                    .recordStats()
+                    .build());
+        }
+        this.rebuildSeconds = Math.max(10, rebuildSeconds);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (bloomEnabled) {
+            scheduler.scheduleWithFixedDelay(this::rebuildQuietly, rebuildSeconds, rebuildSeconds, TimeUnit.SECONDS);
+            rebuild();
+        }
+    }
+
+    /**
+     * True if the username is known not to exist
+     */
+    public boolean isUnknownUser(String username) {
+        if (username == null) {
+            return true;
+        }
+        String key = "user:" + username;
+        if (isCachedMissing(key)) {
+            return true;
+        }
+        BloomFilter filter = usernames;
+        if (filter == null || filter.mightContain(username)) {
+            return false;
+        }
+        // Possibly created on another node since the last rebuild
+        if (userRepository.existsByUsername(username)) {
+            addedUsernames.add(username);
+            filter.add(username);
+            return false;
+        }
+        putMissing(key);
+        return true;
+    }
+
+    /**
+     * True if the equipment is known not to exist or to be deleted
+     */
+    public boolean isUnknownEquipment(Long equipmentId) {
+        if (equipmentId == null) {
+            return false;
+        }
+        String key = "equipment:" + equipmentId;
+        if (isCachedMissing(key)) {
+            return true;
+        }
+        BloomFilter filter = equipmentIds;
+        if (filter == null || filter.mightContain(equipmentId)) {
+            return false;
+        }
+        if (equipmentRepository.existsByIdAndIsDeletedFalse(equipmentId)) {
+            addedEquipmentIds.add(equipmentId);
+            filter.add(equipmentId);
+            return false;
+        }
+        putMissing(key);
+        return true;
+    }
+
+    /**
+     * Remember a username that was not found in the database
+     */
+    public void recordMissingUser(String username) {
+        putMissing("user:" + username);
+    }
+
+    /**
+     * Remember an equipment id that was not found in the database
+     */
+    public void recordMissingEquipment(Long equipmentId) {
+        putMissing("equipment:" + equipmentId);
+    }
+
+    public void userCreated(String username) {
+        addedUsernames.add(username);
+        BloomFilter filter = usernames;
+        if (filter != null) {
+            filter.add(username);
+        }
+        evictMissing("user:" + username);
+    }
+
+    public void userDeleted(String username) {
+        if (username != null) {
+            recordMissingUser(username);
+        }
+        scheduleRebuild();
+    }
+
+    public void equipmentCreated(Long equipmentId) {
+        addedEquipmentIds.add(equipmentId);
+        BloomFilter filter = equipmentIds;
+        if (filter != null) {
+            filter.add(equipmentId);
+        }
+        evictMissing("equipment:" + equipmentId);
+    }
+
+    public void equipmentDeleted(Long equipmentId) {
+        recordMissingEquipment(equipmentId);
+        scheduleRebuild();
+    }
+
+    /**
+     * Rebuild both filters from the database
+     * Additions made while the rebuild runs are replayed after the new filters are published.
+     */
+    public synchronized void rebuild() {
+        addedUsernames.clear();
+        addedEquipmentIds.clear();
+
+        List<String> allUsernames = userRepository.findAllUsernames();
+        List<Long> allEquipmentIds = equipmentRepository.findActiveIds();
+
+        // Headroom for creations until the next rebuild
+        BloomFilter userFilter = new BloomFilter(allUsernames.size() * 2 + 1000, FALSE_POSITIVE_RATE);
+        allUsernames.forEach(userFilter::add);
+        BloomFilter equipmentFilter = new BloomFilter(allEquipmentIds.size() * 2 + 1000, FALSE_POSITIVE_RATE);
+        allEquipmentIds.forEach(equipmentFilter::add);
+
+        usernames = userFilter;
+        equipmentIds = equipmentFilter;
+        addedUsernames.forEach(userFilter::add);
+        addedEquipmentIds.forEach(equipmentFilter::add);
+
+        System.out.println("Negative lookup filters rebuilt: " + allUsernames.size() + " users, "
+                + allEquipmentIds.size() + " equipment");
+    }
+
+    private void scheduleRebuild() {
+        if (bloomEnabled && rebuildPending.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                rebuildPending.set(false);
+                rebuildQuietly();
+            }, REBUILD_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            System.out.println("Negative lookup filter rebuild failed: " + e.getMessage());
+        }
+    }
+
+    private boolean isCachedMissing(String key) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        return cache != null && cache.get(key) != null;
+    }
+
+    private void putMissing(String key) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.put(key, Boolean.TRUE);
+        }
+    }
+
+    private void evictMissing(String key) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
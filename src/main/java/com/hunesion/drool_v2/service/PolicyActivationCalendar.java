@@ -0,0 +1,235 @@
+package com.hunesion.drool_v2.service;
+
+import com.hunesion.drool_v2.model.entity.EquipmentPolicy;
+import com.hunesion.drool_v2.repository.EquipmentPolicyRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PolicyActivationCalendar - Tracks the date windows of date-bounded (e.g. temporary) policies
+ * allowedTime.startDate/endDate are turned into activation and expiration instants kept in a
+ * priority queue. A single timer wakes at the next boundary, drains every boundary that is due
+ * and publishes a new immutable set of inactive policy ids, so request handling never looks at
+ * dates. Thousands of grants expiring at the same midnight become one published update.
+ */
+@Service
+public class PolicyActivationCalendar {
+
+    private final EquipmentPolicyRepository policyRepository;
+    private final PolicyConfigCache policyConfigCache;
+
+    // Guarded by this
+    private final Map<Long, Window> windows = new HashMap<>();
+    private final PriorityQueue<Boundary> boundaries = new PriorityQueue<>();
+    private ScheduledFuture<?> nextWakeUp;
+
+    private volatile Set<Long> inactivePolicyIds = Collections.emptySet();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "policy-activation-calendar");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public PolicyActivationCalendar(EquipmentPolicyRepository policyRepository, PolicyConfigCache policyConfigCache) {
+        this.policyRepository = policyRepository;
+        this.policyConfigCache = policyConfigCache;
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * Rebuild the calendar from all policies
+     */
+    public synchronized void reload() {
+        windows.clear();
+        boundaries.clear();
+        for (EquipmentPolicy policy : policyRepository.findAll()) {
+            Window window = windowOf(policy);
+            if (window != null) {
+                windows.put(policy.getId(), window);
+                addBoundaries(policy.getId(), window);
+            }
+        }
+        publish(Instant.now());
+        System.out.println("Policy activation calendar: " + windows.size() + " date-bounded policies, "
+                + inactivePolicyIds.size() + " currently inactive");
+    }
+
+    /**
+     * Re-read the date window of a created or updated policy
+     */
+    public synchronized void refreshPolicy(EquipmentPolicy policy) {
+        Long policyId = policy.getId();
+        boundaries.removeIf(boundary -> boundary.policyId.equals(policyId));
+        Window window = windowOf(policy);
+        if (window != null) {
+            windows.put(policyId, window);
+            addBoundaries(policyId, window);
+        } else {
+            windows.remove(policyId);
+        }
+        publish(Instant.now());
+    }
+
+    /**
+     * Forget a deleted policy
+     */
+    public synchronized void removePolicy(Long policyId) {
+        boundaries.removeIf(boundary -> boundary.policyId.equals(policyId));
+        if (windows.remove(policyId) != null) {
+            publish(Instant.now());
+        }
+    }
+
+    /**
+     * Policy ids currently outside their date window (immutable snapshot)
+     */
+    public Set<Long> getInactivePolicyIds() {
+        return inactivePolicyIds;
+    }
+
+    /**
+     * Remove the currently inactive policies from a set of resolved policy ids
+     */
+    public void removeInactive(Set<Long> policyIds) {
+        Set<Long> inactive = inactivePolicyIds;
+        if (!inactive.isEmpty() && !policyIds.isEmpty()) {
+            policyIds.removeAll(inactive);
+        }
+    }
+
+    private void addBoundaries(Long policyId, Window window) {
+        Instant now = Instant.now();
+        if (window.start != null && window.start.isAfter(now)) {
+            boundaries.add(new Boundary(window.start, policyId));
+        }
+        if (window.end != null && window.end.isAfter(now)) {
+            boundaries.add(new Boundary(window.end, policyId));
+        }
+    }
+
+    // Wake-up: drain every due boundary, then publish once
+    private synchronized void onBoundary() {
+        Instant now = Instant.now();
+        int due = 0;
+        while (!boundaries.isEmpty() && !boundaries.peek().at.isAfter(now)) {
+            boundaries.poll();
+            due++;
+        }
+        publish(now);
+        System.out.println("Policy activation calendar: " + due + " boundaries reached, "
+                + inactivePolicyIds.size() + " policies inactive");
+    }
+
+    // Recompute the inactive set, swap it in and schedule the next wake-up
+    private void publish(Instant now) {
+        Set<Long> inactive = new HashSet<>();
+        for (Map.Entry<Long, Window> entry : windows.entrySet()) {
+            if (!entry.getValue().isActive(now)) {
+                inactive.add(entry.getKey());
+            }
+        }
+        inactivePolicyIds = Set.copyOf(inactive);
+
+        if (nextWakeUp != null) {
+            nextWakeUp.cancel(false);
+            nextWakeUp = null;
+        }
+        Boundary next = boundaries.peek();
+        if (next != null) {
+            long delay = Math.max(0, next.at.toEpochMilli() - System.currentTimeMillis());
+            nextWakeUp = scheduler.schedule(this::onBoundary, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Date window from allowedTime.startDate/endDate (whole days in the policy's time zone)
+     * Returns null for policies without dates or with borderless set.
+     */
+    private Window windowOf(EquipmentPolicy policy) {
+        String configJson = policy.getPolicyConfig();
+        if (configJson == null || configJson.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> config = policyConfigCache.getParsedConfig(policy);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> allowedTime = (Map<String, Object>) config.get("allowedTime");
+        if (allowedTime == null || Boolean.TRUE.equals(allowedTime.get("borderless"))) {
+            return null;
+        }
+        Object startDate = allowedTime.get("startDate");
+        Object endDate = allowedTime.get("endDate");
+        if (startDate == null && endDate == null) {
+            return null;
+        }
+
+        try {
+            Object timeZone = allowedTime.get("timeZone");
+            ZoneId zone = timeZone != null && !timeZone.toString().isBlank()
+                    ? ZoneId.of(timeZone.toString())
+                    : ZoneId.systemDefault();
+            Instant start = startDate != null
+                    ? LocalDate.parse(startDate.toString()).atStartOfDay(zone).toInstant()
+                    : null;
+            // endDate is inclusive: the policy expires at the start of the following day
+            Instant end = endDate != null
+                    ? LocalDate.parse(endDate.toString()).plusDays(1).atStartOfDay(zone).toInstant()
+                    : null;
+            return new Window(start, end);
+        } catch (DateTimeException e) {
+            System.out.println("Ignoring invalid date window of policy " + policy.getId() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static final class Window {
+        private final Instant start; // Inclusive, null = no lower bound
+        private final Instant end; // Exclusive, null = no upper bound
+
+        private Window(Instant start, Instant end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private boolean isActive(Instant now) {
+            return (start == null || !now.isBefore(start)) && (end == null || now.isBefore(end));
+        }
+    }
+
+    private static final class Boundary implements Comparable<Boundary> {
+        private final Instant at;
+        private final Long policyId;
+
+        private Boundary(Instant at, Long policyId) {
+            this.at = at;
+            this.policyId = policyId;
+        }
+
+        @Override
+        public int compareTo(Boundary other) {
+            return at.compareTo(other.at);
+        }
+    }
+}
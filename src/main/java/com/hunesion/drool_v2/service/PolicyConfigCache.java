@@ -2,36 +2,146 @@ package com.hunesion.drool_v2.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hunesion.drool_v2.model.PolicyConfig;
+import com.hunesion.drool_v2.model.entity.EquipmentPolicy;
+import com.hunesion.drool_v2.repository.EquipmentPolicyRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * PolicyConfigCache - Caches parsed policy config JSON to avoid repeated parsing
  * This significantly improves performance when the same policies are accessed repeatedly
+ *
+ * Entries are keyed by (policy ID, versionNo). EquipmentPolicy bumps versionNo on every write,
+ * so a changed policy always misses and stale entries are never served, whichever code path
+ * changed it. Entries expire only when unused; hot entries are re-validated against the database
+ * in the background after policy.config-cache.refresh-minutes while the current value keeps
+ * being served. All enabled configs are loaded with one query at startup.
  */
 @Service
 public class PolicyConfigCache {
 
+    private static final String RAW_CACHE = "policyConfigCache";
+    private static final String TYPED_CACHE = "typedPolicyConfigCache";
+
     private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final EquipmentPolicyRepository policyRepository;
 
-    public PolicyConfigCache(ObjectMapper objectMapper) {
+    @Autowired
+    public PolicyConfigCache(
+            ObjectMapper objectMapper,
+            CacheManager cacheManager,
+            EquipmentPolicyRepository policyRepository,
+            @Value("${policy.config-cache.maximum-size:10000}") long maximumSize,
+            @Value("${policy.config-cache.refresh-minutes:10}") long refreshMinutes,
+            @Value("${policy.config-cache.expire-after-access-minutes:120}") long expireMinutes) {
         this.objectMapper = objectMapper;
+        this.cacheManager = cacheManager;
+        this.policyRepository = policyRepository;
+
+        // Replace the default expire-after-write specs of CacheConfig for the two config caches
+        if (cacheManager instanceof CaffeineCacheManager caffeineCacheManager) {
+            caffeineCacheManager.registerCustomCache(RAW_CACHE, versionedCache(
+                    maximumSize, refreshMinutes, expireMinutes, this::parse));
+            caffeineCacheManager.registerCustomCache(TYPED_CACHE, versionedCache(
+                    maximumSize, refreshMinutes, expireMinutes, policy -> PolicyConfig.from(parse(policy))));
+        }
+    }
+
+    /**
+     * Bulk-load the configs of all enabled policies with one query
+     */
+    @PostConstruct
+    public void preload() {
+        List<EquipmentPolicy> policies = policyRepository.findByEnabledTrueOrderByPriorityDesc();
+        int loaded = 0;
+        for (EquipmentPolicy policy : policies) {
+            try {
+                getTypedConfig(policy);
+                loaded++;
+            } catch (RuntimeException e) {
+                System.out.println("Skipping policy config preload for policy " + policy.getId() + ": " + e.getMessage());
+            }
+        }
+        System.out.println("Policy config cache: preloaded " + loaded + " of " + policies.size() + " enabled policies");
     }
 
     /**
      * Parse and cache policy config JSON
-     * Cache key: policy ID
-     * 
-     * @param policyId The policy ID (used as cache key)
-     * @param policyConfigJson The JSON string to parse
+     * Cache key: policy ID and version number
+     *
+     * @param policy The policy whose config to parse
      * @return Parsed Map representation of the policy config
      */
-    @Cacheable(value = "policyConfigCache", key = "#policyId")
-    public Map<String, Object> getParsedConfig(Long policyId, String policyConfigJson) {
+    public Map<String, Object> getParsedConfig(EquipmentPolicy policy) {
+        Cache cache = cacheManager.getCache(RAW_CACHE);
+        if (cache == null) {
+            return parse(policy);
+        }
+        return cache.get(new VersionKey(policy.getId(), policy.getVersionNo()), () -> parse(policy));
+    }
+
+    /**
+     * Parse and cache the typed form of a policy's config
+     * Cache key: policy ID and version number
+     *
+     * @param policy The policy whose config to parse
+     * @return Typed, immutable policy config (PolicyConfig.EMPTY when the policy has none)
+     */
+    public PolicyConfig getTypedConfig(EquipmentPolicy policy) {
+        Cache cache = cacheManager.getCache(TYPED_CACHE);
+        if (cache == null) {
+            return PolicyConfig.from(parse(policy));
+        }
+        return cache.get(new VersionKey(policy.getId(), policy.getVersionNo()),
+                () -> PolicyConfig.from(parse(policy)));
+    }
+
+    /**
+     * Drop all cached versions of a policy (e.g. when it is deleted)
+     * Updates need no eviction: they bump versionNo.
+     *
+     * @param policyId The policy ID to evict from cache
+     */
+    public void evictPolicyConfig(Long policyId) {
+        for (String name : List.of(RAW_CACHE, TYPED_CACHE)) {
+            if (cacheManager.getCache(name) instanceof CaffeineCache caffeineCache) {
+                caffeineCache.getNativeCache().asMap().keySet()
+                        .removeIf(key -> key instanceof VersionKey versionKey && policyId.equals(versionKey.policyId));
+            }
+        }
+    }
+
+    /**
+     * Evict all policy configs (when rebuilding rules)
+     */
+    public void evictAllPolicyConfigs() {
+        for (String name : List.of(RAW_CACHE, TYPED_CACHE)) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private Map<String, Object> parse(EquipmentPolicy policy) {
+        String policyConfigJson = policy.getPolicyConfig();
         if (policyConfigJson == null || policyConfigJson.isEmpty()) {
             return new HashMap<>();
         }
@@ -40,25 +150,59 @@ public class PolicyConfigCache {
             Map<String, Object> config = objectMapper.readValue(policyConfigJson, Map.class);
             return config;
         } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to parse policy config for policy: " + policyId, e);
+            throw new RuntimeException("Failed to parse policy config for policy: " + policy.getId(), e);
         }
     }
 
     /**
-     * Evict cache when policy is updated
-     * 
-     * @param policyId The policy ID to evict from cache
+     * Caffeine cache whose refresh re-reads the policy row
+     * A refresh of a deleted or re-versioned policy returns null, which drops the entry;
+     * the current version is cached under its own key on the next read.
      */
-    @CacheEvict(value = "policyConfigCache", key = "#policyId")
-    public void evictPolicyConfig(Long policyId) {
-        // Cache eviction handled by annotation
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> versionedCache(
+            long maximumSize, long refreshMinutes, long expireMinutes, Function<EquipmentPolicy, Object> parser) {
+        CacheLoader<Object, Object> loader = key -> {
+            VersionKey versionKey = (VersionKey) key;
+            return policyRepository.findById(versionKey.policyId)
+                    .filter(policy -> Objects.equals(policy.getVersionNo(), versionKey.versionNo))
+                    .map(parser)
+                    .orElse(null);
+        };
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireMinutes, TimeUnit.MINUTES)
+                .refreshAfterWrite(refreshMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build(loader);
     }
 
     /**
-     * Evict all policy configs (when rebuilding rules)
+     * VersionKey - Cache key of one version of a policy config
      */
-    @CacheEvict(value = "policyConfigCache", allEntries = true)
-    public void evictAllPolicyConfigs() {
-        // Cache eviction handled by annotation
+    private static final class VersionKey {
+        private final Long policyId;
+        private final Integer versionNo;
+
+        private VersionKey(Long policyId, Integer versionNo) {
+            this.policyId = policyId;
+            this.versionNo = versionNo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof VersionKey other)) return false;
+            return Objects.equals(policyId, other.policyId) && Objects.equals(versionNo, other.versionNo);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(policyId, versionNo);
+        }
+
+        @Override
+        public String toString() {
+            return policyId + "@v" + versionNo;
+        }
     }
 }
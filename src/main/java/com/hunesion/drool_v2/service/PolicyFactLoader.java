@@ -1,225 +1,189 @@
 package com.hunesion.drool_v2.service;
 
 import com.hunesion.drool_v2.model.entity.*;
+import com.hunesion.drool_v2.model.CommandDictionary;
+import com.hunesion.drool_v2.model.IpPrefixTrie;
+import com.hunesion.drool_v2.model.PolicyConfig;
+import com.hunesion.drool_v2.model.WeeklyTimeBitmap;
 import com.hunesion.drool_v2.model.EquipmentAccessRequest;
+import com.hunesion.drool_v2.model.PrincipalSnapshot;
+import com.hunesion.drool_v2.model.EquipmentContext;
+import com.hunesion.drool_v2.model.SubjectProfile;
 import com.hunesion.drool_v2.model.EquipmentAccessRequest.TimeSlot;
 import com.hunesion.drool_v2.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
 import java.util.*;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
  * PolicyFactLoader - Loads policy data into Drools fact objects
  * This service makes it easy to populate EquipmentAccessRequest with all relevant policy data
+ *
+ * Users with the same roles, groups, user type and policy groups resolve to the same assigned
+ * policy id set. The aggregated view of a set (protocols, time bitmap, command matcher, IP trie)
+ * is therefore cached per subject class - the canonical id set - in subjectClassPolicyCache
+ * and shared by every user of the class, instead of being rebuilt per request.
  */
 @Service
 public class PolicyFactLoader {
 
     private final EquipmentPolicyRepository policyRepository;
     private final UserRepository userRepository;
-    private final EquipmentRepository equipmentRepository;
-    private final CommandListRepository commandListRepository;
+    private final CommandMatcherCache commandMatcherCache;
     private final PolicyConfigCache policyConfigCache;
-    private final PolicyGroupRepository policyGroupRepository;
-    private final UserTypeRepository userTypeRepository;
-    private final AccountRepository accountRepository;
     private final WorkGroupRepository workGroupRepository;
+    private final EquipmentContextCache equipmentContextCache;
+    private final FactLookupExecutor factLookupExecutor;
+    private final IpAllowlistCache ipAllowlistCache;
+    private final PolicyActivationCalendar activationCalendar;
+    private final SessionRegistry sessionRegistry;
+    private final PrincipalSnapshotCache principalSnapshotCache;
+    private final NegativeLookupCache negativeLookupCache;
+    private final DynamicRuleService dynamicRuleService;
+    private final CacheManager cacheManager;
+    private final AuthorizationGraph authorizationGraph;
+    private final WorkGroupIndex workGroupIndex;
+    private final PolicyGroupMembershipCache policyGroupMembershipCache;
+
+    private static final String SUBJECT_CLASS_CACHE = "subjectClassPolicyCache";
 
     @Autowired
     public PolicyFactLoader(
             EquipmentPolicyRepository policyRepository,
             UserRepository userRepository,
-            EquipmentRepository equipmentRepository,
-            CommandListRepository commandListRepository,
+            CommandMatcherCache commandMatcherCache,
             PolicyConfigCache policyConfigCache,
-            PolicyGroupRepository policyGroupRepository,
-            UserTypeRepository userTypeRepository,
-            AccountRepository accountRepository,
-            WorkGroupRepository workGroupRepository) {
+            WorkGroupRepository workGroupRepository,
+            EquipmentContextCache equipmentContextCache,
+            FactLookupExecutor factLookupExecutor,
+            IpAllowlistCache ipAllowlistCache,
+            PolicyActivationCalendar activationCalendar,
+            SessionRegistry sessionRegistry,
+            PrincipalSnapshotCache principalSnapshotCache,
+            NegativeLookupCache negativeLookupCache,
+            DynamicRuleService dynamicRuleService,
+            CacheManager cacheManager,
+            AuthorizationGraph authorizationGraph,
+            WorkGroupIndex workGroupIndex,
+            PolicyGroupMembershipCache policyGroupMembershipCache) {
         this.policyRepository = policyRepository;
         this.userRepository = userRepository;
-        this.equipmentRepository = equipmentRepository;
-        this.commandListRepository = commandListRepository;
+        this.commandMatcherCache = commandMatcherCache;
         this.policyConfigCache = policyConfigCache;
-        this.policyGroupRepository = policyGroupRepository;
-        this.userTypeRepository = userTypeRepository;
-        this.accountRepository = accountRepository;
         this.workGroupRepository = workGroupRepository;
+        this.equipmentContextCache = equipmentContextCache;
+        this.factLookupExecutor = factLookupExecutor;
+        this.ipAllowlistCache = ipAllowlistCache;
+        this.activationCalendar = activationCalendar;
+        this.sessionRegistry = sessionRegistry;
+        this.principalSnapshotCache = principalSnapshotCache;
+        this.negativeLookupCache = negativeLookupCache;
+        this.dynamicRuleService = dynamicRuleService;
+        this.cacheManager = cacheManager;
+        this.authorizationGraph = authorizationGraph;
+        this.workGroupIndex = workGroupIndex;
+        this.policyGroupMembershipCache = policyGroupMembershipCache;
     }
 
     /**
      * Load all relevant policies for a user and equipment into the request fact
+     * In parallel mode no transaction spans the request; see FactLookupExecutor.
      */
-    @Transactional(readOnly = true)
     public EquipmentAccessRequest loadPoliciesIntoFact(String username, Long equipmentId) {
+        return factLookupExecutor.request(() -> loadFact(username, equipmentId));
+    }
+
+    private EquipmentAccessRequest loadFact(String username, Long equipmentId) {
         EquipmentAccessRequest request = new EquipmentAccessRequest();
         request.setUsername(username);
         request.setEquipmentId(equipmentId);
 
         // Load user data
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
-
-        request.setUserId(user.getId());
-        request.setUserRoles(user.getRoleNames());
-        request.setUserGroups(user.getGroupNames());
-
-        // Set user type code for policy evaluation
-        if (user.getUserType() != null) {
-            request.setAttribute("userTypeCode", user.getUserType().getTypeCode());
-            System.out.println("User Type: " + user.getUserType().getTypeCode());
-        }
-
-        // Load equipment data
-        if (equipmentId != null) {
-            Equipment equipment = equipmentRepository.findById(equipmentId)
-                    .orElse(null);
-            if (equipment != null) {
-                request.setEquipmentName(equipment.getDeviceName());
-                request.setProtocol(equipment.getProtocol());
-                request.setDbmsType(equipment.getProtocol()); // Set DBMS type from protocol if applicable
-                
-                // Populate attributes map for custom conditions
-                request.setAttribute("deviceType", equipment.getDeviceType());
-                request.setAttribute("deviceName", equipment.getDeviceName());
-                request.setAttribute("hostName", equipment.getHostName());
-                request.setAttribute("ipAddress", equipment.getIpAddress());
-                request.setAttribute("protocol", equipment.getProtocol());
-                request.setAttribute("port", equipment.getPort() != null ? equipment.getPort().toString() : null);
-                
-                // Load accounts for this equipment and set account type codes
-                List<Account> equipmentAccounts = accountRepository.findByEquipmentIdAndActiveTrue(equipmentId);
-                if (!equipmentAccounts.isEmpty()) {
-                    Set<String> accountTypeCodes = equipmentAccounts.stream()
-                            .map(acc -> acc.getAccountType().getTypeCode())
-                            .collect(Collectors.toSet());
-                    request.setAttribute("equipmentAccountTypeCodes", accountTypeCodes);
-                    System.out.println("Equipment Account Types: " + accountTypeCodes);
-                }
+        User user = factLookupExecutor.step(() -> {
+            User found = userRepository.findByUsername(username).orElse(null);
+            if (found == null) {
+                negativeLookupCache.recordMissingUser(username);
+                throw new RuntimeException("User not found: " + username);
             }
-        }
-
-        // Find all policies and policy groups assigned to user, groups, equipment, or roles
-        Set<Long> policyIds = new HashSet<>();
-
-        // Policies assigned to user
-        List<EquipmentPolicy> userPolicies = policyRepository.findAssignedToUser(user.getId());
-        userPolicies.forEach(p -> policyIds.add(p.getId()));
-        System.out.println("Policies assigned to user: " + userPolicies);
-
-        // Policies assigned to user's groups
-        user.getGroups().forEach(group -> {
-            List<EquipmentPolicy> groupPolicies = policyRepository.findAssignedToGroup(group.getId());
-            groupPolicies.forEach(p -> policyIds.add(p.getId()));
-            System.out.println("Policies assigned to user's groups: " + groupPolicies);
+            applyUser(request, found);
+            return found;
         });
 
-        // Policies assigned to user's roles
-        user.getRoles().forEach(role -> {
-            List<EquipmentPolicy> rolePolicies = policyRepository.findAssignedToRole(role.getId());
-            System.out.println("Policies assigned to user's roles: " + rolePolicies);
-            rolePolicies.forEach(p -> policyIds.add(p.getId()));
-        });
-
-        // ========== PHASE 3: Policies assigned to user's UserType ==========
-        if (user.getUserType() != null) {
-            List<EquipmentPolicy> userTypePolicies = policyRepository.findAssignedToUserType(user.getUserType().getId());
-            userTypePolicies.forEach(p -> policyIds.add(p.getId()));
-            System.out.println("Policies assigned to user's UserType (" + user.getUserType().getTypeCode() + "): " + userTypePolicies);
+        // Policy ids and work groups come from the in-memory authorization graph when it is current
+        Long userId = user.getId();
+        AuthorizationGraph.Snapshot graph = authorizationGraph.current();
+        AuthorizationGraph.Resolution resolution = graph != null ? graph.resolve(userId, equipmentId) : null;
+        // Without the graph, the work group index still answers the membership part
+        List<WorkGroupIndex.Membership> indexedWorkGroups = resolution == null && equipmentId != null
+                ? workGroupIndex.findByUserAndEquipment(userId, equipmentId)
+                : null;
+
+        // Otherwise the equipment context, policy id resolution and work group lookup are independent of each other.
+        // In parallel mode they run concurrently and the check waits only for the slowest of them
+        FactLookupExecutor.LookupGroup lookups = factLookupExecutor.newGroup();
+        Future<EquipmentContext> equipmentContextLookup = lookups.fork(() ->
+                equipmentId != null ? equipmentContextCache.getContext(equipmentId) : null);
+        Future<List<Long>> policyIdsLookup = resolution != null ? null : lookups.fork(() -> equipmentId != null
+                ? policyRepository.findAssignedPolicyIds(userId, equipmentId)
+                : new ArrayList<>(loadSubjectPolicyIds(userId)));
+        Future<List<WorkGroup>> workGroupsLookup = resolution != null || indexedWorkGroups != null ? null : lookups.fork(() -> equipmentId != null
+                ? workGroupRepository.findByUserIdAndEquipmentId(userId, equipmentId)
+                : Collections.<WorkGroup>emptyList());
+
+        // Load equipment data from the cached equipment context
+        EquipmentContext equipmentContext = lookups.join(equipmentContextLookup);
+        if (equipmentId != null && equipmentContext == null) {
+            negativeLookupCache.recordMissingEquipment(equipmentId);
         }
-
-        // Policies from PolicyGroups assigned to user
-        List<PolicyGroup> userPolicyGroups = policyGroupRepository.findAssignedToUser(user.getId());
-        userPolicyGroups.forEach(pg -> {
-            pg.getPolicyMembers().forEach(member -> policyIds.add(member.getPolicy().getId()));
-        });
-        System.out.println("Policies from PolicyGroups assigned to user: " + userPolicyGroups);
-
-        // Policies from PolicyGroups assigned to user's groups
-        user.getGroups().forEach(group -> {
-            List<PolicyGroup> groupPolicyGroups = policyGroupRepository.findAssignedToUserGroup(group.getId());
-            System.out.println("Policies from PolicyGroups assigned to user's groups: " + groupPolicyGroups);
-            groupPolicyGroups.forEach(pg -> {
-                pg.getPolicyMembers().forEach(member -> policyIds.add(member.getPolicy().getId()));
-            });
-        });
-
-        // Policies from PolicyGroups assigned to user's roles
-        user.getRoles().forEach(role -> {
-            List<PolicyGroup> rolePolicyGroups = policyGroupRepository.findAssignedToRole(role.getId());
-            System.out.println("Policies from PolicyGroups assigned to user's roles: " + rolePolicyGroups);
-            rolePolicyGroups.forEach(pg -> {
-                pg.getPolicyMembers().forEach(member -> policyIds.add(member.getPolicy().getId()));
-            });
-        });
-
-        // Only include equipment-assigned policies if user has at least one user/group/role assignment
-        // This prevents unassigned users from accessing equipment via equipment-only policies
-        if (!policyIds.isEmpty() && equipmentId != null) {
-            List<EquipmentPolicy> equipmentPolicies = policyRepository.findAssignedToEquipment(equipmentId);
-            System.out.println("policies assigned to equipment: " + equipmentPolicies);
-            equipmentPolicies.forEach(p -> policyIds.add(p.getId()));
-        }
-
-        // ========== PHASE 3: Policies assigned to AccountTypes ==========
-        // Load policies based on account types available on the equipment
-        if (equipmentId != null) {
-            List<Account> equipmentAccounts = accountRepository.findByEquipmentIdAndActiveTrue(equipmentId);
-            Set<Long> processedAccountTypeIds = new HashSet<>();
-            
-            for (Account account : equipmentAccounts) {
-                if (account.getAccountType() != null) {
-                    Long accountTypeId = account.getAccountType().getId();
-                    // Avoid duplicate queries for the same account type
-                    if (!processedAccountTypeIds.contains(accountTypeId)) {
-                        processedAccountTypeIds.add(accountTypeId);
-                        List<EquipmentPolicy> accountTypePolicies = policyRepository.findAssignedToAccountType(accountTypeId);
-                        accountTypePolicies.forEach(p -> policyIds.add(p.getId()));
-                        System.out.println("Policies assigned to AccountType (" + account.getAccountType().getTypeCode() + "): " + accountTypePolicies);
-                    }
-                }
+        applyEquipmentContext(request, equipmentContext);
+
+        // Resolve all assigned policies (user, groups, roles, user type, policy groups, equipment,
+        // account types and work groups) in a single SQL statement instead of one query per group/role.
+        // Equipment-assigned policies are only included if the user has at least one subject-side assignment,
+        // which prevents unassigned users from accessing equipment via equipment-only policies
+        Set<Long> policyIds = resolution != null
+                ? resolution.getPolicyIds()
+                : new HashSet<>(lookups.join(policyIdsLookup));
+
+        // ========== WORK GROUP NAMES (Phase 2) ==========
+        // Work group policies are already part of the resolved ids; the names are still exposed
+        // as an attribute for potential rule conditions
+        if (equipmentId != null && resolution != null) {
+            if (!resolution.getWorkGroupNames().isEmpty()) {
+                request.setAttribute("workGroupNames", new HashSet<>(resolution.getWorkGroupNames()));
             }
-        }
-
-        // ========== WORK GROUP POLICIES (Phase 2) ==========
-        // Find work groups where the user AND equipment are both members
-        // This implements the "project/workspace" concept where users can only access
-        // equipment within the same work group, and the work group's policy catalog applies
-        if (equipmentId != null) {
-            List<WorkGroup> userEquipmentWorkGroups = workGroupRepository.findByUserIdAndEquipmentId(user.getId(), equipmentId);
+        } else if (equipmentId != null && indexedWorkGroups != null) {
+            if (!indexedWorkGroups.isEmpty()) {
+                request.setAttribute("workGroupNames", indexedWorkGroups.stream()
+                        .map(WorkGroupIndex.Membership::getWorkGroupName)
+                        .collect(Collectors.toSet()));
+            }
+        } else if (equipmentId != null) {
+            List<WorkGroup> userEquipmentWorkGroups = lookups.join(workGroupsLookup);
             if (!userEquipmentWorkGroups.isEmpty()) {
                 System.out.println("Work Groups containing both user and equipment: " + userEquipmentWorkGroups.stream()
                         .map(wg -> wg.getWorkGroupName() + "(ID:" + wg.getId() + ")")
                         .collect(Collectors.joining(", ")));
-                
-                // Add policies from work group catalogs
-                for (WorkGroup workGroup : userEquipmentWorkGroups) {
-                    Set<EquipmentPolicy> workGroupPolicies = workGroup.getPolicies();
-                    if (workGroupPolicies != null && !workGroupPolicies.isEmpty()) {
-                        workGroupPolicies.stream()
-                                .filter(EquipmentPolicy::isEnabled)
-                                .forEach(p -> policyIds.add(p.getId()));
-                        System.out.println("Policies from WorkGroup '" + workGroup.getWorkGroupName() + "': " + 
-                                workGroupPolicies.stream()
-                                        .filter(EquipmentPolicy::isEnabled)
-                                        .map(p -> p.getPolicyName() + "(ID:" + p.getId() + ")")
-                                        .collect(Collectors.joining(", ")));
-                    }
-                }
-                
-                // Set work group names as attribute for potential rule conditions
-                Set<String> workGroupNames = userEquipmentWorkGroups.stream()
+
+                request.setAttribute("workGroupNames", userEquipmentWorkGroups.stream()
                         .map(WorkGroup::getWorkGroupName)
-                        .collect(Collectors.toSet());
-                request.setAttribute("workGroupNames", workGroupNames);
+                        .collect(Collectors.toSet()));
             } else {
                 System.out.println("No work groups contain both user '" + username + "' and equipment ID " + equipmentId);
             }
         }
 
+        // Date-bounded policies outside their window are dropped using the calendar's published set
+        activationCalendar.removeInactive(policyIds);
         request.setAssignedPolicyIds(policyIds);
 
         // Debug logging for policy resolution
@@ -232,70 +196,19 @@ public class PolicyFactLoader {
 
         // Load policy details for all assigned policies
         if (!policyIds.isEmpty()) {
-            List<EquipmentPolicy> policies = policyRepository.findAllById(policyIds);
-
-            Set<String> allProtocols = new HashSet<>();
-            Set<String> allDbms = new HashSet<>();
-            Set<String> allBlacklistedCommands = new HashSet<>();
-            Set<String> allWhitelistedCommands = new HashSet<>();
-            Set<TimeSlot> allTimeSlots = new HashSet<>();
-            Set<String> allAllowedIps = new HashSet<>();
-            final String[] ipFilteringType = {null}; // Use array to allow modification in lambda
-
-            for (EquipmentPolicy policy : policies) {
-                if (!policy.isEnabled() || !"apply".equals(policy.getPolicyApplication())) {
-                    continue;
-                }
-
-                String policyConfigJson = policy.getPolicyConfig();
-                if (policyConfigJson == null || policyConfigJson.isEmpty()) {
-                    continue;
-                }
-
-                // Use cached JSONB config parsing
-                Map<String, Object> config = policyConfigCache.getParsedConfig(
-                    policy.getId(),
-                    policyConfigJson
-                );
-
-                // Get policy type and aggregate based on type
-                String typeCode = policy.getPolicyType().getTypeCode();
-
-                switch (typeCode) {
-                    case "commonSettings":
-                        aggregateCommonSettings(config, allProtocols, allDbms);
-                        break;
-                    case "allowedTime":
-                        aggregateAllowedTime(config, allTimeSlots);
-                        break;
-                    case "loginControl":
-                        aggregateLoginControl(config, allAllowedIps, ipFilteringType);
-                        break;
-                    case "commandSettings":
-                        aggregateCommandSettings(config, allBlacklistedCommands, allWhitelistedCommands);
-                        break;
-                }
-            }
-
-            request.setAllowedProtocols(allProtocols);
-            request.setAllowedDbms(allDbms);
-            request.setBlacklistedCommands(allBlacklistedCommands);
-            request.setWhitelistedCommands(allWhitelistedCommands);
-            request.setAllowedTimeSlots(allTimeSlots);
-            request.setAllowedIps(allAllowedIps);
-            request.setIpFilteringType(ipFilteringType[0]);
+            AggregatedPolicies aggregated = factLookupExecutor.step(() -> aggregatedForClass(policyIds));
+            applyAggregatedPolicies(request, aggregated);
 
             // Continue debug logging
-            System.out.println("Loaded Policies: " + policies.stream()
-                    .map(p -> p.getPolicyName() + "(ID:" + p.getId() + ", enabled:" + p.isEnabled() + ")")
-                    .collect(Collectors.joining(", ")));
-            System.out.println("Allowed Protocols: " + allProtocols);
-            System.out.println("Allowed DBMS: " + allDbms);
-            System.out.println("Allowed TimeSlots: " + allTimeSlots.stream()
+            System.out.println("Loaded Policies: " + aggregated.loadedPolicies);
+            System.out.println("Allowed Protocols: " + aggregated.protocols);
+            System.out.println("Allowed DBMS: " + aggregated.dbms);
+            System.out.println("Allowed TimeSlots: " + aggregated.timeSlots.stream()
                 .sorted((a, b) -> a.getDayOfWeek().compareTo(b.getDayOfWeek()))
-                .map(ts -> "Day" + ts.getDayOfWeek() + "(" + ts.getHourStart() + "-" + ts.getHourEnd() + "h)")
+                .map(ts -> "Day" + ts.getDayOfWeek() + "(" + formatMinute(ts.getMinuteStart()) + "-" + formatMinute(ts.getMinuteEnd()) + ")")
                 .collect(Collectors.joining(", ")));
-            System.out.println("Current Request Time: Day" + request.getCurrentDayOfWeek() + " Hour" + request.getCurrentHour());
+            System.out.println("Current Request Time: Day" + request.getCurrentDayOfWeek() + " Hour" + request.getCurrentHour()
+                + " Minute" + request.getCurrentMinute());
             System.out.println("isWithinAllowedTime: " + request.isWithinAllowedTime());
             System.out.println("================================");
         }
@@ -304,148 +217,549 @@ public class PolicyFactLoader {
     }
 
     /**
-     * Aggregate commonSettings from policy config
+     * Load request facts for a batch of (username, equipmentId) pairs
+     * Each distinct user is loaded and resolved once (subject policies and work group memberships),
+     * equipment contexts are fetched in bulk, and policy configs are
+     * aggregated once per distinct policy id set. Facts are returned in input order; an entry is
+     * null when its user does not exist.
      */
-    private void aggregateCommonSettings(Map<String, Object> config, 
-                                         Set<String> allProtocols, 
-                                         Set<String> allDbms) {
-        @SuppressWarnings("unchecked")
-        Map<String, Object> commonSettings = (Map<String, Object>) config.get("commonSettings");
-        if (commonSettings != null) {
-            @SuppressWarnings("unchecked")
-            List<String> protocols = (List<String>) commonSettings.get("allowedProtocols");
-            if (protocols != null) {
-                allProtocols.addAll(protocols);
+    @Transactional(readOnly = true)
+    public List<EquipmentAccessRequest> loadPoliciesIntoFacts(List<String> usernames, List<Long> equipmentIds) {
+        if (usernames.size() != equipmentIds.size()) {
+            throw new RuntimeException("Batch usernames and equipment ids must have the same size");
+        }
+
+        // Group equipment ids by user so each user's lookups run once for the whole batch
+        Map<String, Set<Long>> equipmentIdsByUser = new LinkedHashMap<>();
+        for (int i = 0; i < usernames.size(); i++) {
+            Set<Long> ids = equipmentIdsByUser.computeIfAbsent(usernames.get(i), u -> new HashSet<>());
+            if (equipmentIds.get(i) != null) {
+                ids.add(equipmentIds.get(i));
             }
+        }
 
-            @SuppressWarnings("unchecked")
-            List<String> dbms = (List<String>) commonSettings.get("allowedDbms");
-            if (dbms != null) {
-                allDbms.addAll(dbms);
+        Map<String, User> users = new HashMap<>();
+        Map<String, Set<Long>> subjectPolicyIdsByUser = new HashMap<>();
+        Map<String, Map<Long, Set<String>>> workGroupNamesByUser = new HashMap<>();
+        Map<String, Map<Long, Set<Long>>> workGroupPolicyIdsByUser = new HashMap<>();
+        // One graph snapshot for the whole batch, if current
+        AuthorizationGraph.Snapshot graph = authorizationGraph.current();
+        for (Map.Entry<String, Set<Long>> entry : equipmentIdsByUser.entrySet()) {
+            User user = userRepository.findByUsername(entry.getKey()).orElse(null);
+            if (user == null) {
+                negativeLookupCache.recordMissingUser(entry.getKey());
+                continue;
             }
+            users.put(entry.getKey(), user);
+
+            Map<Long, Set<String>> namesByEquipment = new HashMap<>();
+            Map<Long, Set<Long>> policyIdsByEquipment = new HashMap<>();
+            Set<Long> subjectPolicyIds = graph != null ? graph.subjectPolicyIds(user.getId()) : null;
+            if (subjectPolicyIds != null) {
+                subjectPolicyIdsByUser.put(entry.getKey(), subjectPolicyIds);
+                for (Long equipmentId : entry.getValue()) {
+                    AuthorizationGraph.Resolution workGroups = graph.workGroups(user.getId(), equipmentId);
+                    if (!workGroups.getWorkGroupNames().isEmpty()) {
+                        namesByEquipment.put(equipmentId, workGroups.getWorkGroupNames());
+                        policyIdsByEquipment.put(equipmentId, workGroups.getPolicyIds());
+                    }
+                }
+            } else {
+                subjectPolicyIdsByUser.put(entry.getKey(), loadSubjectPolicyIds(user.getId()));
+                if (!entry.getValue().isEmpty()
+                        && !collectIndexedWorkGroups(user.getId(), entry.getValue(), namesByEquipment, policyIdsByEquipment)) {
+                    for (Object[] row : workGroupRepository.findMembershipRowsForUser(user.getId(), entry.getValue())) {
+                        Long rowEquipmentId = ((Number) row[0]).longValue();
+                        namesByEquipment.computeIfAbsent(rowEquipmentId, id -> new HashSet<>()).add((String) row[1]);
+                        Set<Long> rowPolicyIds = policyIdsByEquipment.computeIfAbsent(rowEquipmentId, id -> new HashSet<>());
+                        if (row[2] != null) {
+                            rowPolicyIds.add(((Number) row[2]).longValue());
+                        }
+                    }
+                }
+            }
+            workGroupNamesByUser.put(entry.getKey(), namesByEquipment);
+            workGroupPolicyIdsByUser.put(entry.getKey(), policyIdsByEquipment);
+        }
+
+        Set<Long> distinctEquipmentIds = new HashSet<>();
+        equipmentIdsByUser.values().forEach(distinctEquipmentIds::addAll);
+        Map<Long, EquipmentContext> contexts = equipmentContextCache.getContexts(distinctEquipmentIds);
+        Set<AggregatedPolicies> distinctClasses = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<EquipmentAccessRequest> requests = new ArrayList<>(usernames.size());
+        for (int i = 0; i < usernames.size(); i++) {
+            String username = usernames.get(i);
+            Long equipmentId = equipmentIds.get(i);
+            User user = users.get(username);
+            if (user == null) {
+                requests.add(null);
+                continue;
+            }
+
+            EquipmentAccessRequest request = new EquipmentAccessRequest();
+            request.setUsername(username);
+            request.setEquipmentId(equipmentId);
+            applyUser(request, user);
+
+            EquipmentContext equipmentContext = equipmentId != null ? contexts.get(equipmentId) : null;
+            if (equipmentId != null && equipmentContext == null) {
+                negativeLookupCache.recordMissingEquipment(equipmentId);
+            }
+            applyEquipmentContext(request, equipmentContext);
+
+            // Same rules as the single-statement resolution in EquipmentPolicyRepository
+            Set<Long> subjectPolicyIds = subjectPolicyIdsByUser.get(username);
+            Set<Long> policyIds = new HashSet<>(subjectPolicyIds);
+            if (equipmentContext != null) {
+                if (!subjectPolicyIds.isEmpty()) {
+                    policyIds.addAll(equipmentContext.getEquipmentPolicyIds());
+                }
+                policyIds.addAll(equipmentContext.getAccountTypePolicyIds());
+            }
+            if (equipmentId != null) {
+                Set<String> workGroupNames = workGroupNamesByUser.get(username).get(equipmentId);
+                if (workGroupNames != null) {
+                    request.setAttribute("workGroupNames", new HashSet<>(workGroupNames));
+                    policyIds.addAll(workGroupPolicyIdsByUser.get(username).get(equipmentId));
+                }
+            }
+            activationCalendar.removeInactive(policyIds);
+            request.setAssignedPolicyIds(policyIds);
+
+            if (!policyIds.isEmpty()) {
+                AggregatedPolicies aggregated = aggregatedForClass(policyIds);
+                distinctClasses.add(aggregated);
+                applyAggregatedPolicies(request, aggregated);
+            }
+            requests.add(request);
         }
+
+        System.out.println("Batch fact loading: " + usernames.size() + " items, " + users.size() + " users, "
+                + contexts.size() + " equipment, " + distinctClasses.size() + " subject classes");
+        return requests;
     }
 
     /**
-     * Aggregate allowedTime from policy config
+     * Build one request fact per subject profile on a single equipment
+     * Used by the reverse authorization query, which evaluates each distinct profile once instead
+     * of once per user. Facts carry no username but the profile's live session counts; results map
+     * back to users through the profile.
      */
-    private void aggregateAllowedTime(Map<String, Object> config, Set<TimeSlot> allTimeSlots) {
-        @SuppressWarnings("unchecked")
-        Map<String, Object> allowedTime = (Map<String, Object>) config.get("allowedTime");
-        if (allowedTime != null) {
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> timeSlots = (List<Map<String, Object>>) allowedTime.get("timeSlots");
-            if (timeSlots != null) {
-                timeSlots.forEach(ts -> {
-                    Object dayOfWeekObj = ts.get("dayOfWeek");
-                    Object hourStartObj = ts.get("hourStart");
-                    Object hourEndObj = ts.get("hourEnd");
-                    if (dayOfWeekObj != null && hourStartObj != null && hourEndObj != null) {
-                        // Convert dayOfWeek to Integer (1=Monday, 7=Sunday)
-                        Integer dayOfWeek;
-                        if (dayOfWeekObj instanceof Integer) {
-                            dayOfWeek = (Integer) dayOfWeekObj;
-                        } else if (dayOfWeekObj instanceof Number) {
-                            dayOfWeek = ((Number) dayOfWeekObj).intValue();
-                        } else {
-                            // Handle string day names (MONDAY, TUESDAY, etc.)
-                            String dayStr = dayOfWeekObj.toString().toUpperCase();
-                            dayOfWeek = convertDayNameToInteger(dayStr);
-                        }
-
-                        Integer hourStart = hourStartObj instanceof Integer ?
-                            (Integer) hourStartObj : Integer.valueOf(hourStartObj.toString());
-                        Integer hourEnd = hourEndObj instanceof Integer ?
-                            (Integer) hourEndObj : Integer.valueOf(hourEndObj.toString());
-
-                        if (dayOfWeek != null) {
-                            allTimeSlots.add(new TimeSlot(dayOfWeek, hourStart, hourEnd));
-                        }
-                    }
-                });
+    @Transactional(readOnly = true)
+    public List<EquipmentAccessRequest> loadSubjectProfileFacts(EquipmentContext equipmentContext,
+                                                                List<SubjectProfile> profiles) {
+        List<EquipmentAccessRequest> requests = new ArrayList<>(profiles.size());
+        for (SubjectProfile profile : profiles) {
+            EquipmentAccessRequest request = new EquipmentAccessRequest();
+            request.setEquipmentId(equipmentContext.getEquipmentId());
+            applyEquipmentContext(request, equipmentContext);
+            if (profile.getUserTypeCode() != null) {
+                request.setAttribute("userTypeCode", profile.getUserTypeCode());
             }
+            if (!profile.getWorkGroupNames().isEmpty()) {
+                request.setAttribute("workGroupNames", new HashSet<>(profile.getWorkGroupNames()));
+            }
+            request.setCurrentSshSessions(profile.getSshSessions());
+            request.setCurrentRdpSessions(profile.getRdpSessions());
+            request.setCurrentTelnetSessions(profile.getTelnetSessions());
+            Set<Long> policyIds = new HashSet<>(profile.getPolicyIds());
+            activationCalendar.removeInactive(policyIds);
+            request.setAssignedPolicyIds(policyIds);
+            if (!policyIds.isEmpty()) {
+                applyAggregatedPolicies(request, aggregatedForClass(policyIds));
+            }
+            requests.add(request);
         }
+        return requests;
     }
 
     /**
-     * Aggregate loginControl from policy config
+     * Subject-side policy ids from the database, in one statement either way
+     * When the membership cache is current, the direct policy ids and the assigned policy group
+     * ids come back together and the groups are expanded from the cache, skipping the member join;
+     * otherwise SUBJECT_POLICY_IDS_SQL does the expansion. Only a cache that turns stale between
+     * the check and the expansion costs a second query.
      */
-    private void aggregateLoginControl(Map<String, Object> config, 
-                                       Set<String> allAllowedIps, 
-                                       String[] ipFilteringType) {
-        @SuppressWarnings("unchecked")
-        Map<String, Object> loginControl = (Map<String, Object>) config.get("loginControl");
-        if (loginControl != null) {
-            String filteringType = (String) loginControl.get("ipFilteringType");
-            if (ipFilteringType[0] == null && filteringType != null) {
-                ipFilteringType[0] = filteringType;
+    private Set<Long> loadSubjectPolicyIds(Long userId) {
+        if (policyGroupMembershipCache.isCurrent()) {
+            Set<Long> policyIds = new HashSet<>();
+            List<Long> policyGroupIds = new ArrayList<>();
+            for (Object[] row : policyRepository.findSubjectAssignmentRows(userId)) {
+                long id = ((Number) row[1]).longValue();
+                if (((Number) row[0]).intValue() == 0) {
+                    policyIds.add(id);
+                } else {
+                    policyGroupIds.add(id);
+                }
+            }
+            if (policyGroupMembershipCache.expandInto(policyGroupIds, policyIds)) {
+                return policyIds;
             }
+        }
+        return new HashSet<>(policyRepository.findSubjectPolicyIds(userId));
+    }
 
-            @SuppressWarnings("unchecked")
-            List<String> allowedIps = (List<String>) loginControl.get("allowedIps");
-            if (allowedIps != null) {
-                allAllowedIps.addAll(allowedIps);
+    /**
+     * Work group names and enabled policy ids per equipment from the work group index
+     *
+     * @return False (and nothing collected) if the index is not current
+     */
+    private boolean collectIndexedWorkGroups(Long userId, Set<Long> equipmentIds,
+                                             Map<Long, Set<String>> namesByEquipment,
+                                             Map<Long, Set<Long>> policyIdsByEquipment) {
+        Map<Long, Set<String>> names = new HashMap<>();
+        Map<Long, Set<Long>> policyIds = new HashMap<>();
+        for (Long equipmentId : equipmentIds) {
+            List<WorkGroupIndex.Membership> memberships = workGroupIndex.findByUserAndEquipment(userId, equipmentId);
+            if (memberships == null) {
+                return false;
+            }
+            for (WorkGroupIndex.Membership membership : memberships) {
+                names.computeIfAbsent(equipmentId, id -> new HashSet<>()).add(membership.getWorkGroupName());
+                Set<Long> equipmentPolicyIds = policyIds.computeIfAbsent(equipmentId, id -> new HashSet<>());
+                for (long policyId : membership.getEnabledPolicyIds()) {
+                    equipmentPolicyIds.add(policyId);
+                }
             }
         }
+        namesByEquipment.putAll(names);
+        policyIdsByEquipment.putAll(policyIds);
+        return true;
     }
 
     /**
-     * Aggregate commandSettings from policy config
+     * Copy user identity, roles, groups and user type onto the request fact
      */
-    private void aggregateCommandSettings(Map<String, Object> config,
-                                          Set<String> allBlacklistedCommands,
-                                          Set<String> allWhitelistedCommands) {
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> commandSettings = (List<Map<String, Object>>) config.get("commandSettings");
-        if (commandSettings != null) {
-            for (Map<String, Object> cmdSetting : commandSettings) {
-                @SuppressWarnings("unchecked")
-                List<Number> commandListIds = (List<Number>) cmdSetting.get("commandListIds");
-                if (commandListIds != null) {
-                    // Load CommandList entities (these stay normalized)
-                    for (Number listId : commandListIds) {
-                        CommandList cmdList = commandListRepository.findById(listId.longValue())
-                                .orElse(null);
-                        if (cmdList != null) {
-                            Set<String> commands = cmdList.getItems().stream()
-                                    .map(CommandListItem::getCommandText)
-                                    .collect(Collectors.toSet());
-
-                            if ("blacklist".equals(cmdList.getListType())) {
-                                allBlacklistedCommands.addAll(commands);
-                            } else if ("whitelist".equals(cmdList.getListType())) {
-                                allWhitelistedCommands.addAll(commands);
-                            }
-                        }
+    private void applyUser(EquipmentAccessRequest request, User user) {
+        request.setUserId(user.getId());
+        request.setUserRoles(user.getRoleNames());
+        request.setUserGroups(user.getGroupNames());
+
+        // Set user type code for policy evaluation
+        if (user.getUserType() != null) {
+            request.setAttribute("userTypeCode", user.getUserType().getTypeCode());
+            System.out.println("User Type: " + user.getUserType().getTypeCode());
+        }
+
+        // Live session counts for maxSshSessions/maxRdpSessions/maxTelnetSessions, read from memory
+        request.setCurrentSshSessions(sessionRegistry.getSessionCount(user.getUsername(), "SSH"));
+        request.setCurrentRdpSessions(sessionRegistry.getSessionCount(user.getUsername(), "RDP"));
+        request.setCurrentTelnetSessions(sessionRegistry.getSessionCount(user.getUsername(), "TELNET"));
+    }
+
+    /**
+     * Copy device attributes and account type codes from the equipment context onto the request fact
+     */
+    private void applyEquipmentContext(EquipmentAccessRequest request, EquipmentContext equipmentContext) {
+        if (equipmentContext == null) {
+            return;
+        }
+        request.setEquipmentName(equipmentContext.getDeviceName());
+        request.setProtocol(equipmentContext.getProtocol());
+        request.setDbmsType(equipmentContext.getProtocol()); // Set DBMS type from protocol if applicable
+
+        // Populate attributes map for custom conditions
+        equipmentContext.getAttributes().forEach(request::setAttribute);
+
+        // Set account type codes of the accounts on this equipment
+        if (!equipmentContext.getAccountTypeCodes().isEmpty()) {
+            request.setAttribute("equipmentAccountTypeCodes", new HashSet<>(equipmentContext.getAccountTypeCodes()));
+            System.out.println("Equipment Account Types: " + equipmentContext.getAccountTypeCodes());
+        }
+    }
+
+    /**
+     * Aggregated view of a subject class, from subjectClassPolicyCache
+     * The key includes the rules version, which every policy or assignment change bumps, so a
+     * changed policy is never served from an older aggregation. The second bump after commit
+     * retires entries aggregated from the old rows while the change was still uncommitted.
+     * An entry is rebuilt when a policy time zone's UTC offset changes (DST transition).
+     */
+    private AggregatedPolicies aggregatedForClass(Set<Long> policyIds) {
+        SubjectClassKey key = new SubjectClassKey(policyIds, dynamicRuleService.getRulesVersion());
+        Cache cache = cacheManager.getCache(SUBJECT_CLASS_CACHE);
+        if (cache == null) {
+            return aggregatePolicies(policyIds);
+        }
+        AggregatedPolicies aggregated = cache.get(key, () -> aggregatePolicies(policyIds));
+        if (aggregated.validUntil != null && !Instant.now().isBefore(aggregated.validUntil)) {
+            aggregated = aggregatePolicies(policyIds);
+            cache.put(key, aggregated);
+        }
+        return aggregated;
+    }
+
+    /**
+     * Drop all cached subject class aggregations (e.g. command list contents changed)
+     */
+    public void evictSubjectClasses() {
+        Cache cache = cacheManager.getCache(SUBJECT_CLASS_CACHE);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Load the assigned policies and merge their configs by policy type
+     */
+    private AggregatedPolicies aggregatePolicies(Set<Long> policyIds) {
+        List<EquipmentPolicy> policies = policyRepository.findAllById(policyIds);
+        AggregatedPolicies aggregated = new AggregatedPolicies();
+
+        for (EquipmentPolicy policy : policies) {
+            if (!policy.isEnabled() || !"apply".equals(policy.getPolicyApplication())) {
+                continue;
+            }
+
+            String policyConfigJson = policy.getPolicyConfig();
+            if (policyConfigJson == null || policyConfigJson.isEmpty()) {
+                continue;
+            }
+
+            // Typed config, parsed once per policy version
+            PolicyConfig config = policyConfigCache.getTypedConfig(policy);
+
+            // Get policy type and aggregate based on type
+            String typeCode = policy.getPolicyType().getTypeCode();
+
+            switch (typeCode) {
+                case "commonSettings":
+                    aggregateCommonSettings(config.getCommonSettings(), aggregated.protocols, aggregated.dbms);
+                    break;
+                case "allowedTime":
+                    aggregateAllowedTime(config.getAllowedTime(), aggregated.timeSlots, aggregated.timeBitmap);
+                    aggregated.validUntil = earliest(aggregated.validUntil, nextZoneTransition(config.getAllowedTime()));
+                    break;
+                case "loginControl":
+                    aggregateLoginControl(config.getLoginControl(), aggregated);
+                    aggregated.loginControlVersions.add(policy.getId() + "@" + policy.getUpdatedAt());
+                    aggregated.lockSettings = aggregateAccountLock(config.getLoginControl(), aggregated.lockSettings);
+                    break;
+                case "commandSettings":
+                    if (config.getCommandSettings() != null) {
+                        aggregated.commandListIds.addAll(config.getCommandSettings().getCommandListIds());
                     }
-                }
+                    break;
             }
         }
+
+        // Compile the merged command lists once per distinct list set
+        if (!aggregated.commandListIds.isEmpty()) {
+            CommandDictionary dictionary = commandMatcherCache.getMatcher(Set.copyOf(aggregated.commandListIds));
+            aggregated.commandDictionary = dictionary;
+            aggregated.blacklistedCommands = dictionary.getBlacklistedCommands();
+            aggregated.whitelistedCommands = dictionary.getWhitelistedCommands();
+        }
+
+        if (!aggregated.timeSlots.isEmpty()) {
+            aggregated.allowedTimeBitmap = aggregated.timeBitmap;
+        }
+
+        // A single allowlist is used as compiled with its policy; merged ones are compiled once
+        // per distinct set of loginControl policy versions
+        if (aggregated.ipTries.size() == 1) {
+            aggregated.allowedIpTrie = aggregated.ipTries.get(0);
+        } else if (!aggregated.allowedIps.isEmpty()) {
+            aggregated.allowedIpTrie = ipAllowlistCache.getTrie(aggregated.loginControlVersions, aggregated.allowedIps);
+        }
+
+        aggregated.loadedPolicies = policies.stream()
+                .map(p -> p.getPolicyName() + "(ID:" + p.getId() + ", enabled:" + p.isEnabled() + ")")
+                .collect(Collectors.joining(", "));
+        return aggregated;
     }
 
     /**
-     * Convert day name string to integer (1=Monday, 7=Sunday)
+     * Next offset change of the policy zone or the server zone, after which the shift is stale
      */
-    private Integer convertDayNameToInteger(String dayName) {
-        if (dayName == null) {
+    private Instant nextZoneTransition(PolicyConfig.AllowedTime allowedTime) {
+        if (allowedTime == null || allowedTime.getTimeZone() == null) {
             return null;
         }
-        return switch (dayName.toUpperCase()) {
-            case "MONDAY", "MON" -> 1;
-            case "TUESDAY", "TUE" -> 2;
-            case "WEDNESDAY", "WED" -> 3;
-            case "THURSDAY", "THU" -> 4;
-            case "FRIDAY", "FRI" -> 5;
-            case "SATURDAY", "SAT" -> 6;
-            case "SUNDAY", "SUN" -> 7;
-            default -> {
-                // Try to parse as integer
-                try {
-                    yield Integer.valueOf(dayName);
-                } catch (NumberFormatException e) {
-                    yield null;
-                }
+        Instant now = Instant.now();
+        ZoneOffsetTransition policyTransition = allowedTime.getTimeZone().getRules().nextTransition(now);
+        ZoneOffsetTransition serverTransition = ZoneId.systemDefault().getRules().nextTransition(now);
+        return earliest(policyTransition != null ? policyTransition.getInstant() : null,
+                serverTransition != null ? serverTransition.getInstant() : null);
+    }
+
+    private static Instant earliest(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isBefore(b) ? a : b;
+    }
+
+    /**
+     * Copy aggregated policy settings onto the request fact
+     * Each request gets its own sets so facts sharing an aggregation stay independent,
+     * except for the read-only command, time slot and IP allowlist sets
+     */
+    private void applyAggregatedPolicies(EquipmentAccessRequest request, AggregatedPolicies aggregated) {
+        request.setAllowedProtocols(new HashSet<>(aggregated.protocols));
+        request.setAllowedDbms(new HashSet<>(aggregated.dbms));
+        // Command lists can hold thousands of entries; the immutable sets and dictionary are shared
+        request.setBlacklistedCommands(aggregated.blacklistedCommands);
+        request.setWhitelistedCommands(aggregated.whitelistedCommands);
+        request.setCommandDictionary(aggregated.commandDictionary);
+        request.setAllowedTimeSlots(Collections.unmodifiableSet(aggregated.timeSlots));
+        request.setAllowedTimeBitmap(aggregated.allowedTimeBitmap);
+        request.setAllowedIps(Collections.unmodifiableSet(aggregated.allowedIps));
+        request.setAllowedIpTrie(aggregated.allowedIpTrie);
+        request.setIpFilteringType(aggregated.ipFilteringType);
+    }
+
+    /**
+     * accountLock settings merged from the user's subject-side loginControl policies (user, groups,
+     * roles, user type, policy groups), or null if none of them enables accountLock or the user is unknown
+     * Login failures are reported without an equipment, so equipment-, account-type- and
+     * work-group-assigned policies do not take part. Served from the subject class cache.
+     */
+    @Transactional(readOnly = true)
+    public LoginAttemptTracker.LockSettings resolveLockSettings(String username) {
+        PrincipalSnapshot principal = principalSnapshotCache.getSnapshot(username);
+        if (principal == null) {
+            return null;
+        }
+        AuthorizationGraph.Snapshot graph = authorizationGraph.current();
+        Set<Long> policyIds = new HashSet<>(graph != null
+                ? graph.subjectPolicyIds(principal.getUserId())
+                : loadSubjectPolicyIds(principal.getUserId()));
+        activationCalendar.removeInactive(policyIds);
+        if (policyIds.isEmpty()) {
+            return null;
+        }
+        return aggregatedForClass(policyIds).lockSettings;
+    }
+
+    /**
+     * AggregatedPolicies - Settings merged from a set of assigned policies
+     */
+    private static class AggregatedPolicies {
+        private final Set<String> protocols = new HashSet<>();
+        private final Set<String> dbms = new HashSet<>();
+        private final Set<Long> commandListIds = new HashSet<>();
+        private Set<String> blacklistedCommands = Collections.emptySet();
+        private Set<String> whitelistedCommands = Collections.emptySet();
+        private CommandDictionary commandDictionary;
+        private final Set<TimeSlot> timeSlots = new HashSet<>();
+        private final WeeklyTimeBitmap timeBitmap = new WeeklyTimeBitmap();
+        private WeeklyTimeBitmap allowedTimeBitmap;
+        private final Set<String> allowedIps = new HashSet<>();
+        private final Set<String> loginControlVersions = new TreeSet<>();
+        private final List<IpPrefixTrie> ipTries = new ArrayList<>();
+        private IpPrefixTrie allowedIpTrie;
+        private LoginAttemptTracker.LockSettings lockSettings;
+        private String ipFilteringType;
+        private String loadedPolicies;
+        private Instant validUntil; // Next time zone offset change, null if no zone shift applies
+    }
+
+    /**
+     * SubjectClassKey - Canonical fingerprint of an assigned policy id set
+     * Sorted ids, so sets resolved through different roles, groups or policy groups compare equal.
+     */
+    private static final class SubjectClassKey {
+        private final long[] policyIds;
+        private final long rulesVersion;
+        private final int hash;
+
+        private SubjectClassKey(Set<Long> policyIds, long rulesVersion) {
+            this.policyIds = policyIds.stream().mapToLong(Long::longValue).sorted().toArray();
+            this.rulesVersion = rulesVersion;
+            this.hash = 31 * Arrays.hashCode(this.policyIds) + Long.hashCode(rulesVersion);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SubjectClassKey other)) return false;
+            return rulesVersion == other.rulesVersion && Arrays.equals(policyIds, other.policyIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(policyIds) + "@r" + rulesVersion;
+        }
+    }
+
+    /**
+     * Aggregate commonSettings from policy config
+     */
+    private void aggregateCommonSettings(PolicyConfig.CommonSettings commonSettings,
+                                         Set<String> allProtocols,
+                                         Set<String> allDbms) {
+        if (commonSettings != null) {
+            allProtocols.addAll(commonSettings.getAllowedProtocols());
+            allDbms.addAll(commonSettings.getAllowedDbms());
+        }
+    }
+
+    private static String formatMinute(int minuteOfDay) {
+        return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    /**
+     * Aggregate allowedTime from policy config
+     * The policy's bitmap is shifted from its time zone to the server zone at the current offsets.
+     */
+    private void aggregateAllowedTime(PolicyConfig.AllowedTime allowedTime, Set<TimeSlot> allTimeSlots, WeeklyTimeBitmap bitmap) {
+        if (allowedTime != null) {
+            allTimeSlots.addAll(allowedTime.getTimeSlots());
+            bitmap.or(allowedTime.getBitmap(), zoneShiftMinutes(allowedTime.getTimeZone()));
+        }
+    }
+
+    /**
+     * Minutes to add to a time in the policy's zone to get the server zone time, at the current offsets
+     * A missing zone is treated as the server zone.
+     */
+    private int zoneShiftMinutes(ZoneId timeZone) {
+        if (timeZone == null) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        int policyOffset = timeZone.getRules().getOffset(now).getTotalSeconds();
+        int serverOffset = ZoneId.systemDefault().getRules().getOffset(now).getTotalSeconds();
+        return (serverOffset - policyOffset) / 60;
+    }
+
+    /**
+     * Aggregate loginControl from policy config
+     */
+    private void aggregateLoginControl(PolicyConfig.LoginControl loginControl, AggregatedPolicies aggregated) {
+        if (loginControl != null) {
+            if (aggregated.ipFilteringType == null && loginControl.getIpFilteringType() != null) {
+                aggregated.ipFilteringType = loginControl.getIpFilteringType();
+            }
+            if (loginControl.getAllowedIpTrie() != null) {
+                aggregated.allowedIps.addAll(loginControl.getAllowedIps());
+                aggregated.ipTries.add(loginControl.getAllowedIpTrie());
             }
-        };
+        }
+    }
+
+    /**
+     * Merge the accountLock settings of a loginControl policy with the ones collected so far
+     * The strictest combination wins: fewest allowed failures and longest lockout.
+     */
+    private LoginAttemptTracker.LockSettings aggregateAccountLock(PolicyConfig.LoginControl loginControl,
+                                                                  LoginAttemptTracker.LockSettings current) {
+        if (loginControl == null || !loginControl.isAccountLockEnabled()) {
+            return current;
+        }
+        int max = loginControl.getMaxFailureAttempts();
+        int minutes = loginControl.getLockoutDurationMinutes();
+        if (current == null) {
+            return new LoginAttemptTracker.LockSettings(max, minutes);
+        }
+        return new LoginAttemptTracker.LockSettings(
+                Math.min(max, current.getMaxFailureAttempts()),
+                Math.max(minutes, current.getLockoutDurationMinutes()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,223 @@
+package com.hunesion.drool_v2.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PolicyGroupMembershipCache - Flattened policy group membership
+ * Maps every enabled policy group to the sorted ids of its enabled member policies, so expanding
+ * the policy groups of a user is an array copy per group instead of a join over the members.
+ *
+ * Loaded at startup and kept current by PolicyGroupService (members added, removed or replaced,
+ * group created, updated, toggled or deleted) and by policy updates, toggles and deletes, each
+ * reloading only the affected groups after the transaction completes. From the write until the
+ * reload has run, isCurrent() is false and callers use SUBJECT_POLICY_IDS_SQL. A periodic full
+ * reload picks up out-of-band edits.
+ */
+@Service
+public class PolicyGroupMembershipCache {
+
+    private static final long[] EMPTY = new long[0];
+    private static final String MEMBERS_SQL = "SELECT pgm.policy_group_id, pgm.policy_id FROM policy_group_members pgm "
+            + "JOIN policy_groups pg ON pg.id = pgm.policy_group_id AND pg.enabled = true "
+            + "JOIN equipment_policies ep ON ep.id = pgm.policy_id AND ep.enabled = true";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final boolean enabled;
+    private final long rebuildSeconds;
+
+    // Null until the first load completed; groups without enabled members are absent
+    private volatile Map<Long, long[]> membersByGroup;
+    // Writes whose reload has not run yet
+    private final AtomicInteger pendingRefreshes = new AtomicInteger();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "policy-group-membership");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public PolicyGroupMembershipCache(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${policy.policy-group-membership.enabled:true}") boolean enabled,
+            @Value("${policy.policy-group-membership.rebuild-seconds:300}") long rebuildSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebuildSeconds = Math.max(10, rebuildSeconds);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::reloadQuietly, rebuildSeconds, rebuildSeconds, TimeUnit.SECONDS);
+            reloadQuietly();
+        }
+    }
+
+    /**
+     * True if the cache reflects every committed policy group and policy write on this node
+     */
+    public boolean isCurrent() {
+        return enabled && membersByGroup != null && pendingRefreshes.get() == 0;
+    }
+
+    /**
+     * Add the enabled member policies of the given policy groups (disabled groups contribute none)
+     *
+     * @return False (and nothing added) if the cache is not current
+     */
+    public boolean expandInto(Collection<Long> policyGroupIds, Set<Long> policyIds) {
+        Map<Long, long[]> current = membersByGroup;
+        if (!isCurrent()) {
+            return false;
+        }
+        for (Long policyGroupId : policyGroupIds) {
+            for (long policyId : current.getOrDefault(policyGroupId, EMPTY)) {
+                policyIds.add(policyId);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reload one policy group after the surrounding transaction completes
+     */
+    public void policyGroupChanged(Long policyGroupId) {
+        if (enabled && policyGroupId != null) {
+            afterCompletion(() -> refresh(Set.of(policyGroupId)));
+        }
+    }
+
+    /**
+     * Reload the policy groups containing a policy after the surrounding transaction completes
+     * (policy updated, enabled, disabled or deleted)
+     */
+    public void policyChanged(Long policyId) {
+        if (enabled && policyId != null) {
+            Map<Long, long[]> current = membersByGroup;
+            // A deleted policy's member rows are gone after commit, so find its groups now
+            Set<Long> containing = new HashSet<>();
+            if (current != null) {
+                current.forEach((policyGroupId, members) -> {
+                    if (Arrays.binarySearch(members, policyId) >= 0) {
+                        containing.add(policyGroupId);
+                    }
+                });
+            }
+            afterCompletion(() -> {
+                Set<Long> affected = new HashSet<>(containing);
+                // Groups where the policy was disabled are not in the cache yet
+                affected.addAll(jdbcTemplate.queryForList(
+                        "SELECT policy_group_id FROM policy_group_members WHERE policy_id = ?", Long.class, policyId));
+                if (!affected.isEmpty()) {
+                    refresh(affected);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reload the membership of every policy group and publish it
+     */
+    public synchronized void reload() {
+        Map<Long, long[]> loaded = readTransaction.execute(status -> load(MEMBERS_SQL));
+        membersByGroup = new ConcurrentHashMap<>(loaded);
+        System.out.println("Policy group membership cache loaded: " + loaded.size() + " policy groups");
+    }
+
+    private synchronized void refresh(Set<Long> policyGroupIds) {
+        Map<Long, long[]> current = membersByGroup;
+        if (current == null) {
+            reload();
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(policyGroupIds.size(), "?"));
+        Map<Long, long[]> loaded = readTransaction.execute(status -> load(
+                MEMBERS_SQL + " WHERE pgm.policy_group_id IN (" + placeholders + ")", policyGroupIds.toArray()));
+        for (Long policyGroupId : policyGroupIds) {
+            long[] members = loaded.get(policyGroupId);
+            if (members != null) {
+                current.put(policyGroupId, members);
+            } else {
+                // Deleted, disabled or without enabled members
+                current.remove(policyGroupId);
+            }
+        }
+    }
+
+    private Map<Long, long[]> load(String sql, Object... args) {
+        Map<Long, List<Long>> rows = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            rows.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getLong(2));
+        }, args);
+        Map<Long, long[]> loaded = new HashMap<>();
+        rows.forEach((policyGroupId, policyIds) -> {
+            long[] members = policyIds.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+            loaded.put(policyGroupId, members);
+        });
+        return loaded;
+    }
+
+    /**
+     * Run a reload on the scheduler thread once the transaction has completed
+     * The pending count makes isCurrent() false from now until the reload has run.
+     */
+    private void afterCompletion(Runnable refresh) {
+        pendingRefreshes.incrementAndGet();
+        Runnable task = () -> scheduler.execute(() -> {
+            try {
+                refresh.run();
+            } catch (RuntimeException e) {
+                System.out.println("Policy group membership refresh failed, reloading: " + e.getMessage());
+                reloadQuietly();
+            } finally {
+                pendingRefreshes.decrementAndGet();
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            System.out.println("Policy group membership reload failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
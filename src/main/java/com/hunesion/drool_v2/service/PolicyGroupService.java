@@ -20,6 +20,8 @@ public class PolicyGroupService {
     private final UserGroupRepository userGroupRepository;
     private final RoleRepository roleRepository;
     private final DynamicRuleService dynamicRuleService;
+    private final PolicyGroupMembershipCache membershipCache;
+    private final AuthorizationGraph authorizationGraph;
 
     @Autowired
     public PolicyGroupService(
@@ -28,13 +30,17 @@ public class PolicyGroupService {
             UserRepository userRepository,
             UserGroupRepository userGroupRepository,
             RoleRepository roleRepository,
-            DynamicRuleService dynamicRuleService) {
+            DynamicRuleService dynamicRuleService,
+            PolicyGroupMembershipCache membershipCache,
+            AuthorizationGraph authorizationGraph) {
         this.policyGroupRepository = policyGroupRepository;
         this.policyRepository = policyRepository;
         this.userRepository = userRepository;
         this.userGroupRepository = userGroupRepository;
         this.roleRepository = roleRepository;
         this.dynamicRuleService = dynamicRuleService;
+        this.membershipCache = membershipCache;
+        this.authorizationGraph = authorizationGraph;
     }
 
     // ========== CRUD Operations ==========
@@ -64,6 +70,7 @@ public class PolicyGroupService {
         policyGroup.setEnabled(dto.isEnabled());
 
         PolicyGroup saved = policyGroupRepository.save(policyGroup);
+        membershipCache.policyGroupChanged(saved.getId());
 
         // Add policies if provided
         if (dto.getPolicyIds() != null && !dto.getPolicyIds().isEmpty()) {
@@ -81,12 +88,17 @@ public class PolicyGroupService {
         existing.setDescription(dto.getDescription());
         existing.setEnabled(dto.isEnabled());
 
-        return policyGroupRepository.save(existing);
+        PolicyGroup saved = policyGroupRepository.save(existing);
+        // The enabled flag decides whether the members count
+        membershipCache.policyGroupChanged(id);
+        authorizationGraph.markDirty();
+        return saved;
     }
 
     @Transactional
     public void deletePolicyGroup(Long id) {
         policyGroupRepository.deleteById(id);
+        membershipCache.policyGroupChanged(id);
         dynamicRuleService.rebuildRules();
     }
 
@@ -94,7 +106,10 @@ public class PolicyGroupService {
     public PolicyGroup togglePolicyGroup(Long id, boolean enabled) {
         PolicyGroup policyGroup = getPolicyGroupById(id);
         policyGroup.setEnabled(enabled);
-        return policyGroupRepository.save(policyGroup);
+        PolicyGroup saved = policyGroupRepository.save(policyGroup);
+        membershipCache.policyGroupChanged(id);
+        authorizationGraph.markDirty();
+        return saved;
     }
 
     // ========== Policy Members Management ==========
@@ -124,6 +139,7 @@ public class PolicyGroupService {
         });
 
         policyGroupRepository.save(policyGroup);
+        membershipCache.policyGroupChanged(policyGroupId);
         dynamicRuleService.rebuildRules();
     }
 
@@ -136,6 +152,7 @@ public class PolicyGroupService {
         );
 
         policyGroupRepository.save(policyGroup);
+        membershipCache.policyGroupChanged(policyGroupId);
         dynamicRuleService.rebuildRules();
     }
 
@@ -153,6 +170,7 @@ public class PolicyGroupService {
         });
 
         policyGroupRepository.save(policyGroup);
+        membershipCache.policyGroupChanged(policyGroupId);
         dynamicRuleService.rebuildRules();
     }
 
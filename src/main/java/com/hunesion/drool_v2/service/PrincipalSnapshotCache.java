@@ -0,0 +1,120 @@
+package com.hunesion.drool_v2.service;
+
+import com.hunesion.drool_v2.model.PrincipalSnapshot;
+import com.hunesion.drool_v2.model.entity.User;
+import com.hunesion.drool_v2.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * PrincipalSnapshotCache - Caches immutable principal snapshots by username
+ * Unknown usernames are not kept here but handed to NegativeLookupCache, which remembers them
+ * for a short time only. Writes to users, roles and group
+ * memberships evict the affected entries; eviction runs after commit so a concurrent
+ * reader cannot re-cache the pre-change state.
+ */
+@Service
+public class PrincipalSnapshotCache {
+
+    private static final String CACHE_NAME = "principalSnapshotCache";
+
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final NegativeLookupCache negativeLookupCache;
+
+    @Autowired
+    public PrincipalSnapshotCache(UserRepository userRepository,
+                                  CacheManager cacheManager,
+                                  PlatformTransactionManager transactionManager,
+                                  NegativeLookupCache negativeLookupCache) {
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+        this.negativeLookupCache = negativeLookupCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Get the snapshot of a user, loading it on first use
+     *
+     * @return The snapshot, or null if the user does not exist
+     */
+    public PrincipalSnapshot getSnapshot(String username) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        PrincipalSnapshot snapshot = cache != null
+                ? cache.get(username, () -> load(username))
+                : load(username);
+        if (snapshot == null) {
+            if (cache != null) {
+                cache.evict(username);
+            }
+            negativeLookupCache.recordMissingUser(username);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Evict the snapshot of one user (user created, updated or deleted, roles or groups changed)
+     */
+    public void evictUser(String username) {
+        if (username != null) {
+            afterCommit(() -> {
+                Cache cache = cacheManager.getCache(CACHE_NAME);
+                if (cache != null) {
+                    cache.evict(username);
+                }
+            });
+        }
+    }
+
+    /**
+     * Evict all snapshots (role or group renamed or deleted)
+     */
+    public void evictAll() {
+        afterCommit(() -> {
+            Cache cache = cacheManager.getCache(CACHE_NAME);
+            if (cache != null) {
+                cache.clear();
+            }
+        });
+    }
+
+    // Roles, the user type and attributes are eager; groups are lazy, so read them in the same transaction
+    private PrincipalSnapshot load(String username) {
+        return readOnlyTransaction.execute(status -> userRepository.findByUsername(username)
+                .map(this::toSnapshot)
+                .orElse(null));
+    }
+
+    private PrincipalSnapshot toSnapshot(User user) {
+        return new PrincipalSnapshot(
+                user.getId(),
+                user.getUsername(),
+                user.isActive(),
+                user.getRoleNames(),
+                user.getGroupNames(),
+                user.getDepartment(),
+                user.getLevel(),
+                user.getAttributes());
+    }
+
+    private void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
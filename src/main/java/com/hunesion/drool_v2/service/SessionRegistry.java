@@ -0,0 +1,268 @@
+package com.hunesion.drool_v2.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * SessionRegistry - Live equipment sessions and per-user protocol counters
+ * Gateways open a session after a successful access check, send heartbeats while it is alive
+ * and close it at the end. Counters are kept per (user, protocol) and updated atomically per key, so
+ * PolicyFactLoader reads the counts without DB access; a counter is removed when it drops to zero,
+ * so users without live sessions leave nothing behind. Sessions whose heartbeats stop are reaped
+ * after the TTL.
+ *
+ * With policy.sessions.shared-store enabled, sessions are also written to the live_sessions table
+ * and the counts of the other nodes are pulled periodically into an in-memory snapshot.
+ */
+@Service
+public class SessionRegistry {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlMillis;
+    private final boolean sharedStore;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, LiveSession> sessions = new ConcurrentHashMap<>();
+    // Absent when zero
+    private final Map<String, Integer> counters = new ConcurrentHashMap<>();
+    // Sessions of other nodes, refreshed by the sync task (shared store only)
+    private volatile Map<String, Integer> remoteCounts = Collections.emptyMap();
+    // Notified with the session ID when a session is closed or reaped
+    private final List<Consumer<String>> closeListeners = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-registry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public SessionRegistry(
+            JdbcTemplate jdbcTemplate,
+            @Value("${policy.sessions.ttl-seconds:90}") long ttlSeconds,
+            @Value("${policy.sessions.shared-store:false}") boolean sharedStore) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(Math.max(1, ttlSeconds));
+        this.sharedStore = sharedStore;
+
+        long period = Math.max(1000, ttlMillis / 3);
+        scheduler.scheduleWithFixedDelay(this::reapAndSync, period, period, TimeUnit.MILLISECONDS);
+        System.out.println("Session registry: ttl " + ttlSeconds + "s, " + (sharedStore ? "shared store" : "local only"));
+    }
+
+    /**
+     * Register a new session
+     *
+     * @return The session ID to use for heartbeats and close
+     */
+    public LiveSession open(String username, Long equipmentId, String protocol) {
+        if (username == null || protocol == null) {
+            throw new RuntimeException("username and protocol are required");
+        }
+        LiveSession session = new LiveSession(UUID.randomUUID().toString(), username, equipmentId,
+                protocol.toUpperCase(), System.currentTimeMillis());
+        sessions.put(session.getSessionId(), session);
+        increment(session.getUsername(), session.getProtocol());
+
+        if (sharedStore) {
+            jdbcTemplate.update(
+                    "INSERT INTO live_sessions (session_id, node_id, username, equipment_id, protocol, opened_at, last_seen_at) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    session.getSessionId(), nodeId, session.getUsername(), session.getEquipmentId(),
+                    session.getProtocol(), new Timestamp(session.getOpenedAt()), new Timestamp(session.getOpenedAt()));
+        }
+        return session;
+    }
+
+    /**
+     * Keep a session alive
+     *
+     * @return false if the session is unknown or was already reaped
+     */
+    public boolean heartbeat(String sessionId) {
+        LiveSession session = sessions.get(sessionId);
+        if (session == null) {
+            return false;
+        }
+        // Shared store rows are refreshed in bulk by the sync task
+        session.lastSeen = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * Close a session
+     *
+     * @return false if the session is unknown or was already closed or reaped
+     */
+    public boolean close(String sessionId) {
+        LiveSession session = sessions.remove(sessionId);
+        if (session == null) {
+            return false;
+        }
+        decrement(session.getUsername(), session.getProtocol());
+        if (sharedStore) {
+            jdbcTemplate.update("DELETE FROM live_sessions WHERE session_id = ?", sessionId);
+        }
+        notifyClosed(sessionId);
+        return true;
+    }
+
+    /**
+     * The open session with this ID, or null
+     */
+    public LiveSession getSession(String sessionId) {
+        return sessionId != null ? sessions.get(sessionId) : null;
+    }
+
+    /**
+     * Check whether a session is still open
+     */
+    public boolean isOpen(String sessionId) {
+        return sessionId != null && sessions.containsKey(sessionId);
+    }
+
+    /**
+     * Register a callback for closed and reaped sessions
+     */
+    public void addCloseListener(Consumer<String> listener) {
+        closeListeners.add(listener);
+    }
+
+    private void notifyClosed(String sessionId) {
+        for (Consumer<String> listener : closeListeners) {
+            listener.accept(sessionId);
+        }
+    }
+
+    /**
+     * Number of live sessions of a user for a protocol, across all nodes when the shared store is enabled
+     */
+    public int getSessionCount(String username, String protocol) {
+        String key = key(username, protocol.toUpperCase());
+        int count = counters.getOrDefault(key, 0);
+        if (sharedStore) {
+            count += remoteCounts.getOrDefault(key, 0);
+        }
+        return count;
+    }
+
+    public int getLiveSessionCount() {
+        return sessions.size();
+    }
+
+    private void increment(String username, String protocol) {
+        counters.merge(key(username, protocol), 1, Integer::sum);
+    }
+
+    // Removes the counter when it reaches zero
+    private void decrement(String username, String protocol) {
+        counters.computeIfPresent(key(username, protocol), (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Number of (user, protocol) counters currently held
+     */
+    public int getCounterCount() {
+        return counters.size();
+    }
+
+    private static String key(String username, String protocol) {
+        return username + '\u0000' + protocol;
+    }
+
+    // Periodic task: drop sessions without recent heartbeats, then sync with the shared store
+    private void reapAndSync() {
+        try {
+            long cutoff = System.currentTimeMillis() - ttlMillis;
+            int reaped = 0;
+            for (LiveSession session : sessions.values()) {
+                if (session.lastSeen < cutoff && sessions.remove(session.getSessionId(), session)) {
+                    decrement(session.getUsername(), session.getProtocol());
+                    notifyClosed(session.getSessionId());
+                    reaped++;
+                }
+            }
+            if (reaped > 0) {
+                System.out.println("Session registry: reaped " + reaped + " expired sessions");
+            }
+            if (sharedStore) {
+                syncSharedStore(new Timestamp(cutoff));
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Session registry maintenance failed: " + e.getMessage());
+        }
+    }
+
+    private void syncSharedStore(Timestamp cutoff) {
+        List<Object[]> heartbeats = new ArrayList<>();
+        for (LiveSession session : sessions.values()) {
+            heartbeats.add(new Object[]{new Timestamp(session.lastSeen), session.getSessionId()});
+        }
+        if (!heartbeats.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE live_sessions SET last_seen_at = ? WHERE session_id = ?", heartbeats);
+        }
+        // Rows of crashed nodes stop being refreshed and expire here
+        jdbcTemplate.update("DELETE FROM live_sessions WHERE last_seen_at < ?", cutoff);
+
+        Map<String, Integer> counts = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT username, protocol, COUNT(*) FROM live_sessions WHERE node_id <> ? GROUP BY username, protocol",
+                rs -> {
+                    counts.put(key(rs.getString(1), rs.getString(2)), rs.getInt(3));
+                },
+                nodeId);
+        remoteCounts = counts;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        if (sharedStore) {
+            try {
+                jdbcTemplate.update("DELETE FROM live_sessions WHERE node_id = ?", nodeId);
+            } catch (RuntimeException e) {
+                System.out.println("Failed to remove live sessions of this node: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * LiveSession - One open session on an equipment
+     */
+    public static class LiveSession {
+        private final String sessionId;
+        private final String username;
+        private final Long equipmentId;
+        private final String protocol;
+        private final long openedAt;
+        private volatile long lastSeen;
+
+        private LiveSession(String sessionId, String username, Long equipmentId, String protocol, long openedAt) {
+            this.sessionId = sessionId;
+            this.username = username;
+            this.equipmentId = equipmentId;
+            this.protocol = protocol;
+            this.openedAt = openedAt;
+            this.lastSeen = openedAt;
+        }
+
+        public String getSessionId() { return sessionId; }
+        public String getUsername() { return username; }
+        public Long getEquipmentId() { return equipmentId; }
+        public String getProtocol() { return protocol; }
+        public long getOpenedAt() { return openedAt; }
+        public long getLastSeen() { return lastSeen; }
+    }
+}
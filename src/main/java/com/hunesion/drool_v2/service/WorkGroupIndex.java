@@ -0,0 +1,429 @@
+package com.hunesion.drool_v2.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WorkGroupIndex - In-memory membership of the enabled work groups
+ * Each work group holds its users, equipment, accounts and enabled policies as sorted long arrays,
+ * and users and equipment map to the sorted ids of their work groups. The work groups containing
+ * both a user and an equipment are then a merge of two short arrays instead of a three-way join
+ * plus lazy loading of each group's policy catalog.
+ *
+ * Writes refresh only the affected work groups, after their transaction completes: the
+ * /api/work-groups endpoints call workGroupChanged(), policy updates and toggles call
+ * policyChanged(). From the write until the refresh has run, isCurrent() is false and callers use
+ * the database. A periodic full reload picks up out-of-band edits.
+ */
+@Service
+public class WorkGroupIndex {
+
+    private static final long[] EMPTY = new long[0];
+    private static final String ENABLED_WORK_GROUP =
+            " JOIN work_groups wg ON wg.id = m.work_group_id AND wg.enabled = true";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final boolean enabled;
+    private final long rebuildSeconds;
+
+    // Replaced as a whole by a full reload; single work groups are patched in place on the scheduler thread
+    private volatile Index index;
+    // Writes whose refresh has not run yet
+    private final AtomicInteger pendingRefreshes = new AtomicInteger();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "work-group-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public WorkGroupIndex(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${policy.work-group-index.enabled:true}") boolean enabled,
+            @Value("${policy.work-group-index.rebuild-seconds:300}") long rebuildSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.rebuildSeconds = Math.max(10, rebuildSeconds);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::reloadQuietly, rebuildSeconds, rebuildSeconds, TimeUnit.SECONDS);
+            reloadQuietly();
+        }
+    }
+
+    /**
+     * True if the index reflects every committed work group write on this node
+     */
+    public boolean isCurrent() {
+        return enabled && index != null && pendingRefreshes.get() == 0;
+    }
+
+    /**
+     * Enabled work groups containing both the user and the equipment
+     *
+     * @return The memberships (empty if none), or null if the index is not current
+     */
+    public List<Membership> findByUserAndEquipment(Long userId, Long equipmentId) {
+        Index current = index;
+        if (!isCurrent() || userId == null || equipmentId == null) {
+            return null;
+        }
+        long[] userGroups = current.workGroupsByUser.getOrDefault(userId, EMPTY);
+        long[] equipmentGroups = current.workGroupsByEquipment.getOrDefault(equipmentId, EMPTY);
+        List<Membership> result = new ArrayList<>(1);
+        int i = 0;
+        int j = 0;
+        while (i < userGroups.length && j < equipmentGroups.length) {
+            if (userGroups[i] < equipmentGroups[j]) {
+                i++;
+            } else if (userGroups[i] > equipmentGroups[j]) {
+                j++;
+            } else {
+                Membership membership = current.workGroups.get(userGroups[i]);
+                if (membership != null) {
+                    result.add(membership);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Enabled work groups containing the user
+     *
+     * @return The memberships (empty if none), or null if the index is not current
+     */
+    public List<Membership> findByUser(Long userId) {
+        Index current = index;
+        if (!isCurrent() || userId == null) {
+            return null;
+        }
+        List<Membership> result = new ArrayList<>();
+        for (long workGroupId : current.workGroupsByUser.getOrDefault(userId, EMPTY)) {
+            Membership membership = current.workGroups.get(workGroupId);
+            if (membership != null) {
+                result.add(membership);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Refresh one work group after the surrounding transaction completes
+     * (created, updated, deleted, or users, equipment, accounts or policies changed)
+     */
+    public void workGroupChanged(Long workGroupId) {
+        if (enabled && workGroupId != null) {
+            afterCompletion(() -> refresh(Set.of(workGroupId)));
+        }
+    }
+
+    /**
+     * Refresh the work groups carrying a policy after the surrounding transaction completes
+     * (policy updated, enabled, disabled or deleted)
+     */
+    public void policyChanged(Long policyId) {
+        if (enabled && policyId != null) {
+            afterCompletion(() -> {
+                Index current = index;
+                if (current == null) {
+                    return;
+                }
+                Set<Long> affected = new HashSet<>();
+                current.workGroups.values().forEach(membership -> {
+                    if (Arrays.binarySearch(membership.assignedPolicyIds, policyId) >= 0) {
+                        affected.add(membership.workGroupId);
+                    }
+                });
+                if (!affected.isEmpty()) {
+                    refresh(affected);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reload every work group from the database and publish the new index
+     */
+    public synchronized void reload() {
+        long startedAt = System.currentTimeMillis();
+        Index loaded = readTransaction.execute(status -> load(null));
+        index = loaded;
+        System.out.println("Work group index loaded: " + loaded.workGroups.size() + " work groups, "
+                + loaded.workGroupsByUser.size() + " users, " + loaded.workGroupsByEquipment.size()
+                + " equipment in " + (System.currentTimeMillis() - startedAt) + " ms");
+    }
+
+    /**
+     * Reload some work groups and patch them into the current index
+     */
+    private synchronized void refresh(Set<Long> workGroupIds) {
+        Index current = index;
+        if (current == null) {
+            reload();
+            return;
+        }
+        Index loaded = readTransaction.execute(status -> load(workGroupIds));
+        for (Long workGroupId : workGroupIds) {
+            Membership previous = current.workGroups.remove(workGroupId);
+            if (previous != null) {
+                unlink(current.workGroupsByUser, previous.userIds, workGroupId);
+                unlink(current.workGroupsByEquipment, previous.equipmentIds, workGroupId);
+            }
+            // Absent from the reload when deleted or disabled
+            Membership updated = loaded.workGroups.get(workGroupId);
+            if (updated != null) {
+                current.workGroups.put(workGroupId, updated);
+                link(current.workGroupsByUser, updated.userIds, workGroupId);
+                link(current.workGroupsByEquipment, updated.equipmentIds, workGroupId);
+            }
+        }
+    }
+
+    /**
+     * Load the enabled work groups (all of them, or only the given ids)
+     */
+    private Index load(Set<Long> onlyIds) {
+        String idList = "";
+        Object[] args = new Object[0];
+        if (onlyIds != null) {
+            idList = " IN (" + String.join(",", Collections.nCopies(onlyIds.size(), "?")) + ")";
+            args = onlyIds.toArray();
+        }
+        String filter = onlyIds != null ? " WHERE m.work_group_id" + idList : "";
+
+        Map<Long, String> names = new HashMap<>();
+        jdbcTemplate.query("SELECT id, work_group_name FROM work_groups WHERE enabled = true"
+                + (onlyIds != null ? " AND id" + idList : ""), rs -> {
+            names.put(rs.getLong(1), rs.getString(2));
+        }, args);
+
+        Map<Long, LongList> users = loadRelation("SELECT m.work_group_id, m.user_id FROM work_group_users m"
+                + ENABLED_WORK_GROUP + filter, args);
+        Map<Long, LongList> equipment = loadRelation("SELECT m.work_group_id, m.equipment_id FROM work_group_equipment m"
+                + ENABLED_WORK_GROUP + filter, args);
+        Map<Long, LongList> accounts = loadRelation("SELECT m.work_group_id, m.account_id FROM work_group_accounts m"
+                + ENABLED_WORK_GROUP + filter, args);
+        Map<Long, LongList> assignedPolicies = loadRelation("SELECT m.work_group_id, m.policy_id FROM work_group_policies m"
+                + ENABLED_WORK_GROUP + filter, args);
+        Map<Long, LongList> enabledPolicies = loadRelation("SELECT m.work_group_id, m.policy_id FROM work_group_policies m"
+                + ENABLED_WORK_GROUP + " JOIN equipment_policies ep ON ep.id = m.policy_id AND ep.enabled = true" + filter, args);
+
+        Index loaded = new Index();
+        for (Map.Entry<Long, String> entry : names.entrySet()) {
+            Long workGroupId = entry.getKey();
+            Membership membership = new Membership(workGroupId, entry.getValue(),
+                    sorted(users.get(workGroupId)), sorted(equipment.get(workGroupId)),
+                    sorted(accounts.get(workGroupId)), sorted(assignedPolicies.get(workGroupId)),
+                    sorted(enabledPolicies.get(workGroupId)));
+            loaded.workGroups.put(workGroupId, membership);
+        }
+        // Reverse maps: built in id order, so every array comes out sorted
+        Map<Long, LongList> byUser = new HashMap<>();
+        Map<Long, LongList> byEquipment = new HashMap<>();
+        loaded.workGroups.keySet().stream().sorted().forEach(workGroupId -> {
+            Membership membership = loaded.workGroups.get(workGroupId);
+            for (long userId : membership.userIds) {
+                byUser.computeIfAbsent(userId, id -> new LongList()).add(workGroupId);
+            }
+            for (long equipmentId : membership.equipmentIds) {
+                byEquipment.computeIfAbsent(equipmentId, id -> new LongList()).add(workGroupId);
+            }
+        });
+        byUser.forEach((userId, ids) -> loaded.workGroupsByUser.put(userId, ids.toArray()));
+        byEquipment.forEach((equipmentId, ids) -> loaded.workGroupsByEquipment.put(equipmentId, ids.toArray()));
+        return loaded;
+    }
+
+    private Map<Long, LongList> loadRelation(String sql, Object[] args) {
+        Map<Long, LongList> relation = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            relation.computeIfAbsent(rs.getLong(1), id -> new LongList()).add(rs.getLong(2));
+        }, args);
+        return relation;
+    }
+
+    private static long[] sorted(LongList values) {
+        if (values == null) {
+            return EMPTY;
+        }
+        long[] array = values.toArray();
+        Arrays.sort(array);
+        return array;
+    }
+
+    private static void link(Map<Long, long[]> reverse, long[] memberIds, long workGroupId) {
+        for (long memberId : memberIds) {
+            reverse.compute(memberId, (id, groups) -> {
+                long[] current = groups != null ? groups : EMPTY;
+                int position = Arrays.binarySearch(current, workGroupId);
+                if (position >= 0) {
+                    return current;
+                }
+                int insertAt = -position - 1;
+                long[] updated = new long[current.length + 1];
+                System.arraycopy(current, 0, updated, 0, insertAt);
+                updated[insertAt] = workGroupId;
+                System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+                return updated;
+            });
+        }
+    }
+
+    private static void unlink(Map<Long, long[]> reverse, long[] memberIds, long workGroupId) {
+        for (long memberId : memberIds) {
+            reverse.computeIfPresent(memberId, (id, groups) -> {
+                int position = Arrays.binarySearch(groups, workGroupId);
+                if (position < 0) {
+                    return groups;
+                }
+                if (groups.length == 1) {
+                    return null;
+                }
+                long[] updated = new long[groups.length - 1];
+                System.arraycopy(groups, 0, updated, 0, position);
+                System.arraycopy(groups, position + 1, updated, position, groups.length - position - 1);
+                return updated;
+            });
+        }
+    }
+
+    /**
+     * Run a refresh on the scheduler thread once the transaction has completed
+     * The pending count makes isCurrent() false from now until the refresh has run,
+     * whether the transaction commits or rolls back.
+     */
+    private void afterCompletion(Runnable refresh) {
+        pendingRefreshes.incrementAndGet();
+        Runnable task = () -> scheduler.execute(() -> {
+            try {
+                refresh.run();
+            } catch (RuntimeException e) {
+                System.out.println("Work group index refresh failed, reloading: " + e.getMessage());
+                reloadQuietly();
+            } finally {
+                pendingRefreshes.decrementAndGet();
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            System.out.println("Work group index reload failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Membership - One enabled work group: name and sorted member, account and policy ids
+     */
+    public static final class Membership {
+        private final long workGroupId;
+        private final String workGroupName;
+        private final long[] userIds;
+        private final long[] equipmentIds;
+        private final long[] accountIds;
+        // Whole catalog, to find the work groups affected by a policy change
+        private final long[] assignedPolicyIds;
+        private final long[] enabledPolicyIds;
+
+        private Membership(long workGroupId, String workGroupName, long[] userIds, long[] equipmentIds,
+                           long[] accountIds, long[] assignedPolicyIds, long[] enabledPolicyIds) {
+            this.workGroupId = workGroupId;
+            this.workGroupName = workGroupName;
+            this.userIds = userIds;
+            this.equipmentIds = equipmentIds;
+            this.accountIds = accountIds;
+            this.assignedPolicyIds = assignedPolicyIds;
+            this.enabledPolicyIds = enabledPolicyIds;
+        }
+
+        public long getWorkGroupId() {
+            return workGroupId;
+        }
+
+        public String getWorkGroupName() {
+            return workGroupName;
+        }
+
+        public long[] getAccountIds() {
+            return accountIds.clone();
+        }
+
+        public long[] getEnabledPolicyIds() {
+            return enabledPolicyIds.clone();
+        }
+    }
+
+    /**
+     * Index - Work groups by id and the reverse user and equipment maps
+     */
+    private static final class Index {
+        private final Map<Long, Membership> workGroups = new ConcurrentHashMap<>();
+        private final Map<Long, long[]> workGroupsByUser = new ConcurrentHashMap<>();
+        private final Map<Long, long[]> workGroupsByEquipment = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * LongList - Growable long values, used while loading
+     */
+    private static final class LongList {
+        private long[] values = new long[4];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
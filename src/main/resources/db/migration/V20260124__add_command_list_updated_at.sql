@@ -0,0 +1,13 @@
+-- ===============================================================
+-- Command list versioning
+-- ===============================================================
+-- updated_at is bumped whenever a command list or one of its items
+-- changes. The in-memory command list cache and the compiled command
+-- matchers are keyed by (list id, updated_at).
+-- ===============================================================
+
+ALTER TABLE command_lists ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+
+UPDATE command_lists SET updated_at = created_at WHERE updated_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_command_list_items_list_id ON command_list_items(command_list_id);
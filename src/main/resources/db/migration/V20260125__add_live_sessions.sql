@@ -0,0 +1,21 @@
+-- ===============================================================
+-- Live equipment sessions (multi-node session limits)
+-- ===============================================================
+-- Only used when policy.sessions.shared-store is enabled. Each node
+-- inserts its open sessions, refreshes last_seen_at in bulk and reads
+-- the per (username, protocol) counts of the other nodes. Rows whose
+-- heartbeats stop are removed after the session TTL.
+-- ===============================================================
+
+CREATE TABLE IF NOT EXISTS live_sessions (
+    session_id VARCHAR(36) PRIMARY KEY,
+    node_id VARCHAR(36) NOT NULL,
+    username VARCHAR(100) NOT NULL,
+    equipment_id BIGINT,
+    protocol VARCHAR(20) NOT NULL,
+    opened_at TIMESTAMP NOT NULL,
+    last_seen_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_live_sessions_user_protocol ON live_sessions(username, protocol);
+CREATE INDEX IF NOT EXISTS idx_live_sessions_last_seen ON live_sessions(last_seen_at);
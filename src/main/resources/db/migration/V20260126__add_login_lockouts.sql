@@ -0,0 +1,16 @@
+-- ===============================================================
+-- Login lockouts (loginControl accountLockEnabled)
+-- ===============================================================
+-- lock_key is 'user:<username>' or 'ip:<client ip>'. Failures are
+-- counted in memory; only lock state is written here, in periodic
+-- batches, and active lockouts are reloaded at startup.
+-- ===============================================================
+
+CREATE TABLE IF NOT EXISTS login_lockouts (
+    lock_key VARCHAR(255) PRIMARY KEY,
+    locked_until TIMESTAMP NOT NULL,
+    failure_count INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_login_lockouts_locked_until ON login_lockouts(locked_until);
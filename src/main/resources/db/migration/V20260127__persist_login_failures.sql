@@ -0,0 +1,12 @@
+-- ===============================================================
+-- Login failure counts survive restarts
+-- ===============================================================
+-- Keys with failures but no active lock are stored with a NULL
+-- locked_until; updated_at is the minute of the last counted failure
+-- (the flush time for rows without failures).
+-- Rows are removed once the key has no failures in the window.
+-- ===============================================================
+
+ALTER TABLE login_lockouts ALTER COLUMN locked_until DROP NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_login_lockouts_updated_at ON login_lockouts(updated_at);
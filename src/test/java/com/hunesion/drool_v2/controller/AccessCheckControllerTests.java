@@ -0,0 +1,29 @@
+package com.hunesion.drool_v2.controller;
+
+import com.hunesion.drool_v2.dto.AccessCheckBatchRequestDTO;
+import com.hunesion.drool_v2.service.AccessControlService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AccessCheckControllerTests {
+
+    @Test
+    void batchWithoutEndpointsIsABadRequest() {
+        AccessControlService accessControlService = mock(AccessControlService.class);
+        AccessCheckController controller = new AccessCheckController(accessControlService);
+
+        AccessCheckBatchRequestDTO missing = new AccessCheckBatchRequestDTO();
+        missing.setUsername("alice");
+        AccessCheckBatchRequestDTO empty = new AccessCheckBatchRequestDTO();
+        empty.setUsername("alice");
+        empty.setEndpoints(List.of());
+
+        assertEquals(400, controller.checkAccessBatch(missing).getStatusCode().value());
+        assertEquals(400, controller.checkAccessBatch(empty).getStatusCode().value());
+        verifyNoInteractions(accessControlService);
+    }
+}
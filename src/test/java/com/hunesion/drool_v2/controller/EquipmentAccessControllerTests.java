@@ -0,0 +1,49 @@
+package com.hunesion.drool_v2.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hunesion.drool_v2.dto.EquipmentAccessRequestDTO;
+import com.hunesion.drool_v2.dto.EquipmentAccessResponseDTO;
+import com.hunesion.drool_v2.service.AuthorizedUsersService;
+import com.hunesion.drool_v2.service.EquipmentAccessControlService;
+import com.hunesion.drool_v2.service.InspectionSessionService;
+import com.hunesion.drool_v2.service.LoginAttemptTracker;
+import com.hunesion.drool_v2.service.PolicyFactLoader;
+import com.hunesion.drool_v2.service.SessionRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class EquipmentAccessControllerTests {
+
+    @Test
+    void batchesAboveTheLimitAreRejected() {
+        EquipmentAccessControlService accessControlService = mock(EquipmentAccessControlService.class);
+        when(accessControlService.checkAccessBatch(anyList())).thenAnswer(invocation ->
+                Collections.nCopies(((List<?>) invocation.getArgument(0)).size(), new EquipmentAccessResponseDTO()));
+        EquipmentAccessController controller = new EquipmentAccessController(accessControlService,
+                mock(AuthorizedUsersService.class), mock(SessionRegistry.class), mock(LoginAttemptTracker.class),
+                mock(PolicyFactLoader.class), mock(InspectionSessionService.class), new ObjectMapper(), 3);
+
+        assertEquals(200, controller.checkAccessBatch(requests(3)).getStatusCode().value());
+        assertEquals(400, controller.checkAccessBatch(requests(4)).getStatusCode().value());
+        assertEquals(400, controller.checkAccessBatch(null).getStatusCode().value());
+        verify(accessControlService, times(1)).checkAccessBatch(anyList());
+    }
+
+    private static List<EquipmentAccessRequestDTO> requests(int count) {
+        List<EquipmentAccessRequestDTO> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            EquipmentAccessRequestDTO request = new EquipmentAccessRequestDTO();
+            request.setUsername("alice");
+            request.setEquipmentId((long) i);
+            requests.add(request);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,103 @@
+package com.hunesion.drool_v2.model;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares CommandMatcher with the substring loops of EquipmentAccessRequest on 10k-entry
+ * blacklists and whitelists. Run with ./gradlew benchmark; timings depend on the machine.
+ */
+@Tag("benchmark")
+class CommandMatcherBenchmark {
+
+    private static final int LIST_SIZE = 10_000;
+    private static final int COMMANDS = 2_000;
+
+    @Test
+    void tenThousandEntryLists() {
+        Random random = new Random(42);
+        Set<String> blacklist = patterns(random, "deny", LIST_SIZE);
+        Set<String> whitelist = patterns(random, "allow", LIST_SIZE);
+        List<String> commands = commands(random, new ArrayList<>(blacklist), new ArrayList<>(whitelist));
+
+        long compileStart = System.nanoTime();
+        CommandMatcher matcher = new CommandMatcher(blacklist, whitelist);
+        long compileNanos = System.nanoTime() - compileStart;
+
+        EquipmentAccessRequest compiled = new EquipmentAccessRequest();
+        compiled.setBlacklistedCommands(blacklist);
+        compiled.setWhitelistedCommands(whitelist);
+        compiled.setCommandDictionary(matcher);
+        EquipmentAccessRequest loops = new EquipmentAccessRequest();
+        loops.setBlacklistedCommands(blacklist);
+        loops.setWhitelistedCommands(whitelist);
+
+        for (String command : commands) {
+            assertEquals(loops.isCommandBlocked(command), compiled.isCommandBlocked(command), command);
+        }
+
+        double matcherMicros = microsPerCheck(compiled, commands, 20);
+        double loopMicros = microsPerCheck(loops, commands, 1);
+        System.out.printf("CommandMatcher: %d + %d patterns, %d states, compiled in %d ms%n",
+                blacklist.size(), whitelist.size(), matcher.getStateCount(), compileNanos / 1_000_000);
+        System.out.printf("  automaton %.1f us/check, loops %.1f us/check%n", matcherMicros, loopMicros);
+    }
+
+    private static double microsPerCheck(EquipmentAccessRequest request, List<String> commands, int rounds) {
+        int blocked = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (String command : commands) {
+                if (request.isCommandBlocked(command)) {
+                    blocked++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(blocked >= 0);
+        return elapsed / 1_000.0 / ((long) rounds * commands.size());
+    }
+
+    private static Set<String> patterns(Random random, String prefix, int count) {
+        Set<String> patterns = new HashSet<>();
+        while (patterns.size() < count) {
+            patterns.add(prefix + "-" + word(random, 4 + random.nextInt(8)));
+        }
+        return patterns;
+    }
+
+    // Piped commands of a few hundred characters, some containing a listed pattern
+    private static List<String> commands(Random random, List<String> blacklist, List<String> whitelist) {
+        List<String> commands = new ArrayList<>(COMMANDS);
+        for (int i = 0; i < COMMANDS; i++) {
+            StringBuilder command = new StringBuilder();
+            int segments = 5 + random.nextInt(20);
+            for (int s = 0; s < segments; s++) {
+                if (s > 0) {
+                    command.append(" | ");
+                }
+                command.append(word(random, 3 + random.nextInt(10)));
+            }
+            int kind = random.nextInt(4);
+            if (kind == 0) {
+                command.append(" ").append(blacklist.get(random.nextInt(blacklist.size())));
+            } else if (kind == 1) {
+                command.append(" ").append(whitelist.get(random.nextInt(whitelist.size())));
+            }
+            commands.add(command.toString());
+        }
+        return commands;
+    }
+
+    private static String word(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}
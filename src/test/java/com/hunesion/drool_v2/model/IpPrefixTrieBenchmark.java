@@ -0,0 +1,83 @@
+package com.hunesion.drool_v2.model;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares IpPrefixTrie with a linear scan over 50k random IPv4 ranges.
+ * Run with ./gradlew benchmark; timings depend on the machine.
+ */
+@Tag("benchmark")
+class IpPrefixTrieBenchmark {
+
+    private static final int RANGES = 50_000;
+    private static final int LOOKUPS = 2_000;
+
+    @Test
+    void fiftyThousandRanges() {
+        Random random = new Random(7);
+        long[][] ranges = new long[RANGES][];
+        List<String> entries = new ArrayList<>(RANGES);
+        for (int i = 0; i < RANGES; i++) {
+            long start = random.nextLong(0x1_0000_0000L - 4096);
+            long end = start + random.nextInt(4096);
+            ranges[i] = new long[]{start, end};
+            entries.add(format(start) + "-" + format(end));
+        }
+
+        long buildStart = System.nanoTime();
+        IpPrefixTrie trie = new IpPrefixTrie(entries);
+        long buildNanos = System.nanoTime() - buildStart;
+
+        long[] addresses = new long[LOOKUPS];
+        String[] literals = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            // Half inside a range, half random
+            addresses[i] = i % 2 == 0
+                    ? ranges[random.nextInt(RANGES)][0] + random.nextInt(16)
+                    : random.nextLong(0x1_0000_0000L);
+            literals[i] = format(addresses[i]);
+        }
+
+        int matched = 0;
+        long trieStart = System.nanoTime();
+        for (int round = 0; round < 50; round++) {
+            for (String literal : literals) {
+                if (trie.contains(literal)) {
+                    matched++;
+                }
+            }
+        }
+        double trieMicros = (System.nanoTime() - trieStart) / 1_000.0 / (50L * LOOKUPS);
+
+        long scanStart = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertEquals(linearScan(ranges, addresses[i]), trie.contains(literals[i]), literals[i]);
+        }
+        double scanMicros = (System.nanoTime() - scanStart) / 1_000.0 / LOOKUPS;
+
+        assertTrue(matched > 0);
+        System.out.printf("IpPrefixTrie: %d ranges, %d nodes, built in %d ms%n",
+                RANGES, trie.getNodeCount(), buildNanos / 1_000_000);
+        System.out.printf("  trie %.2f us/lookup, linear scan %.1f us/lookup%n", trieMicros, scanMicros);
+    }
+
+    private static boolean linearScan(long[][] ranges, long address) {
+        for (long[] range : ranges) {
+            if (address >= range[0] && address <= range[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String format(long address) {
+        return (address >>> 24) + "." + ((address >>> 16) & 255) + "." + ((address >>> 8) & 255) + "." + (address & 255);
+    }
+}
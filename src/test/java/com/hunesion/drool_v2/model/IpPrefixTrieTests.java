@@ -0,0 +1,63 @@
+package com.hunesion.drool_v2.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IpPrefixTrieTests {
+
+    @Test
+    void matchesAddressesBlocksAndRanges() {
+        IpPrefixTrie trie = new IpPrefixTrie(List.of("10.0.0.0/8", "192.168.1.10-192.168.1.20", "172.16.0.5",
+                "2001:db8::/32", "bastion.example.com"));
+
+        assertTrue(trie.contains("10.255.0.1"));
+        assertTrue(trie.contains("192.168.1.15"));
+        assertFalse(trie.contains("192.168.1.21"));
+        assertTrue(trie.contains("172.16.0.5"));
+        assertFalse(trie.contains("172.16.0.6"));
+        assertTrue(trie.contains("2001:db8:1::1"));
+        assertFalse(trie.contains("2001:db9::1"));
+        assertTrue(trie.contains("bastion.example.com"));
+    }
+
+    @Test
+    void ipv4MappedAddressMatchesIpv4Entries() {
+        IpPrefixTrie trie = new IpPrefixTrie(List.of("10.0.0.0/8", "192.168.1.10-192.168.1.20"));
+
+        assertTrue(trie.contains("::ffff:10.1.2.3"));
+        assertTrue(trie.contains("::FFFF:192.168.1.12"));
+        assertTrue(trie.contains("0:0:0:0:0:ffff:10.1.2.3"));
+        assertTrue(trie.contains("::ffff:a01:203"));
+        assertFalse(trie.contains("::ffff:11.1.2.3"));
+        // Not IPv4-mapped
+        assertFalse(trie.contains("::10.1.2.3"));
+        assertFalse(trie.contains("64:ff9b::10.1.2.3"));
+    }
+
+    @Test
+    void ipv4AddressMatchesMappedEntries() {
+        IpPrefixTrie trie = new IpPrefixTrie(List.of("::ffff:10.0.0.0/104", "::ffff:192.168.1.7"));
+
+        assertTrue(trie.contains("10.9.8.7"));
+        assertTrue(trie.contains("192.168.1.7"));
+        assertTrue(trie.contains("::ffff:10.9.8.7"));
+        assertFalse(trie.contains("11.0.0.1"));
+        assertEquals(2, trie.getEntryCount());
+    }
+
+    @Test
+    void embeddedIpv4IsValidated() {
+        IpPrefixTrie trie = new IpPrefixTrie(List.of("::ffff:0:0/96"));
+
+        assertTrue(trie.contains("::ffff:1.2.3.4"));
+        assertFalse(trie.contains("::ffff:1.2.3"));
+        assertFalse(trie.contains("::ffff:1.2.3.256"));
+        assertFalse(trie.contains("1:2:3:4:5:6:7:1.2.3.4"));
+        assertTrue(IpPrefixTrie.ipv6Layout("1:2:3:4:5:6:1.2.3.4", 0, 19) >= 0);
+        assertEquals(0x0000_ffff_0102_0304L, IpPrefixTrie.ipv6Word("::ffff:1.2.3.4", 0, 14,
+                IpPrefixTrie.ipv6Layout("::ffff:1.2.3.4", 0, 14), 1));
+    }
+}
@@ -0,0 +1,62 @@
+package com.hunesion.drool_v2.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCommandDictionaryTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void matchesLikeTheHeapMatcher() throws Exception {
+        CommandMatcher matcher = new CommandMatcher(Set.of("rm -rf", "shutdown"), Set.of("ls", "cat"));
+        Path file = directory.resolve("commands.dict");
+        matcher.writeTo(file);
+        MappedCommandDictionary dictionary = MappedCommandDictionary.open(file, "1@v1");
+
+        for (String command : List.of("rm -rf /", "ls -la", "cat /etc/hosts", "vi file", "sudo shutdown -h now")) {
+            assertEquals(matcher.isBlocked(command), dictionary.isBlocked(command), command);
+        }
+        dictionary.close();
+    }
+
+    @Test
+    void closeWaitsForInFlightLookups() throws Exception {
+        Path file = directory.resolve("commands.dict");
+        new CommandMatcher(Set.of("rm -rf"), Set.of()).writeTo(file);
+        MappedCommandDictionary dictionary = MappedCommandDictionary.open(file, "1@v1");
+
+        assertTrue(dictionary.retain());
+        dictionary.close();
+        // Still mapped for the lookup that pinned it
+        assertTrue(dictionary.isBlocked("rm -rf /"));
+        assertFalse(dictionary.retain());
+        dictionary.release();
+        assertFalse(dictionary.retain());
+        // Closing twice does not release twice
+        dictionary.close();
+        assertFalse(dictionary.retain());
+    }
+
+    @Test
+    void compiledListKeepsCountWithoutCommands() {
+        CompiledCommandList list = new CompiledCommandList(7L, "deny", "blacklist", "TELNET_SSH",
+                LocalDateTime.of(2026, 1, 1, 0, 0), List.of("rm -rf", "shutdown"));
+
+        CompiledCommandList dropped = list.withoutCommands();
+
+        assertFalse(dropped.hasCommands());
+        assertTrue(dropped.getCommands().isEmpty());
+        assertEquals(2, dropped.getCommandCount());
+        assertEquals(list.versionKey(), dropped.versionKey());
+        assertSame(dropped, dropped.withoutCommands());
+    }
+}
@@ -0,0 +1,128 @@
+package com.hunesion.drool_v2.repository;
+
+import com.hunesion.drool_v2.model.entity.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The assigned policy ids of a user must cost the same number of statements however many
+ * user groups, roles and policy groups the user belongs to.
+ * Needs the Postgres database from application.yml; skipped when it is not reachable.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "policy.authorization-graph.enabled=false",
+        "policy.work-group-index.enabled=false",
+        "policy.policy-group-membership.enabled=false"
+})
+@Transactional
+@EnabledIf("databaseAvailable")
+class AssignedPolicyQueryCountTests {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EquipmentPolicyRepository equipmentPolicyRepository;
+
+    static boolean databaseAvailable() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", 5433), 500);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithGroupsAndRoles() {
+        PolicyType policyType = policyType();
+        User small = userWithMemberships(policyType, 1);
+        User large = userWithMemberships(policyType, 25);
+        entityManager.flush();
+        entityManager.clear();
+
+        long smallStatements = statementsFor(small.getId());
+        long largeStatements = statementsFor(large.getId());
+
+        assertEquals(2, smallStatements);
+        assertEquals(smallStatements, largeStatements);
+        assertEquals(1 + 1 + 1, equipmentPolicyRepository.findSubjectPolicyIds(small.getId()).size());
+        assertEquals(25 + 25 + 25, equipmentPolicyRepository.findSubjectPolicyIds(large.getId()).size());
+    }
+
+    // Statements issued for the subject policies and the assigned policies of one user
+    private long statementsFor(Long userId) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        equipmentPolicyRepository.findSubjectPolicyIds(userId);
+        equipmentPolicyRepository.findAssignedPolicyIds(userId, -1L);
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * A user in the given number of user groups, roles and policy groups, each carrying one
+     * enabled policy of its own
+     */
+    private User userWithMemberships(PolicyType policyType, int count) {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User user = new User("qc-" + suffix, "secret", "qc-" + suffix + "@example.com");
+        entityManager.persist(user);
+
+        for (int i = 0; i < count; i++) {
+            UserGroup group = new UserGroup("qc-group-" + suffix + "-" + i, null);
+            entityManager.persist(group);
+            user.getGroups().add(group);
+            entityManager.persist(new PolicyUserGroupAssignment(policy(policyType, "qc-ug-" + suffix + "-" + i), group));
+
+            Role role = new Role("qc-role-" + suffix + "-" + i, null);
+            entityManager.persist(role);
+            user.getRoles().add(role);
+            entityManager.persist(new PolicyRoleAssignment(policy(policyType, "qc-role-" + suffix + "-" + i), role));
+
+            PolicyGroup policyGroup = new PolicyGroup("qc-pg-" + suffix + "-" + i, null);
+            policyGroup.setEnabled(true);
+            entityManager.persist(policyGroup);
+            entityManager.persist(new PolicyGroupMember(policyGroup, policy(policyType, "qc-pg-" + suffix + "-" + i)));
+            entityManager.persist(new PolicyGroupUserAssignment(policyGroup, user));
+        }
+        return user;
+    }
+
+    private EquipmentPolicy policy(PolicyType policyType, String name) {
+        EquipmentPolicy policy = new EquipmentPolicy();
+        policy.setPolicyName(name);
+        policy.setPolicyClassification("common");
+        policy.setPolicyApplication("apply");
+        policy.setPolicyType(policyType);
+        policy.setEnabled(true);
+        policy.setPriority(100);
+        entityManager.persist(policy);
+        return policy;
+    }
+
+    private PolicyType policyType() {
+        PolicyType policyType = new PolicyType();
+        policyType.setTypeCode("QC_" + UUID.randomUUID().toString().substring(0, 8));
+        policyType.setTypeName("Query count");
+        policyType.setActive(true);
+        entityManager.persist(policyType);
+        return policyType;
+    }
+}
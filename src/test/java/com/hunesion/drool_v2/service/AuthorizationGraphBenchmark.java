@@ -0,0 +1,177 @@
+package com.hunesion.drool_v2.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Builds AuthorizationGraph from 100k users and 50k equipment of synthetic assignments, reports
+ * its footprint, build and resolve times, and checks resolve() against a map-based resolver.
+ * Run with ./gradlew benchmark; timings depend on the machine.
+ */
+@Tag("benchmark")
+class AuthorizationGraphBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int EQUIPMENT = 50_000;
+    private static final int USER_GROUPS = 1_000;
+    private static final int ROLES = 200;
+    private static final int USER_TYPES = 10;
+    private static final int POLICY_GROUPS = 100;
+    private static final int WORK_GROUPS = 500;
+    private static final int ACCOUNT_TYPES = 50;
+    private static final int POLICIES = 2_000;
+    private static final int SAMPLES = 20_000;
+
+    // Map-based model of the same assignments
+    private final Map<Long, Set<Long>> userGroups = new HashMap<>();
+    private final Map<Long, Set<Long>> userRoles = new HashMap<>();
+    private final Map<Long, Set<Long>> userPolicies = new HashMap<>();
+    private final Map<Long, Long> userTypes = new HashMap<>();
+    private final Map<Long, Set<Long>> userWorkGroups = new HashMap<>();
+    private final Map<Long, Set<Long>> groupPolicies = new HashMap<>();
+    private final Map<Long, Set<Long>> rolePolicies = new HashMap<>();
+    private final Map<Long, Set<Long>> rolePolicyGroups = new HashMap<>();
+    private final Map<Long, Set<Long>> userTypePolicies = new HashMap<>();
+    private final Map<Long, Set<Long>> policyGroupPolicies = new HashMap<>();
+    private final Map<Long, Set<Long>> workGroupPolicies = new HashMap<>();
+    private final Map<Long, Set<Long>> equipmentPolicies = new HashMap<>();
+    private final Map<Long, Set<Long>> equipmentAccountTypes = new HashMap<>();
+    private final Map<Long, Set<Long>> equipmentWorkGroups = new HashMap<>();
+    private final Map<Long, Set<Long>> accountTypePolicies = new HashMap<>();
+
+    @Test
+    void hundredThousandUsers() {
+        Random random = new Random(11);
+        AuthorizationGraph.Builder builder = new AuthorizationGraph.Builder();
+
+        for (long wg = 1; wg <= WORK_GROUPS; wg++) {
+            builder.addWorkGroup(wg, "wg-" + wg);
+            link(builder.workGroupPolicies, workGroupPolicies, wg, policy(random));
+        }
+        for (long group = 1; group <= USER_GROUPS; group++) {
+            link(builder.groupPolicies, groupPolicies, group, policy(random));
+        }
+        for (long role = 1; role <= ROLES; role++) {
+            link(builder.rolePolicies, rolePolicies, role, policy(random));
+            link(builder.rolePolicyGroups, rolePolicyGroups, role, 1 + random.nextInt(POLICY_GROUPS));
+        }
+        for (long userType = 1; userType <= USER_TYPES; userType++) {
+            link(builder.userTypePolicies, userTypePolicies, userType, policy(random));
+        }
+        for (long pg = 1; pg <= POLICY_GROUPS; pg++) {
+            for (int i = 0; i < 5; i++) {
+                link(builder.policyGroupPolicies, policyGroupPolicies, pg, policy(random));
+            }
+        }
+        for (long accountType = 1; accountType <= ACCOUNT_TYPES; accountType++) {
+            if (accountType % 5 == 0) {
+                link(builder.accountTypePolicies, accountTypePolicies, accountType, policy(random));
+            }
+        }
+
+        // 3 groups, 2 roles, 2 work groups per user; a direct policy for every tenth user
+        for (long user = 1; user <= USERS; user++) {
+            long userType = 1 + random.nextInt(USER_TYPES);
+            builder.addUser(user, userType);
+            userTypes.put(user, userType);
+            for (int i = 0; i < 3; i++) {
+                link(builder.userGroups, userGroups, user, 1 + random.nextInt(USER_GROUPS));
+            }
+            for (int i = 0; i < 2; i++) {
+                link(builder.userRoles, userRoles, user, 1 + random.nextInt(ROLES));
+                link(builder.userWorkGroups, userWorkGroups, user, 1 + random.nextInt(WORK_GROUPS));
+            }
+            if (user % 10 == 0) {
+                link(builder.userPolicies, userPolicies, user, policy(random));
+            }
+        }
+        // 1 policy, 2 account types, 2 work groups per equipment
+        for (long equipment = 1; equipment <= EQUIPMENT; equipment++) {
+            link(builder.equipmentPolicies, equipmentPolicies, equipment, policy(random));
+            for (int i = 0; i < 2; i++) {
+                link(builder.equipmentAccountTypes, equipmentAccountTypes, equipment, 1 + random.nextInt(ACCOUNT_TYPES));
+                link(builder.equipmentWorkGroups, equipmentWorkGroups, equipment, 1 + random.nextInt(WORK_GROUPS));
+            }
+        }
+
+        long buildStart = System.nanoTime();
+        AuthorizationGraph.Snapshot graph = builder.build(0, 0);
+        long buildNanos = System.nanoTime() - buildStart;
+
+        long[][] pairs = new long[SAMPLES][];
+        for (int i = 0; i < SAMPLES; i++) {
+            pairs[i] = new long[]{1 + random.nextInt(USERS), 1 + random.nextInt(EQUIPMENT)};
+        }
+
+        // The comparison also warms up resolve() before it is timed
+        for (long[] pair : pairs) {
+            assertEquals(referencePolicyIds(pair[0], pair[1]), graph.resolve(pair[0], pair[1]).getPolicyIds(),
+                    "user " + pair[0] + ", equipment " + pair[1]);
+        }
+
+        int resolved = 0;
+        long resolveStart = System.nanoTime();
+        for (long[] pair : pairs) {
+            resolved += graph.resolve(pair[0], pair[1]).getPolicyIds().size();
+        }
+        double resolveMicros = (System.nanoTime() - resolveStart) / 1_000.0 / SAMPLES;
+
+        long reverseStart = System.nanoTime();
+        graph.usersCoveredByPolicy(1L);
+        long reverseNanos = System.nanoTime() - reverseStart;
+        long coveredStart = System.nanoTime();
+        long covered = 0;
+        for (long policy = 1; policy <= POLICIES; policy++) {
+            covered += graph.usersCoveredByPolicy(policy).length;
+        }
+        double coveredMicros = (System.nanoTime() - coveredStart) / 1_000.0 / POLICIES;
+
+        assertTrue(resolved > 0 && covered > 0);
+        System.out.printf("AuthorizationGraph: %d users, %d equipment, %d edges, %d KB, built in %d ms%n",
+                USERS, EQUIPMENT, graph.getEdgeCount(), graph.getFootprintBytes() / 1024, buildNanos / 1_000_000);
+        System.out.printf("  resolve %.1f us/pair (%d pairs match the map-based resolver)%n", resolveMicros, SAMPLES);
+        System.out.printf("  reverse index built in %d ms, usersCoveredByPolicy %.1f us/policy%n",
+                reverseNanos / 1_000_000, coveredMicros);
+    }
+
+    private Set<Long> referencePolicyIds(long user, long equipment) {
+        Set<Long> policyIds = new HashSet<>(userPolicies.getOrDefault(user, Set.of()));
+        for (long group : userGroups.getOrDefault(user, Set.of())) {
+            policyIds.addAll(groupPolicies.getOrDefault(group, Set.of()));
+        }
+        for (long role : userRoles.getOrDefault(user, Set.of())) {
+            policyIds.addAll(rolePolicies.getOrDefault(role, Set.of()));
+            for (long pg : rolePolicyGroups.getOrDefault(role, Set.of())) {
+                policyIds.addAll(policyGroupPolicies.getOrDefault(pg, Set.of()));
+            }
+        }
+        policyIds.addAll(userTypePolicies.getOrDefault(userTypes.get(user), Set.of()));
+        if (!policyIds.isEmpty()) {
+            policyIds.addAll(equipmentPolicies.getOrDefault(equipment, Set.of()));
+        }
+        for (long accountType : equipmentAccountTypes.getOrDefault(equipment, Set.of())) {
+            policyIds.addAll(accountTypePolicies.getOrDefault(accountType, Set.of()));
+        }
+        for (long wg : userWorkGroups.getOrDefault(user, Set.of())) {
+            if (equipmentWorkGroups.getOrDefault(equipment, Set.of()).contains(wg)) {
+                policyIds.addAll(workGroupPolicies.getOrDefault(wg, Set.of()));
+            }
+        }
+        return policyIds;
+    }
+
+    private static long policy(Random random) {
+        return 1 + random.nextInt(POLICIES);
+    }
+
+    // Duplicate rows are skipped, as the assignment tables have unique keys
+    private static void link(AuthorizationGraph.EdgeList edges, Map<Long, Set<Long>> model, long source, long target) {
+        if (model.computeIfAbsent(source, key -> new HashSet<>()).add(target)) {
+            edges.add(source, target);
+        }
+    }
+}
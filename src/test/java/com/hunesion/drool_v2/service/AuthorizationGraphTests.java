@@ -0,0 +1,62 @@
+package com.hunesion.drool_v2.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuthorizationGraphTests {
+
+    private DynamicRuleService dynamicRuleService;
+    private AuthorizationGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        dynamicRuleService = mock(DynamicRuleService.class);
+        when(dynamicRuleService.getRulesVersion()).thenReturn(1L);
+        graph = new AuthorizationGraph(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class),
+                dynamicRuleService, true, 300);
+        graph.rebuild();
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        graph.shutdown();
+    }
+
+    @Test
+    void graphLoadedBeforeTheCommitIsStale() {
+        assertNotNull(graph.current());
+        TransactionSynchronizationManager.initSynchronization();
+
+        graph.markDirty();
+        assertNull(graph.current());
+
+        // A rebuild in the uncommitted window still reads the old rows
+        graph.rebuild();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertNull(graph.current());
+
+        graph.rebuild();
+        assertNotNull(graph.current());
+    }
+
+    @Test
+    void rulesVersionChangeMakesTheGraphStale() {
+        assertNotNull(graph.current());
+
+        when(dynamicRuleService.getRulesVersion()).thenReturn(2L);
+
+        assertNull(graph.current());
+        assertNotNull(graph.awaitCurrent());
+    }
+}
@@ -0,0 +1,43 @@
+package com.hunesion.drool_v2.service;
+
+import com.hunesion.drool_v2.repository.AccessPolicyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DynamicRuleServiceTests {
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rulesVersionIsBumpedAgainAfterCommit() {
+        DynamicRuleService service = new DynamicRuleService(mock(AccessPolicyRepository.class));
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.rebuildRules();
+        long beforeCommit = service.getRulesVersion();
+        assertEquals(1, beforeCommit);
+
+        // Aggregates cached before the commit carry beforeCommit and are not reused afterwards
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(beforeCommit + 1, service.getRulesVersion());
+    }
+
+    @Test
+    void rebuildOutsideATransactionBumpsOnce() {
+        DynamicRuleService service = new DynamicRuleService(mock(AccessPolicyRepository.class));
+
+        service.rebuildRules();
+
+        assertEquals(1, service.getRulesVersion());
+    }
+}
@@ -0,0 +1,76 @@
+package com.hunesion.drool_v2.service;
+
+import com.hunesion.drool_v2.model.entity.Equipment;
+import com.hunesion.drool_v2.repository.AccountRepository;
+import com.hunesion.drool_v2.repository.EquipmentPolicyRepository;
+import com.hunesion.drool_v2.repository.EquipmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class EquipmentContextCacheTests {
+
+    private EquipmentPolicyRepository policyRepository;
+    private EquipmentContextCache cache;
+
+    @BeforeEach
+    void setUp() {
+        Equipment equipment = new Equipment();
+        equipment.setId(1L);
+        equipment.setDeviceName("bastion");
+
+        EquipmentRepository equipmentRepository = mock(EquipmentRepository.class);
+        AccountRepository accountRepository = mock(AccountRepository.class);
+        policyRepository = mock(EquipmentPolicyRepository.class);
+        when(equipmentRepository.findAllById(any())).thenReturn(List.of(equipment));
+        when(accountRepository.findActiveByEquipmentIds(any())).thenReturn(List.of());
+        when(policyRepository.findEquipmentAssignmentRows(any())).thenReturn(List.<Object[]>of(new Object[]{1L, 10L}));
+
+        cache = new EquipmentContextCache(equipmentRepository, accountRepository, policyRepository,
+                new CaffeineCacheManager("equipmentContextCache"));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void readRacingAnUncommittedUnassignIsNotKept() {
+        assertEquals(Set.of(10L), cache.getContexts(List.of(1L)).get(1L).getEquipmentPolicyIds());
+        TransactionSynchronizationManager.initSynchronization();
+
+        // The write unassigns policy 10 but has not committed: other readers still see it
+        cache.evictEquipment(1L);
+        assertEquals(Set.of(10L), cache.getContexts(List.of(1L)).get(1L).getEquipmentPolicyIds());
+
+        when(policyRepository.findEquipmentAssignmentRows(any())).thenReturn(List.of());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(Set.of(), cache.getContexts(List.of(1L)).get(1L).getEquipmentPolicyIds());
+    }
+
+    @Test
+    void evictAllAfterCommitDropsRecachedContexts() {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAllEquipment();
+        cache.getContexts(List.of(1L));
+
+        when(policyRepository.findEquipmentAssignmentRows(any())).thenReturn(List.of());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertTrue(cache.getContexts(List.of(1L)).get(1L).getEquipmentPolicyIds().isEmpty());
+    }
+}
@@ -0,0 +1,119 @@
+package com.hunesion.drool_v2.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FactLookupExecutorTests {
+
+    private FactLookupExecutor executor;
+
+    @AfterEach
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void concurrencyCapIsSharedAcrossRequests() throws Exception {
+        executor = new FactLookupExecutor(transactionManager(), true, 3, 10);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<FactLookupExecutor.LookupGroup> groups = new ArrayList<>();
+        List<Future<Integer>> lookups = new ArrayList<>();
+        // Four requests with three lookups each
+        for (int request = 0; request < 4; request++) {
+            FactLookupExecutor.LookupGroup group = executor.newGroup();
+            groups.add(group);
+            for (int i = 0; i < 3; i++) {
+                lookups.add(group.fork(() -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    return 1;
+                }));
+            }
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        int done = 0;
+        for (int i = 0; i < lookups.size(); i++) {
+            done += groups.get(i / 3).join(lookups.get(i));
+        }
+        assertEquals(12, done);
+        assertEquals(3, peak.get());
+    }
+
+    @Test
+    void concurrencyIsCappedAtHalfThePool() throws Exception {
+        executor = new FactLookupExecutor(transactionManager(), true, 50, 4);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        FactLookupExecutor.LookupGroup group = executor.newGroup();
+        List<Future<Integer>> lookups = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            lookups.add(group.fork(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return 1;
+            }));
+        }
+        for (Future<Integer> lookup : lookups) {
+            group.join(lookup);
+        }
+        assertTrue(peak.get() <= 2, "peak " + peak.get());
+    }
+
+    @Test
+    void parallelRequestOpensNoOuterTransaction() {
+        PlatformTransactionManager transactionManager = transactionManager();
+        executor = new FactLookupExecutor(transactionManager, true, 3, 10);
+
+        executor.request(() -> "fact");
+        verify(transactionManager, never()).getTransaction(any());
+
+        executor.request(() -> executor.step(() -> "user"));
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    @Test
+    void sequentialRequestRunsInOneTransaction() {
+        PlatformTransactionManager transactionManager = transactionManager();
+        executor = new FactLookupExecutor(transactionManager, false, 3, 10);
+
+        executor.request(() -> executor.step(() -> executor.step(() -> "user")));
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    private PlatformTransactionManager transactionManager() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        return transactionManager;
+    }
+}
@@ -0,0 +1,80 @@
+package com.hunesion.drool_v2.service;
+
+import com.hunesion.drool_v2.dto.EquipmentAccessRequestDTO;
+import com.hunesion.drool_v2.dto.InspectionSessionDTO;
+import com.hunesion.drool_v2.model.EquipmentAccessRequest;
+import com.hunesion.drool_v2.model.EquipmentAccessResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InspectionSessionServiceTests {
+
+    private SessionRegistry registry;
+    private DynamicRuleService dynamicRuleService;
+    private InspectionSessionService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        registry = new SessionRegistry(null, 90, false);
+        dynamicRuleService = mock(DynamicRuleService.class);
+        when(dynamicRuleService.getRulesVersion()).thenReturn(1L);
+
+        // The fact carries the live SSH count, like PolicyFactLoader does; the policy allows one session
+        EquipmentAccessControlService accessControlService = mock(EquipmentAccessControlService.class);
+        when(accessControlService.prepareFact(any())).thenAnswer(invocation -> {
+            EquipmentAccessRequestDTO dto = invocation.getArgument(0);
+            EquipmentAccessRequest request = new EquipmentAccessRequest();
+            request.setProtocol("SSH");
+            request.setCurrentSshSessions(registry.getSessionCount(dto.getUsername(), "SSH"));
+            return request;
+        });
+        when(accessControlService.evaluateFacts(anyList())).thenAnswer(invocation -> {
+            EquipmentAccessRequest request = ((List<EquipmentAccessRequest>) invocation.getArgument(0)).get(0);
+            EquipmentAccessResult result = new EquipmentAccessResult();
+            if (request.exceedsMaxSessions("SSH", 1)) {
+                result.deny("one-ssh-session", "Too many SSH sessions");
+            } else {
+                result.allow("one-ssh-session");
+            }
+            return List.of(result);
+        });
+
+        service = new InspectionSessionService(accessControlService, dynamicRuleService, registry, 300);
+    }
+
+    @AfterEach
+    void shutdown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void rebuiltContextDoesNotCountItsOwnSession() {
+        InspectionSessionDTO session = service.open(request());
+        assertTrue(session.isAllowed());
+        assertNotNull(session.getSessionId());
+
+        // A rules rebuild forces the context to be evaluated again while the session is open
+        when(dynamicRuleService.getRulesVersion()).thenReturn(2L);
+        InspectionSessionDTO.CommandResultDTO result = service.inspect(session.getSessionId(), "ls -la");
+
+        assertTrue(result.isAllowed(), result.getDenialReason());
+        // The limit still applies to other sessions
+        assertFalse(service.open(request()).isAllowed());
+    }
+
+    private static EquipmentAccessRequestDTO request() {
+        EquipmentAccessRequestDTO dto = new EquipmentAccessRequestDTO();
+        dto.setUsername("alice");
+        dto.setEquipmentId(1L);
+        dto.setProtocol("SSH");
+        return dto;
+    }
+}
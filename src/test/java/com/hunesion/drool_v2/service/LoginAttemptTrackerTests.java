@@ -0,0 +1,88 @@
+package com.hunesion.drool_v2.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class LoginAttemptTrackerTests {
+
+    private static final LoginAttemptTracker.LockSettings THREE_TRIES = new LoginAttemptTracker.LockSettings(3, 10);
+
+    @Test
+    void locksUserAndIpAtThePolicyThreshold() {
+        LoginAttemptTracker tracker = new LoginAttemptTracker(null, 30, false, 5);
+        try {
+            tracker.recordFailure("alice", "10.0.0.1", THREE_TRIES);
+            tracker.recordFailure("alice", "10.0.0.1", THREE_TRIES);
+            assertFalse(tracker.isLocked("alice", null));
+
+            assertEquals(3, tracker.recordFailure("alice", "10.0.0.1", THREE_TRIES));
+            assertTrue(tracker.isLocked("alice", null));
+            assertTrue(tracker.isLocked("bob", "10.0.0.1"));
+            assertNotNull(tracker.getLockedUntil("alice"));
+
+            tracker.unlock("alice");
+            assertFalse(tracker.isLocked("alice", null));
+        } finally {
+            tracker.shutdown();
+        }
+    }
+
+    @Test
+    void failuresWithoutAccountLockNeverLock() {
+        LoginAttemptTracker tracker = new LoginAttemptTracker(null, 30, false, 5);
+        try {
+            // Settings of an earlier check do not linger once accountLock is off
+            tracker.recordFailure("alice", null, THREE_TRIES);
+            for (int i = 0; i < 10; i++) {
+                tracker.recordFailure("alice", null, null);
+            }
+            assertFalse(tracker.isLocked("alice", null));
+            assertEquals(12, tracker.recordFailure("alice", null, null));
+        } finally {
+            tracker.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failureCountsAreFlushedWithoutALock() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        LoginAttemptTracker tracker = new LoginAttemptTracker(jdbcTemplate, 30, true, 3600);
+        tracker.recordFailure("alice", null, THREE_TRIES);
+        tracker.recordFailure("alice", null, THREE_TRIES);
+
+        tracker.shutdown();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO login_lockouts"), rows.capture());
+        verify(jdbcTemplate, never()).batchUpdate(eq("DELETE FROM login_lockouts WHERE lock_key = ?"), anyList());
+        Object[] row = rows.getValue().get(0);
+        assertEquals("user:alice", row[0]);
+        assertNull(row[1]);
+        assertEquals(2, row[2]);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void successDeletesTheStoredCount() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        LoginAttemptTracker tracker = new LoginAttemptTracker(jdbcTemplate, 30, true, 3600);
+        tracker.recordFailure("alice", null, THREE_TRIES);
+        tracker.recordSuccess("alice");
+
+        tracker.shutdown();
+
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("INSERT INTO login_lockouts"), anyList());
+        verify(jdbcTemplate).batchUpdate(eq("DELETE FROM login_lockouts WHERE lock_key = ?"), anyList());
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+}
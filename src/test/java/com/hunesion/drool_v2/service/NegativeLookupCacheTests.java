@@ -0,0 +1,69 @@
+package com.hunesion.drool_v2.service;
+
+import com.hunesion.drool_v2.repository.EquipmentRepository;
+import com.hunesion.drool_v2.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class NegativeLookupCacheTests {
+
+    private UserRepository userRepository;
+    private EquipmentRepository equipmentRepository;
+    private NegativeLookupCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        equipmentRepository = mock(EquipmentRepository.class);
+        when(userRepository.findAllUsernames()).thenReturn(List.of("alice"));
+        when(equipmentRepository.findActiveIds()).thenReturn(List.of(1L));
+        cache = new NegativeLookupCache(userRepository, equipmentRepository, new CaffeineCacheManager(), 30, true, 300);
+        cache.init();
+    }
+
+    @AfterEach
+    void shutdown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void bloomMissOfAnExistingUserIsConfirmedOnce() {
+        // Created on another node after the filter was built
+        when(userRepository.existsByUsername("bob")).thenReturn(true);
+
+        assertFalse(cache.isUnknownUser("bob"));
+        assertFalse(cache.isUnknownUser("bob"));
+        assertFalse(cache.isUnknownUser("alice"));
+
+        verify(userRepository, times(1)).existsByUsername("bob");
+        verify(userRepository, never()).existsByUsername("alice");
+    }
+
+    @Test
+    void confirmedMissIsRememberedAsMissing() {
+        assertTrue(cache.isUnknownUser("mallory"));
+        assertTrue(cache.isUnknownUser("mallory"));
+
+        verify(userRepository, times(1)).existsByUsername("mallory");
+    }
+
+    @Test
+    void bloomMissOfExistingEquipmentIsConfirmedOnce() {
+        when(equipmentRepository.existsByIdAndIsDeletedFalse(2L)).thenReturn(true);
+
+        assertFalse(cache.isUnknownEquipment(2L));
+        assertFalse(cache.isUnknownEquipment(2L));
+        assertTrue(cache.isUnknownEquipment(3L));
+        assertTrue(cache.isUnknownEquipment(3L));
+
+        verify(equipmentRepository, times(1)).existsByIdAndIsDeletedFalse(2L);
+        verify(equipmentRepository, times(1)).existsByIdAndIsDeletedFalse(3L);
+    }
+}
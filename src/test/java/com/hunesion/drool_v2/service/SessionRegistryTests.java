@@ -0,0 +1,48 @@
+package com.hunesion.drool_v2.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionRegistryTests {
+
+    private SessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SessionRegistry(null, 90, false);
+    }
+
+    @AfterEach
+    void shutdown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void countsSessionsPerUserAndProtocol() {
+        SessionRegistry.LiveSession first = registry.open("alice", 1L, "ssh");
+        registry.open("alice", 2L, "SSH");
+        registry.open("alice", 3L, "RDP");
+
+        assertEquals(2, registry.getSessionCount("alice", "SSH"));
+        assertEquals(1, registry.getSessionCount("alice", "rdp"));
+        assertEquals(0, registry.getSessionCount("bob", "SSH"));
+
+        assertTrue(registry.close(first.getSessionId()));
+        assertFalse(registry.close(first.getSessionId()));
+        assertEquals(1, registry.getSessionCount("alice", "SSH"));
+    }
+
+    @Test
+    void countersAreRemovedWhenTheyReachZero() {
+        for (int i = 0; i < 100; i++) {
+            SessionRegistry.LiveSession session = registry.open("user-" + i, 1L, "SSH");
+            registry.close(session.getSessionId());
+        }
+
+        assertEquals(0, registry.getCounterCount());
+        assertEquals(0, registry.getLiveSessionCount());
+    }
+}